@@ -2,9 +2,11 @@ package com.starking.artesanato;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 @SpringBootApplication
+@EnableScheduling
 public class ArtesanatoApplication implements WebMvcConfigurer {
 	
 	public static void main(String[] args) {
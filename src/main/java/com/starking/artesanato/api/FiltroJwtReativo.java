@@ -0,0 +1,75 @@
+package com.starking.artesanato.api;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.server.HandlerFilterFunction;
+import org.springframework.web.reactive.function.server.HandlerFunction;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+import com.starking.artesanato.service.JwtService;
+import com.starking.artesanato.service.TokenVerificado;
+import com.starking.artesanato.service.impl.RevogacaoTokenService;
+
+import io.jsonwebtoken.JwtException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Autenticação da API reativa, equivalente ao {@link JwtTokenFilter} no modo
+ * stateless: o token é verificado pelo {@link JwtService} e o principal sai
+ * das claims. A conferência de revogação pode consultar o banco pelo JPA, por
+ * isso roda no scheduler elástico e não no event loop.
+ */
+public class FiltroJwtReativo implements HandlerFilterFunction<ServerResponse, ServerResponse> {
+
+	private final JwtService jwtService;
+	private final RevogacaoTokenService revogacaoService;
+	private final Counter autenticadas;
+	private final Counter rejeitadas;
+
+	public FiltroJwtReativo(JwtService jwtService, RevogacaoTokenService revogacaoService, MeterRegistry meterRegistry) {
+		this.jwtService = jwtService;
+		this.revogacaoService = revogacaoService;
+		this.autenticadas = meterRegistry.counter("jwt.reativo.resultado", "resultado", "autenticado");
+		this.rejeitadas = meterRegistry.counter("jwt.reativo.resultado", "resultado", "rejeitado");
+	}
+
+	@Override
+	public Mono<ServerResponse> filter(ServerRequest request, HandlerFunction<ServerResponse> next) {
+		TokenVerificado token = verificar(request.headers().asHttpHeaders().getFirst(HttpHeaders.AUTHORIZATION));
+		if(token == null) {
+			return naoAutorizado();
+		}
+
+		return Mono.fromCallable(() -> revogacaoService.isRevogado(token))
+				.subscribeOn(Schedulers.boundedElastic())
+				.flatMap(revogado -> {
+					if(revogado) {
+						return naoAutorizado();
+					}
+					autenticadas.increment();
+					return next.handle(request);
+				});
+	}
+
+	private TokenVerificado verificar(String authorization) {
+		if(authorization == null || !authorization.startsWith("Bearer ")) {
+			return null;
+		}
+
+		try {
+			TokenVerificado token = jwtService.obterTokenVerificado(authorization.substring(7));
+			return token.isExpirado(System.currentTimeMillis()) ? null : token;
+		}catch (JwtException | IllegalArgumentException e) {
+			return null;
+		}
+	}
+
+	private Mono<ServerResponse> naoAutorizado() {
+		rejeitadas.increment();
+		return ServerResponse.status(HttpStatus.UNAUTHORIZED).build();
+	}
+}
@@ -0,0 +1,163 @@
+package com.starking.artesanato.api;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.starking.artesanato.api.dto.PecasDTO;
+import com.starking.artesanato.model.enums.StatusPagamento;
+import com.starking.artesanato.model.enums.TipoPagamento;
+
+/**
+ * Formato binário das respostas para quem pede {@code application/cbor}; o
+ * JSON continua o padrão. Além do CBOR em si:
+ * <ul>
+ * <li>valores monetários ({@link BigDecimal}: valor, saldo, totais) vão como
+ * inteiro em centavos;</li>
+ * <li>tipo e status vão pelo código do dicionário abaixo, a posição na
+ * lista;</li>
+ * <li>cada {@link PecasDTO} é um array
+ * [id, descricao, mes, ano, valor, usuario, tipo, status, versao], sem
+ * repetir o nome dos campos a cada peça.</li>
+ * </ul>
+ * Os códigos e a ordem dos campos são o contrato com os clientes: entradas
+ * novas só no fim. A leitura aceita o mesmo formato, e tipo e status também
+ * pelo nome.
+ */
+public final class FormatoCompacto {
+
+	/** Código de cada tipo de pagamento: a posição na lista. */
+	public static final List<String> TIPOS = Collections.unmodifiableList(Arrays.asList(
+			TipoPagamento.CREDITO.name(), TipoPagamento.PIX.name()));
+
+	/** Código de cada status de pagamento: a posição na lista. */
+	public static final List<String> STATUS = Collections.unmodifiableList(Arrays.asList(
+			StatusPagamento.PENDENTE.name(), StatusPagamento.CANCELADO.name(), StatusPagamento.EFETIVADO.name()));
+
+	private FormatoCompacto() {
+	}
+
+	/** ObjectMapper CBOR com a configuração padrão do Spring MVC e o formato compacto. */
+	public static ObjectMapper criarMapper() {
+		SimpleModule modulo = new SimpleModule("FormatoCompacto");
+		modulo.addSerializer(BigDecimal.class, new CentavosSerializer());
+		modulo.addDeserializer(BigDecimal.class, new CentavosDeserializer());
+		modulo.setMixInAnnotation(PecasDTO.class, PecaCompacta.class);
+		return Jackson2ObjectMapperBuilder.cbor().modulesToInstall(modulo).build();
+	}
+
+	@JsonFormat(shape = JsonFormat.Shape.ARRAY)
+	@JsonPropertyOrder({ "id", "descricao", "mes", "ano", "valor", "usuario", "tipo", "status", "versao" })
+	abstract static class PecaCompacta {
+
+		@JsonSerialize(using = CodigoTipoSerializer.class)
+		@JsonDeserialize(using = CodigoTipoDeserializer.class)
+		String tipo;
+
+		@JsonSerialize(using = CodigoStatusSerializer.class)
+		@JsonDeserialize(using = CodigoStatusDeserializer.class)
+		String status;
+	}
+
+	static class CentavosSerializer extends JsonSerializer<BigDecimal> {
+
+		@Override
+		public void serialize(BigDecimal valor, JsonGenerator gerador, SerializerProvider provider) throws IOException {
+			gerador.writeNumber(valor.setScale(2, RoundingMode.HALF_EVEN).unscaledValue().longValueExact());
+		}
+	}
+
+	static class CentavosDeserializer extends JsonDeserializer<BigDecimal> {
+
+		@Override
+		public BigDecimal deserialize(JsonParser parser, DeserializationContext contexto) throws IOException {
+			if (parser.currentToken() != JsonToken.VALUE_NUMBER_INT) {
+				return (BigDecimal) contexto.handleUnexpectedToken(BigDecimal.class, parser);
+			}
+			return BigDecimal.valueOf(parser.getLongValue(), 2);
+		}
+	}
+
+	/** Nome fora do dicionário sai como texto, para não perder o valor. */
+	abstract static class CodigoSerializer extends JsonSerializer<String> {
+
+		private final List<String> dicionario;
+
+		CodigoSerializer(List<String> dicionario) {
+			this.dicionario = dicionario;
+		}
+
+		@Override
+		public void serialize(String nome, JsonGenerator gerador, SerializerProvider provider) throws IOException {
+			int codigo = dicionario.indexOf(nome);
+			if (codigo < 0) {
+				gerador.writeString(nome);
+			} else {
+				gerador.writeNumber(codigo);
+			}
+		}
+	}
+
+	abstract static class CodigoDeserializer extends JsonDeserializer<String> {
+
+		private final List<String> dicionario;
+
+		CodigoDeserializer(List<String> dicionario) {
+			this.dicionario = dicionario;
+		}
+
+		@Override
+		public String deserialize(JsonParser parser, DeserializationContext contexto) throws IOException {
+			if (parser.currentToken() != JsonToken.VALUE_NUMBER_INT) {
+				return parser.getValueAsString();
+			}
+			int codigo = parser.getIntValue();
+			if (codigo < 0 || codigo >= dicionario.size()) {
+				return (String) contexto.handleWeirdNumberValue(String.class, codigo, "código fora do dicionário %s", dicionario);
+			}
+			return dicionario.get(codigo);
+		}
+	}
+
+	static class CodigoTipoSerializer extends CodigoSerializer {
+		CodigoTipoSerializer() {
+			super(TIPOS);
+		}
+	}
+
+	static class CodigoTipoDeserializer extends CodigoDeserializer {
+		CodigoTipoDeserializer() {
+			super(TIPOS);
+		}
+	}
+
+	static class CodigoStatusSerializer extends CodigoSerializer {
+		CodigoStatusSerializer() {
+			super(STATUS);
+		}
+	}
+
+	static class CodigoStatusDeserializer extends CodigoDeserializer {
+		CodigoStatusDeserializer() {
+			super(STATUS);
+		}
+	}
+}
@@ -1,6 +1,7 @@
 package com.starking.artesanato.api;
 
 import java.io.IOException;
+import java.util.concurrent.TimeUnit;
 
 import javax.servlet.FilterChain;
 import javax.servlet.ServletException;
@@ -14,19 +15,42 @@ import org.springframework.security.web.authentication.WebAuthenticationDetailsS
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import com.starking.artesanato.service.JwtService;
+import com.starking.artesanato.service.TokenVerificado;
+import com.starking.artesanato.service.impl.RevogacaoTokenService;
 import com.starking.artesanato.service.impl.SecurityUserDetailsService;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
 public class JwtTokenFilter extends OncePerRequestFilter {
 	
 	private JwtService jwtService;
 	private SecurityUserDetailsService userDetailsService;
+	private RevogacaoTokenService revogacaoService;
+	private boolean principalStateless;
+	
+	/** Verificação do token e obtenção do usuário, medidas em separado. */
+	private Timer tempoToken;
+	private Timer tempoUsuario;
+	private Counter autenticadas;
+	private Counter rejeitadas;
 
 	public JwtTokenFilter(
 			JwtService jwtService,
-			SecurityUserDetailsService userDetailsService
+			SecurityUserDetailsService userDetailsService,
+			RevogacaoTokenService revogacaoService,
+			boolean principalStateless,
+			MeterRegistry meterRegistry
 			) {
 		this.jwtService = jwtService;
 		this.userDetailsService = userDetailsService;
+		this.revogacaoService = revogacaoService;
+		this.principalStateless = principalStateless;
+		this.tempoToken = meterRegistry.timer("jwt.filtro", "etapa", "token");
+		this.tempoUsuario = meterRegistry.timer("jwt.filtro", "etapa", "usuario");
+		this.autenticadas = meterRegistry.counter("jwt.filtro.resultado", "resultado", "autenticado");
+		this.rejeitadas = meterRegistry.counter("jwt.filtro.resultado", "resultado", "rejeitado");
 	}
 
 	@Override
@@ -43,11 +67,21 @@ public class JwtTokenFilter extends OncePerRequestFilter {
 		if(authorization != null && authorization.startsWith("Bearer")) {
 			
 			String token = authorization.split(" ")[1];
+			long inicio = System.nanoTime();
 			boolean isTokenValid = jwtService.isTokenValido(token);
+			long fimToken = System.nanoTime();
+			tempoToken.record(fimToken - inicio, TimeUnit.NANOSECONDS);
 			
+			UserDetails usuarioAutenticado = null;
 			if(isTokenValid) {
-				String login = jwtService.obterLoginUsuario(token);
-				UserDetails usuarioAutenticado = userDetailsService.loadUserByUsername(login);
+				usuarioAutenticado = carregarUsuario(token);
+				tempoUsuario.record(System.nanoTime() - fimToken, TimeUnit.NANOSECONDS);
+			}
+			
+			if(usuarioAutenticado == null) {
+				rejeitadas.increment();
+			} else {
+				autenticadas.increment();
 				
 				UsernamePasswordAuthenticationToken user = 
 						new UsernamePasswordAuthenticationToken(
@@ -62,5 +96,18 @@ public class JwtTokenFilter extends OncePerRequestFilter {
 		
 		filterChain.doFilter(request, response);
 	}
+	
+	private UserDetails carregarUsuario(String token) {
+		if(!principalStateless) {
+			String login = jwtService.obterLoginUsuario(token);
+			return userDetailsService.loadUserByUsername(login);
+		}
+		
+		TokenVerificado tokenVerificado = jwtService.obterTokenVerificado(token);
+		if(revogacaoService.isRevogado(tokenVerificado)) {
+			return null;
+		}
+		return UsuarioAutenticado.de(tokenVerificado);
+	}
 
 }
@@ -0,0 +1,67 @@
+package com.starking.artesanato.api;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import com.starking.artesanato.service.TokenVerificado;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Principal montado diretamente das claims assinadas do token, sem consulta
+ * ao banco. Tem o mesmo papel fixo "USER" do SecurityUserDetailsService.
+ */
+@Getter
+@AllArgsConstructor
+public class UsuarioAutenticado implements UserDetails {
+
+	private static final List<GrantedAuthority> AUTORIDADES = AuthorityUtils.createAuthorityList("ROLE_USER");
+
+	private final Long id;
+	private final String email;
+	private final String nome;
+
+	public static UsuarioAutenticado de(TokenVerificado token) {
+		return new UsuarioAutenticado(token.getIdUsuario(), token.getLogin(), token.getNome());
+	}
+
+	@Override
+	public Collection<? extends GrantedAuthority> getAuthorities() {
+		return AUTORIDADES;
+	}
+
+	@Override
+	public String getPassword() {
+		return null;
+	}
+
+	@Override
+	public String getUsername() {
+		return email;
+	}
+
+	@Override
+	public boolean isAccountNonExpired() {
+		return true;
+	}
+
+	@Override
+	public boolean isAccountNonLocked() {
+		return true;
+	}
+
+	@Override
+	public boolean isCredentialsNonExpired() {
+		return true;
+	}
+
+	@Override
+	public boolean isEnabled() {
+		return true;
+	}
+}
@@ -10,4 +10,7 @@ import lombok.NoArgsConstructor;
 public class AtualizaStatusDTO {
 
 	private String status;
+	
+	/** Versão lida pelo cliente; sem ela, vale a versão atual da peça. */
+	private Long versao;
 }
@@ -0,0 +1,26 @@
+package com.starking.artesanato.api.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Novo status para várias peças, escolhidas pelos ids ou, quando eles não
+ * forem informados, pelo filtro de usuário, mês, ano e status atual.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AtualizaStatusLoteDTO {
+
+	private List<Long> ids;
+	private Long usuario;
+	private Integer mes;
+	private Integer ano;
+	private String statusAtual;
+	private String status;
+}
@@ -2,6 +2,9 @@ package com.starking.artesanato.api.dto;
 
 import java.math.BigDecimal;
 
+import com.starking.artesanato.model.enums.StatusPagamento;
+import com.starking.artesanato.model.enums.TipoPagamento;
+
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -21,4 +24,19 @@ public class PecasDTO {
 	private Long usuario;
 	private String tipo;
 	private String status;
+	
+	/** Versão lida; devolvida no PUT, a gravação só vale se a peça ainda estiver nela. */
+	private Long versao;
+	
+	/**
+	 * Usado pelas consultas que montam o DTO direto no select, sem carregar a
+	 * entidade nem o usuário.
+	 */
+	public PecasDTO(Long id, String descricao, Integer mes, Integer ano, BigDecimal valor,
+			Long usuario, TipoPagamento tipo, StatusPagamento status, Long versao) {
+		this(id, descricao, mes, ano, valor, usuario,
+				tipo == null ? null : tipo.name(),
+				status == null ? null : status.name(),
+				versao);
+	}
 }
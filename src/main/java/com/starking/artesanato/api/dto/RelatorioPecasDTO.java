@@ -0,0 +1,27 @@
+package com.starking.artesanato.api.dto;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Relatório anual das peças de um usuário: os doze meses do ano, o acumulado
+ * do ano até {@code mesAte} e o saldo vindo dos anos anteriores.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RelatorioPecasDTO {
+
+	private Long usuario;
+	private Integer ano;
+	private Integer mesAte;
+	private BigDecimal saldoInicial;
+	private List<ResumoPeriodoDTO> meses;
+	private ResumoPeriodoDTO acumuladoAno;
+}
@@ -0,0 +1,28 @@
+package com.starking.artesanato.api.dto;
+
+import java.math.BigDecimal;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Movimento de um mês, ou do ano até o mês pedido quando {@code mes} é nulo.
+ * Créditos, PIX e saldo contam só as peças efetivadas, como o saldo do
+ * usuário; {@code saldoAcumulado} é o saldo ao fim do período.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ResumoPeriodoDTO {
+
+	private Integer mes;
+	private Long quantidade;
+	private Long quantidadeEfetivadas;
+	private BigDecimal creditos;
+	private BigDecimal pix;
+	private BigDecimal saldo;
+	private BigDecimal saldoAcumulado;
+}
@@ -0,0 +1,142 @@
+package com.starking.artesanato.api.resource;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.MinimalPrettyPrinter;
+import com.starking.artesanato.model.entity.Pecas;
+
+/**
+ * Escreve as peças na saída uma a uma, conforme chegam do cursor, em NDJSON
+ * (um objeto JSON por linha) ou CSV. Os campos são os mesmos do PecasDTO.
+ */
+abstract class ExportacaoPecas implements Consumer<Pecas>, Closeable {
+
+	static final String NDJSON = "ndjson";
+	static final String CSV = "csv";
+
+	static boolean isFormatoValido(String formato) {
+		return NDJSON.equals(formato) || CSV.equals(formato);
+	}
+
+	static String tipoConteudo(String formato) {
+		return CSV.equals(formato) ? "text/csv;charset=UTF-8" : "application/x-ndjson";
+	}
+
+	static ExportacaoPecas para(String formato, JsonFactory jsonFactory, OutputStream saida) throws IOException {
+		return CSV.equals(formato) ? new Csv(saida) : new Ndjson(jsonFactory, saida);
+	}
+
+	@Override
+	public void accept(Pecas pecas) {
+		try {
+			escrever(pecas);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	protected abstract void escrever(Pecas pecas) throws IOException;
+
+	private static final class Ndjson extends ExportacaoPecas {
+
+		private final JsonGenerator json;
+		private boolean vazia = true;
+
+		Ndjson(JsonFactory jsonFactory, OutputStream saida) throws IOException {
+			this.json = jsonFactory.createGenerator(saida);
+			this.json.setPrettyPrinter(new MinimalPrettyPrinter("\n"));
+		}
+
+		@Override
+		protected void escrever(Pecas pecas) throws IOException {
+			vazia = false;
+			json.writeStartObject();
+			json.writeNumberField("id", pecas.getId());
+			json.writeStringField("descricao", pecas.getDescricao());
+			escreverInteiro("mes", pecas.getMes());
+			escreverInteiro("ano", pecas.getAno());
+			json.writeNumberField("valor", pecas.getValor());
+			json.writeNumberField("usuario", pecas.getUsuario().getId());
+			json.writeStringField("tipo", pecas.getTipo() == null ? null : pecas.getTipo().name());
+			json.writeStringField("status", pecas.getStatus() == null ? null : pecas.getStatus().name());
+			json.writeEndObject();
+		}
+
+		private void escreverInteiro(String campo, Integer valor) throws IOException {
+			json.writeFieldName(campo);
+			if (valor == null) {
+				json.writeNull();
+			} else {
+				json.writeNumber(valor);
+			}
+		}
+
+		@Override
+		public void close() throws IOException {
+			if (!vazia) {
+				json.writeRaw('\n');
+			}
+			json.close();
+		}
+	}
+
+	private static final class Csv extends ExportacaoPecas {
+
+		private final Writer saida;
+
+		Csv(OutputStream saida) throws IOException {
+			this.saida = new BufferedWriter(new OutputStreamWriter(saida, StandardCharsets.UTF_8));
+			this.saida.write("id,descricao,mes,ano,valor,usuario,tipo,status\n");
+		}
+
+		@Override
+		protected void escrever(Pecas pecas) throws IOException {
+			saida.write(String.valueOf(pecas.getId()));
+			saida.write(',');
+			escreverTexto(pecas.getDescricao());
+			saida.write(',');
+			escreverValor(pecas.getMes());
+			saida.write(',');
+			escreverValor(pecas.getAno());
+			saida.write(',');
+			escreverValor(pecas.getValor() == null ? null : pecas.getValor().toPlainString());
+			saida.write(',');
+			escreverValor(pecas.getUsuario().getId());
+			saida.write(',');
+			escreverValor(pecas.getTipo());
+			saida.write(',');
+			escreverValor(pecas.getStatus());
+			saida.write('\n');
+		}
+
+		private void escreverValor(Object valor) throws IOException {
+			if (valor != null) {
+				saida.write(valor.toString());
+			}
+		}
+
+		private void escreverTexto(String texto) throws IOException {
+			if (texto == null) {
+				return;
+			}
+			saida.write('"');
+			saida.write(texto.replace("\"", "\"\""));
+			saida.write('"');
+		}
+
+		@Override
+		public void close() throws IOException {
+			saida.close();
+		}
+	}
+}
@@ -0,0 +1,111 @@
+package com.starking.artesanato.api.resource;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.server.HandlerFilterFunction;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+import com.starking.artesanato.api.dto.PecasDTO;
+import com.starking.artesanato.model.entity.Pecas;
+import com.starking.artesanato.model.entity.Usuario;
+import com.starking.artesanato.service.PecaReativaService;
+import com.starking.artesanato.utils.ConstantesUtils;
+
+import lombok.RequiredArgsConstructor;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Leituras do {@link PecasResource} e o saldo do {@link UsuarioResource} na
+ * pilha reativa, com os mesmos caminhos, parâmetros e respostas.
+ * <p>
+ * A listagem em application/stream+json ou application/x-ndjson sai peça a
+ * peça, no ritmo em que o cliente consome; como o fim da página só é
+ * conhecido depois do corpo, ela não leva o X-Proximo-Cursor, e o cliente usa
+ * o id da última peça recebida. Em application/json a página é montada antes
+ * de responder, com o cabeçalho.
+ */
+@RequiredArgsConstructor
+public class PecasReativoHandler {
+
+	public static final MediaType APPLICATION_NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+	private final PecaReativaService service;
+
+	/** Rotas protegidas pelo filtro de autenticação; parâmetros numéricos inválidos respondem 400. */
+	public RouterFunction<ServerResponse> rotas(HandlerFilterFunction<ServerResponse, ServerResponse> autenticacao) {
+		return RouterFunctions.route()
+				.GET("/api/pecas", this::buscar)
+				.GET("/api/pecas/{id}", this::obterPeca)
+				.GET("/api/usuarios/{id}/saldo", this::obterSaldo)
+				.filter((request, next) -> Mono.defer(() -> next.handle(request))
+						.onErrorResume(NumberFormatException.class, e -> ServerResponse.badRequest().build()))
+				.build()
+				.filter(autenticacao);
+	}
+
+	public Mono<ServerResponse> buscar(ServerRequest request) {
+		Optional<Long> idUsuario = request.queryParam("usuario").map(Long::valueOf);
+		if(!idUsuario.isPresent()) {
+			return ServerResponse.badRequest().bodyValue(ConstantesUtils.INFORME_USUARIO);
+		}
+
+		Pecas pecasFiltro = new Pecas();
+		pecasFiltro.setDescricao(request.queryParam("descricao").orElse(null));
+		pecasFiltro.setMes(request.queryParam("mes").map(Integer::valueOf).orElse(null));
+		pecasFiltro.setAno(request.queryParam("ano").map(Integer::valueOf).orElse(null));
+		pecasFiltro.setUsuario(Usuario.builder().id(idUsuario.get()).build());
+		Long aposId = request.queryParam("after").map(Long::valueOf).orElse(null);
+		Integer limite = request.queryParam("limit").map(Integer::valueOf).orElse(null);
+
+		return service.existeUsuario(idUsuario.get()).flatMap(existe -> {
+			if(!existe) {
+				return ServerResponse.badRequest().bodyValue(ConstantesUtils.USUARIO_NAO_ENCONTRADO_ID);
+			}
+
+			Flux<PecasDTO> pecas = service.buscar(pecasFiltro, aposId, limite).map(PecasResource::converter);
+
+			MediaType tipoStream = tipoStream(request);
+			if(tipoStream != null) {
+				return ServerResponse.ok().contentType(tipoStream).body(pecas, PecasDTO.class);
+			}
+
+			return pecas.collectList().flatMap(pagina -> ServerResponse.ok()
+					.headers(headers -> headers.addAll(PecasResource.cabecalhoProximaPagina(pagina, service.tamanhoPagina(limite))))
+					.contentType(MediaType.APPLICATION_JSON)
+					.bodyValue(pagina));
+		});
+	}
+
+	public Mono<ServerResponse> obterPeca(ServerRequest request) {
+		Long id = Long.valueOf(request.pathVariable("id"));
+		return service.obterPorId(id)
+				.flatMap(pecas -> ServerResponse.ok().contentType(MediaType.APPLICATION_JSON).bodyValue(PecasResource.converter(pecas)))
+				.switchIfEmpty(ServerResponse.notFound().build());
+	}
+
+	public Mono<ServerResponse> obterSaldo(ServerRequest request) {
+		Long id = Long.valueOf(request.pathVariable("id"));
+		return service.existeUsuario(id).flatMap(existe -> {
+			if(!existe) {
+				return ServerResponse.notFound().build();
+			}
+			return ServerResponse.ok().contentType(MediaType.APPLICATION_JSON)
+					.body(service.obterSaldoPorUsuario(id), BigDecimal.class);
+		});
+	}
+
+	private static MediaType tipoStream(ServerRequest request) {
+		for(MediaType aceito : request.headers().accept()) {
+			if(MediaType.APPLICATION_STREAM_JSON.equalsTypeAndSubtype(aceito) || APPLICATION_NDJSON.equalsTypeAndSubtype(aceito)) {
+				return aceito.removeQualityValue();
+			}
+		}
+		return null;
+	}
+}
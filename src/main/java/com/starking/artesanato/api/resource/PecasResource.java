@@ -1,8 +1,18 @@
 package com.starking.artesanato.api.resource;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.zip.GZIPOutputStream;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -11,19 +21,28 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.starking.artesanato.api.dto.AtualizaStatusDTO;
+import com.starking.artesanato.api.dto.AtualizaStatusLoteDTO;
 import com.starking.artesanato.api.dto.PecasDTO;
+import com.starking.artesanato.api.dto.ResultadoLoteDTO;
+import com.starking.artesanato.exception.ConflitoException;
 import com.starking.artesanato.exception.RegraNegocioException;
 import com.starking.artesanato.model.entity.Pecas;
 import com.starking.artesanato.model.entity.Usuario;
 import com.starking.artesanato.model.enums.StatusPagamento;
 import com.starking.artesanato.model.enums.TipoPagamento;
+import com.starking.artesanato.service.ImportacaoPecasService;
+import com.starking.artesanato.service.LotePecasService;
 import com.starking.artesanato.service.PecaService;
+import com.starking.artesanato.service.ResultadoItemLote;
 import com.starking.artesanato.service.UsuarioService;
+import com.starking.artesanato.service.evento.SituacaoPeca;
 import com.starking.artesanato.utils.ConstantesUtils;
 
 import lombok.RequiredArgsConstructor;
@@ -33,15 +52,25 @@ import lombok.RequiredArgsConstructor;
 @RequiredArgsConstructor
 public class PecasResource {
 
+	static final String CABECALHO_PROXIMO_CURSOR = "X-Proximo-Cursor";
+	
 	private final PecaService service;
 	private final UsuarioService usuarioService;
+	private final LotePecasService loteService;
+	private final ImportacaoPecasService importacaoService;
+	private final ObjectMapper objectMapper;
+	
+	@Value("${pecas.lote.maximo-itens:50000}")
+	private int maximoItensLote;
 	
 	@GetMapping
 	public ResponseEntity<?> buscar(
 			@RequestParam(value ="descricao" , required = false) String descricao,
 			@RequestParam(value = "mes", required = false) Integer mes,
 			@RequestParam(value = "ano", required = false) Integer ano,
-			@RequestParam("usuario") Long idUsuario
+			@RequestParam("usuario") Long idUsuario,
+			@RequestParam(value = "after", required = false) Long aposId,
+			@RequestParam(value = "limit", required = false) Integer limite
 			) {
 		
 		Pecas pecasFiltro = new Pecas();
@@ -56,14 +85,53 @@ public class PecasResource {
 			pecasFiltro.setUsuario(usuario.get());
 		}
 		
-		List<Pecas> pecas = service.buscar(pecasFiltro);
-		return ResponseEntity.ok(pecas);
+		List<PecasDTO> pecas = service.buscar(pecasFiltro, aposId, limite);
+		return ResponseEntity.ok()
+				.headers(cabecalhoProximaPagina(pecas, service.tamanhoPagina(limite)))
+				.body(pecas);
+	}
+	
+	/**
+	 * Todas as peças do usuário em NDJSON ou CSV, escritas conforme são lidas
+	 * do banco. Comprime com gzip quando o cliente aceita.
+	 */
+	@GetMapping("/exportar")
+	public void exportar(
+			@RequestParam("usuario") Long idUsuario,
+			@RequestParam(value = "formato", defaultValue = ExportacaoPecas.NDJSON) String formato,
+			@RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+			HttpServletResponse response
+			) throws IOException {
+		
+		if(!ExportacaoPecas.isFormatoValido(formato)) {
+			response.sendError(HttpStatus.BAD_REQUEST.value(), ConstantesUtils.FORMATO_EXPORTACAO_INVALIDO);
+			return;
+		}
+		
+		if(!usuarioService.obterPorId(idUsuario).isPresent()) {
+			response.sendError(HttpStatus.BAD_REQUEST.value(), ConstantesUtils.USUARIO_NAO_ENCONTRADO_ID);
+			return;
+		}
+		
+		response.setContentType(ExportacaoPecas.tipoConteudo(formato));
+		response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"pecas-" + idUsuario + "." + formato + "\"");
+		response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+		
+		OutputStream saida = response.getOutputStream();
+		if(acceptEncoding != null && acceptEncoding.contains("gzip")) {
+			response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+			saida = new GZIPOutputStream(saida, 8192);
+		}
+		
+		try (ExportacaoPecas exportacao = ExportacaoPecas.para(formato, objectMapper.getFactory(), saida)) {
+			service.exportar(idUsuario, exportacao);
+		}
 	}
 	
 	@GetMapping("{id}")
 	public ResponseEntity<?> obterPeca( @PathVariable("id") Long id ) {
-		return service.obterPorId(id)
-					.map( pecas -> new ResponseEntity<>(converter(pecas), HttpStatus.OK) )
+		return service.obterDTOPorId(id)
+					.map( pecas -> new ResponseEntity<>(pecas, HttpStatus.OK) )
 					.orElseGet( () -> new ResponseEntity<>(HttpStatus.NOT_FOUND) );
 	}
 
@@ -75,55 +143,154 @@ public class PecasResource {
 			return new ResponseEntity<>(peca, HttpStatus.CREATED);
 		}catch (RegraNegocioException e) {
 			return ResponseEntity.badRequest().body(e.getMessage());
+		}catch (ConflitoException e) {
+			return new ResponseEntity<>(e.getMessage(), HttpStatus.CONFLICT);
 		}
 	}
 	
-	@PutMapping("{id}")
-	public ResponseEntity<?> atualizar( @PathVariable("id") Long id, @RequestBody PecasDTO dto ) {
-		return service.obterPorId(id).map( entity -> {
+	@PostMapping("/lote")
+	public ResponseEntity<?> salvarLote( @RequestBody List<PecasDTO> dtos ) {
+		if(dtos.size() > maximoItensLote) {
+			return ResponseEntity.badRequest().body(ConstantesUtils.LOTE_EXCEDE_LIMITE);
+		}
+		
+		ResultadoLoteDTO[] resultados = new ResultadoLoteDTO[dtos.size()];
+		List<Pecas> pecas = new ArrayList<>(dtos.size());
+		List<Integer> indices = new ArrayList<>(dtos.size());
+		
+		for(int i = 0; i < dtos.size(); i++) {
 			try {
-				Pecas pecas = converter(dto);
-				pecas.setId(entity.getId());
-				service.atualizar(pecas);
-				return ResponseEntity.ok(pecas);
-			}catch (RegraNegocioException e) {
-				return ResponseEntity.badRequest().body(e.getMessage());
+				// um null no array JSON é só um item inválido, não um erro do lote inteiro
+				pecas.add(converterCampos(Optional.ofNullable(dtos.get(i))
+						.orElseThrow(IllegalArgumentException::new)));
+				indices.add(i);
+			}catch (IllegalArgumentException e) {
+				resultados[i] = ResultadoLoteDTO.builder().indice(i).erro(ConstantesUtils.INFORME_PECAS).build();
 			}
-		}).orElseGet( () ->
-			new ResponseEntity<>(ConstantesUtils.PECA_NAO_ENCONTRADA, HttpStatus.BAD_REQUEST) );
+		}
+		
+		List<ResultadoItemLote> gravadas = loteService.salvar(pecas);
+		for(int i = 0; i < gravadas.size(); i++) {
+			ResultadoItemLote resultado = gravadas.get(i);
+			int indice = indices.get(i);
+			resultados[indice] = ResultadoLoteDTO.builder()
+					.indice(indice)
+					.id(resultado.getId())
+					.erro(resultado.getErro())
+					.build();
+		}
+		
+		return ResponseEntity.ok(Arrays.asList(resultados));
+	}
+	
+	/**
+	 * Importa um CSV enviado como corpo da requisição (text/csv), lido em fluxo
+	 * sem passar por multipart. Aceita o mesmo formato da exportação.
+	 */
+	@PostMapping(value = "/importacoes", consumes = "text/csv")
+	public ResponseEntity<?> importar( HttpServletRequest request ) throws IOException {
+		try {
+			return ResponseEntity.ok(importacaoService.importar(request.getInputStream()));
+		}catch (RegraNegocioException e) {
+			return ResponseEntity.badRequest().body(e.getMessage());
+		}
+	}
+	
+	@GetMapping("/importacoes")
+	public ResponseEntity<?> importacoesEmAndamento() {
+		return ResponseEntity.ok(importacaoService.emAndamento());
+	}
+	
+	/**
+	 * Grava a peça com um update condicional, sem carregá-la: 404 se ela não
+	 * existe ou é de outro usuário, 409 se mudou desde a versão enviada em
+	 * {@code versao} (ou desde a leitura feita aqui, sem ela).
+	 */
+	@PutMapping("{id}")
+	public ResponseEntity<?> atualizar( @PathVariable("id") Long id, @RequestBody PecasDTO dto ) {
+		try {
+			return service.atualizar(id, converterCampos(dto), dto.getVersao())
+					.<ResponseEntity<?>>map( situacao -> ResponseEntity.ok(converter(situacao)) )
+					.orElseGet( () -> new ResponseEntity<>(ConstantesUtils.PECA_NAO_ENCONTRADA, HttpStatus.NOT_FOUND) );
+		}catch (RegraNegocioException e) {
+			return ResponseEntity.badRequest().body(e.getMessage());
+		}catch (ConflitoException e) {
+			return new ResponseEntity<>(e.getMessage(), HttpStatus.CONFLICT);
+		}
 	}
 	
 	@PutMapping("{id}/atualiza-status")
 	public ResponseEntity<?> atualizarStatus( @PathVariable("id") Long id , @RequestBody AtualizaStatusDTO dto ) {
-		return service.obterPorId(id).map( entity -> {
-			StatusPagamento statusSelecionado = StatusPagamento.valueOf(dto.getStatus());
-			
-			if(statusSelecionado == null) {
-				return ResponseEntity.badRequest().body(ConstantesUtils.ATUALIZAR_STATUS_PECA);
-			}
-			
-			try {
-				entity.setStatus(statusSelecionado);
-				service.atualizar(entity);
-				return ResponseEntity.ok(entity);
-			}catch (RegraNegocioException e) {
-				return ResponseEntity.badRequest().body(e.getMessage());
+		StatusPagamento statusSelecionado = StatusPagamento.valueOf(dto.getStatus());
+		
+		if(statusSelecionado == null) {
+			return ResponseEntity.badRequest().body(ConstantesUtils.ATUALIZAR_STATUS_PECA);
+		}
+		
+		try {
+			return service.atualizarStatus(id, statusSelecionado, dto.getVersao())
+					.<ResponseEntity<?>>map( situacao -> ResponseEntity.ok(converter(situacao)) )
+					.orElseGet( () -> new ResponseEntity<>(ConstantesUtils.PECA_NAO_ENCONTRADA, HttpStatus.NOT_FOUND) );
+		}catch (ConflitoException e) {
+			return new ResponseEntity<>(e.getMessage(), HttpStatus.CONFLICT);
+		}
+	}
+	
+	@PutMapping("/lote/atualiza-status")
+	public ResponseEntity<?> atualizarStatusLote( @RequestBody AtualizaStatusLoteDTO dto ) {
+		StatusPagamento status;
+		Pecas filtro = new Pecas();
+		try {
+			status = StatusPagamento.valueOf(dto.getStatus());
+			if(dto.getStatusAtual() != null) {
+				filtro.setStatus(StatusPagamento.valueOf(dto.getStatusAtual()));
 			}
+		}catch (IllegalArgumentException | NullPointerException e) {
+			return ResponseEntity.badRequest().body(ConstantesUtils.ATUALIZAR_STATUS_PECA);
+		}
+		
+		filtro.setMes(dto.getMes());
+		filtro.setAno(dto.getAno());
+		if(dto.getUsuario() != null) {
+			filtro.setUsuario(Usuario.builder().id(dto.getUsuario()).build());
+		}
 		
-		}).orElseGet( () ->
-		new ResponseEntity<>(ConstantesUtils.PECA_NAO_ENCONTRADA, HttpStatus.BAD_REQUEST) );
+		try {
+			int atualizadas = service.atualizarStatus(dto.getIds(), filtro, status);
+			return ResponseEntity.ok(atualizadas);
+		}catch (RegraNegocioException e) {
+			return ResponseEntity.badRequest().body(e.getMessage());
+		}catch (ConflitoException e) {
+			return new ResponseEntity<>(e.getMessage(), HttpStatus.CONFLICT);
+		}
 	}
 	
 	@DeleteMapping("{id}")
-	public ResponseEntity<?> deletar( @PathVariable("id") Long id ) {
-		return service.obterPorId(id).map( entidade -> {
-			service.deletar(entidade);
-			return new ResponseEntity<>( HttpStatus.NO_CONTENT );
-		}).orElseGet( () -> 
-			new ResponseEntity<>(ConstantesUtils.PECA_NAO_ENCONTRADA, HttpStatus.BAD_REQUEST) );
+	public ResponseEntity<?> deletar( @PathVariable("id") Long id, @RequestParam(value = "versao", required = false) Long versao ) {
+		try {
+			return service.deletar(id, versao)
+					.<ResponseEntity<?>>map( situacao -> new ResponseEntity<>( HttpStatus.NO_CONTENT ) )
+					.orElseGet( () -> new ResponseEntity<>(ConstantesUtils.PECA_NAO_ENCONTRADA, HttpStatus.NOT_FOUND) );
+		}catch (ConflitoException e) {
+			return new ResponseEntity<>(e.getMessage(), HttpStatus.CONFLICT);
+		}
 	}
 	
-	private PecasDTO converter(Pecas pecas) {
+	/**
+	 * Informa o cursor da próxima página em X-Proximo-Cursor quando pode haver
+	 * mais registros, isto é, quando a página veio cheia; basta repetir a
+	 * consulta com {@code after} igual a ele. O tamanho é o que o serviço usou,
+	 * não o limite pedido, que pode estar acima do máximo ou ausente.
+	 */
+	static HttpHeaders cabecalhoProximaPagina(List<PecasDTO> pecas, int tamanhoPagina) {
+		HttpHeaders headers = new HttpHeaders();
+		if(!pecas.isEmpty() && pecas.size() >= tamanhoPagina) {
+			headers.set(CABECALHO_PROXIMO_CURSOR, String.valueOf(pecas.get(pecas.size() - 1).getId()));
+		}
+		return headers;
+	}
+	
+	static PecasDTO converter(Pecas pecas) {
 		return PecasDTO.builder()
 					.id(pecas.getId())
 					.descricao(pecas.getDescricao())
@@ -133,11 +300,29 @@ public class PecasResource {
 					.status(pecas.getStatus().name())
 					.tipo(pecas.getTipo().name())
 					.usuario(pecas.getUsuario().getId())
+					.versao(pecas.getVersao())
 					.build();
 					
 	}
 	
+	static PecasDTO converter(SituacaoPeca situacao) {
+		return new PecasDTO(situacao.getId(), situacao.getDescricao(), situacao.getMes(), situacao.getAno(),
+				situacao.getValor(), situacao.getIdUsuario(), situacao.getTipo(), situacao.getStatus(), situacao.getVersao());
+	}
+	
 	private Pecas converter(PecasDTO dto) {
+		Pecas pecas = converterCampos(dto);
+		
+		Usuario usuario = usuarioService
+			.obterPorId(dto.getUsuario())
+			.orElseThrow( () -> new RegraNegocioException(ConstantesUtils.USUARIO_NAO_ENCONTRADO_ID) );
+		
+		pecas.setUsuario(usuario);
+		return pecas;
+	}
+	
+	/** Converte sem consultar o usuário, que fica só com o id informado. */
+	static Pecas converterCampos(PecasDTO dto) {
 		Pecas pecas = new Pecas();
 		pecas.setId(dto.getId());
 		pecas.setDescricao(dto.getDescricao());
@@ -145,11 +330,9 @@ public class PecasResource {
 		pecas.setMes(dto.getMes());
 		pecas.setValor(dto.getValor());
 		
-		Usuario usuario = usuarioService
-			.obterPorId(dto.getUsuario())
-			.orElseThrow( () -> new RegraNegocioException(ConstantesUtils.USUARIO_NAO_ENCONTRADO_ID) );
-		
-		pecas.setUsuario(usuario);
+		if(dto.getUsuario() != null) {
+			pecas.setUsuario(Usuario.builder().id(dto.getUsuario()).build());
+		}
 
 		if(dto.getTipo() != null) {
 			pecas.setTipo(TipoPagamento.valueOf(dto.getTipo()));
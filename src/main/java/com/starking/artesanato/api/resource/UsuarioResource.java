@@ -1,21 +1,34 @@
 package com.starking.artesanato.api.resource;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 
 import com.starking.artesanato.api.dto.TokenDTO;
 import com.starking.artesanato.api.dto.UsuarioDTO;
 import com.starking.artesanato.exception.ErroAutenticacao;
 import com.starking.artesanato.exception.RegraNegocioException;
+import com.starking.artesanato.exception.ServicoSobrecarregadoException;
 import com.starking.artesanato.model.entity.Usuario;
 import com.starking.artesanato.service.JwtService;
 import com.starking.artesanato.service.PecaService;
@@ -31,17 +44,34 @@ public class UsuarioResource {
 	private final UsuarioService service;
 	private final PecaService pecaService;
 	private final JwtService jwtService;
+	private final ObjectMapper objectMapper;
 	
+	/**
+	 * A senha é comparada no executor do BCrypt e a thread do Tomcat é liberada
+	 * enquanto isso. Com a fila do executor cheia, responde 503.
+	 */
 	@PostMapping("/autenticar")
-	public ResponseEntity<?> autenticar( @RequestBody UsuarioDTO dto ) {
+	public CompletableFuture<ResponseEntity<?>> autenticar( @RequestBody UsuarioDTO dto ) {
+		CompletableFuture<Usuario> autenticacao;
 		try {
-			Usuario usuarioAutenticado = service.autenticar(dto.getEmail(), dto.getSenha());
+			autenticacao = service.autenticarAssincrono(dto.getEmail(), dto.getSenha());
+		}catch (ErroAutenticacao e) {
+			return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(e.getMessage()));
+		}catch (ServicoSobrecarregadoException e) {
+			return CompletableFuture.completedFuture(sobrecarregado(e));
+		}
+		
+		return autenticacao.<ResponseEntity<?>>thenApply(usuarioAutenticado -> {
 			String token = jwtService.gerarToken(usuarioAutenticado);
 			TokenDTO tokenDTO = new TokenDTO( usuarioAutenticado.getNome(), token);
 			return ResponseEntity.ok(tokenDTO);
-		}catch (ErroAutenticacao e) {
-			return ResponseEntity.badRequest().body(e.getMessage());
-		}
+		}).exceptionally(e -> {
+			Throwable causa = e instanceof CompletionException ? e.getCause() : e;
+			if(causa instanceof ErroAutenticacao) {
+				return ResponseEntity.badRequest().body(causa.getMessage());
+			}
+			throw e instanceof CompletionException ? (CompletionException) e : new CompletionException(e);
+		});
 	}
 	
 	@PostMapping()
@@ -59,10 +89,18 @@ public class UsuarioResource {
 			return new ResponseEntity<>(usuarioSalvo, HttpStatus.CREATED);
 		}catch (RegraNegocioException e) {
 			return ResponseEntity.badRequest().body(e.getMessage());
+		}catch (ServicoSobrecarregadoException e) {
+			return sobrecarregado(e);
 		}
 		
 	}
 	
+	private static ResponseEntity<?> sobrecarregado(ServicoSobrecarregadoException e) {
+		return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+				.header(HttpHeaders.RETRY_AFTER, "1")
+				.body(e.getMessage());
+	}
+	
 	@GetMapping("/{id}/saldo")
 	public ResponseEntity<?>obterSaldo( @PathVariable("id") Long id ) {
 		Optional<Usuario> usuario = service.obterPorId(id);
@@ -74,5 +112,52 @@ public class UsuarioResource {
 		BigDecimal saldo = pecaService.obterSaldoPorUsuario(id);
 		return ResponseEntity.ok(saldo);
 	}
+	
+	/**
+	 * Série mensal do ano, acumulado do ano até {@code mesAte} e saldo ao fim
+	 * de cada mês, a partir dos resumos mensais das peças.
+	 */
+	@GetMapping("/{id}/relatorio")
+	public ResponseEntity<?>obterRelatorio( @PathVariable("id") Long id,
+			@RequestParam("ano") Integer ano,
+			@RequestParam(value = "mesAte", required = false) Integer mesAte ) {
+		Optional<Usuario> usuario = service.obterPorId(id);
+		
+		if(!usuario.isPresent()) {
+			return new ResponseEntity<>( HttpStatus.NOT_FOUND );
+		}
+		
+		try {
+			return ResponseEntity.ok(pecaService.obterRelatorio(id, ano, mesAte));
+		}catch (RegraNegocioException e) {
+			return ResponseEntity.badRequest().body(e.getMessage());
+		}
+	}
+	
+	/**
+	 * Saldos de vários usuários de uma vez, no formato
+	 * {@code [{"usuario":1,"saldo":10.00}, ...]}. A resposta é escrita conforme
+	 * cada lote de ids é consultado, sem montar a lista inteira em memória.
+	 */
+	@PostMapping("/saldos")
+	public ResponseEntity<StreamingResponseBody> obterSaldos( @RequestBody List<Long> ids ) {
+		StreamingResponseBody corpo = saida -> {
+			try (JsonGenerator json = objectMapper.getFactory().createGenerator(saida)) {
+				json.writeStartArray();
+				pecaService.obterSaldosPorUsuarios(ids, (idUsuario, saldo) -> {
+					try {
+						json.writeStartObject();
+						json.writeNumberField("usuario", idUsuario);
+						json.writeNumberField("saldo", saldo);
+						json.writeEndObject();
+					} catch (IOException e) {
+						throw new UncheckedIOException(e);
+					}
+				});
+				json.writeEndArray();
+			}
+		};
+		return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(corpo);
+	}
 
 }
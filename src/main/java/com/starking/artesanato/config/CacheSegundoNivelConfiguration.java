@@ -0,0 +1,147 @@
+package com.starking.artesanato.config;
+
+import java.net.URI;
+import java.util.OptionalLong;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.cache.spi.CachingProvider;
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.SessionFactory;
+
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.spi.RegionFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Cache de segundo nível do Hibernate em memória local (Caffeine via JCache).
+ * Cada região é criada aqui, com tamanho máximo e expiração de
+ * {@code cache.segundo-nivel.<regiao>.*}; uma região usada numa entidade ou
+ * consulta e não criada aqui impede a aplicação de subir.
+ * <ul>
+ * <li>usuario: {@link com.starking.artesanato.model.entity.Usuario}, lido em
+ * quase toda requisição e raramente alterado;</li>
+ * <li>saldos: consulta do saldo agregado no {@code PecasRepository}.</li>
+ * </ul>
+ * Gravações pelo Hibernate, inclusive updates em massa por JPQL, atualizam ou
+ * invalidam as regiões. Escritas por fora dele (o COPY da importação) precisam
+ * despejar as regiões afetadas. Acertos e faltas por região aparecem em
+ * /actuator/metrics/cache.segundo.nivel.requisicoes.
+ */
+@Configuration
+@ConditionalOnProperty(name = "cache.segundo-nivel.habilitado", havingValue = "true", matchIfMissing = true)
+public class CacheSegundoNivelConfiguration {
+
+	private static final String[] REGIOES_ENTIDADES = { "usuario" };
+	private static final String[] REGIOES_CONSULTAS = { "saldos" };
+
+	@Bean
+	public CacheManager cacheManagerSegundoNivel(Environment environment) {
+		// um gerenciador por contexto, para que dois contextos na mesma JVM (testes) não disputem as regiões
+		CachingProvider provider = Caching.getCachingProvider(CaffeineCachingProvider.class.getName());
+		CacheManager cacheManager = provider.getCacheManager(
+				URI.create("artesanato:segundo-nivel:" + UUID.randomUUID()), provider.getDefaultClassLoader());
+
+		for (String regiao : REGIOES_ENTIDADES) {
+			criar(cacheManager, environment, regiao);
+		}
+		for (String regiao : REGIOES_CONSULTAS) {
+			criar(cacheManager, environment, regiao);
+		}
+
+		// consultas marcadas como cacheáveis sem região própria
+		criar(cacheManager, RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME, 1000L, 300L);
+
+		// última gravação de cada tabela, para saber se um resultado em cache
+		// ainda vale; não pode ser despejada nem expirar antes dos resultados
+		CaffeineConfiguration<Object, Object> timestamps = new CaffeineConfiguration<>();
+		timestamps.setStatisticsEnabled(true);
+		cacheManager.createCache(RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME, timestamps);
+
+		return cacheManager;
+	}
+
+	@Bean
+	public HibernatePropertiesCustomizer cacheSegundoNivel(CacheManager cacheManagerSegundoNivel) {
+		return propriedades -> {
+			propriedades.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, true);
+			propriedades.put(AvailableSettings.USE_QUERY_CACHE, true);
+			propriedades.put(AvailableSettings.CACHE_REGION_FACTORY, "jcache");
+			propriedades.put(ConfigSettings.CACHE_MANAGER, cacheManagerSegundoNivel);
+			propriedades.put(ConfigSettings.MISSING_CACHE_STRATEGY, "fail");
+			// alimenta as métricas por região abaixo e as globais do HibernateMetrics
+			propriedades.put(AvailableSettings.GENERATE_STATISTICS, true);
+		};
+	}
+
+	/**
+	 * Acertos, faltas e inserções de cada região, em
+	 * {@code cache.segundo.nivel.requisicoes{regiao,resultado}} e
+	 * {@code cache.segundo.nivel.insercoes{regiao}}. As estatísticas do
+	 * Hibernate só trazem os totais de todas as regiões somadas.
+	 */
+	@Bean
+	public MeterBinder metricasCacheSegundoNivel(EntityManagerFactory entityManagerFactory) {
+		Statistics estatisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		return registry -> {
+			for (String regiao : REGIOES_ENTIDADES) {
+				registrar(registry, estatisticas, regiao, e -> e.getDomainDataRegionStatistics(regiao));
+			}
+			// a região de uma consulta só existe no Hibernate depois da primeira execução dela
+			for (String regiao : REGIOES_CONSULTAS) {
+				registrar(registry, estatisticas, regiao, e -> e.getQueryRegionStatistics(regiao));
+			}
+		};
+	}
+
+	// o contador guarda só referência fraca ao objeto observado: usa as estatísticas, mantidas pela SessionFactory
+	private static void registrar(MeterRegistry registry, Statistics estatisticas, String regiao,
+			Function<Statistics, CacheRegionStatistics> porRegiao) {
+		FunctionCounter.builder("cache.segundo.nivel.requisicoes", estatisticas, e -> contar(porRegiao.apply(e), CacheRegionStatistics::getHitCount))
+				.tags("regiao", regiao, "resultado", "acerto")
+				.register(registry);
+		FunctionCounter.builder("cache.segundo.nivel.requisicoes", estatisticas, e -> contar(porRegiao.apply(e), CacheRegionStatistics::getMissCount))
+				.tags("regiao", regiao, "resultado", "falta")
+				.register(registry);
+		FunctionCounter.builder("cache.segundo.nivel.insercoes", estatisticas, e -> contar(porRegiao.apply(e), CacheRegionStatistics::getPutCount))
+				.tags("regiao", regiao)
+				.register(registry);
+	}
+
+	private static double contar(CacheRegionStatistics regiao, ToLongFunction<CacheRegionStatistics> contador) {
+		return regiao == null ? 0 : contador.applyAsLong(regiao);
+	}
+
+	private static void criar(CacheManager cacheManager, Environment environment, String regiao) {
+		criar(cacheManager, regiao,
+				environment.getProperty("cache.segundo-nivel." + regiao + ".tamanho-maximo", Long.class, 10000L),
+				environment.getProperty("cache.segundo-nivel." + regiao + ".ttl-segundos", Long.class, 300L));
+	}
+
+	private static void criar(CacheManager cacheManager, String regiao, long tamanhoMaximo, long ttlSegundos) {
+		CaffeineConfiguration<Object, Object> configuracao = new CaffeineConfiguration<>();
+		configuracao.setMaximumSize(OptionalLong.of(tamanhoMaximo));
+		configuracao.setExpireAfterWrite(OptionalLong.of(TimeUnit.SECONDS.toNanos(ttlSegundos)));
+		configuracao.setStatisticsEnabled(true);
+		cacheManager.createCache(regiao, configuracao);
+	}
+}
@@ -0,0 +1,46 @@
+package com.starking.artesanato.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+/**
+ * Escolhe a força do BCrypt pelo hardware em que a aplicação sobe: a maior
+ * entre a mínima e a máxima cujo hash leva até o tempo alvo. Cada ponto de
+ * força dobra o tempo, então a medição para no primeiro que passa do alvo.
+ * A força mínima vale mesmo que já passe do alvo.
+ */
+final class CalibracaoBCrypt {
+
+	private static final Logger log = LoggerFactory.getLogger(CalibracaoBCrypt.class);
+
+	private static final String SENHA_TESTE = "calibracao-bcrypt";
+
+	private CalibracaoBCrypt() {
+	}
+
+	static int calibrar(long tempoAlvoMs, int forcaMinima, int forcaMaxima) {
+		// aquece o JIT para a primeira medição não sair inflada
+		new BCryptPasswordEncoder(4).encode(SENHA_TESTE);
+
+		int forca = forcaMinima;
+		long tempoMs = medir(forca);
+		while (forca < forcaMaxima && tempoMs * 2 <= tempoAlvoMs) {
+			tempoMs = medir(forca + 1);
+			if (tempoMs > tempoAlvoMs) {
+				break;
+			}
+			forca++;
+		}
+
+		log.info("Força do BCrypt calibrada em {} para o alvo de {} ms.", forca, tempoAlvoMs);
+		return forca;
+	}
+
+	private static long medir(int forca) {
+		BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(forca);
+		long inicio = System.nanoTime();
+		encoder.encode(SENHA_TESTE);
+		return (System.nanoTime() - inicio) / 1000000;
+	}
+}
@@ -0,0 +1,33 @@
+package com.starking.artesanato.config;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Métricas de domínio expostas em /actuator/metrics. Os percentis e os
+ * histogramas de cada métrica são ligados no application.properties, em
+ * management.metrics.distribution.
+ */
+@Configuration
+public class MetricasConfiguration {
+
+	/** Faz valer o {@code @Timed} dos serviços. */
+	@Bean
+	public TimedAspect timedAspect(MeterRegistry meterRegistry) {
+		return new TimedAspect(meterRegistry);
+	}
+
+	/**
+	 * Estático porque é um BeanPostProcessor: o registro só é resolvido na
+	 * primeira consulta, para não ser criado antes de receber as configurações
+	 * do Spring Boot.
+	 */
+	@Bean
+	public static MetricasRepositorios metricasRepositorios(ObjectProvider<MeterRegistry> meterRegistry) {
+		return new MetricasRepositorios(meterRegistry);
+	}
+}
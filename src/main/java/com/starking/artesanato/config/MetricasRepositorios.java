@@ -0,0 +1,103 @@
+package com.starking.artesanato.config;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.framework.Advised;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.data.repository.Repository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Mede cada chamada aos repositórios do Spring Data no timer
+ * {@code repositorio.consultas}, com as tags {@code repositorio} e
+ * {@code metodo}; as que terminam em exceção também contam em
+ * {@code repositorio.consultas.falhas}. O interceptador entra na frente da
+ * cadeia do proxy, então o tempo inclui a transação do próprio repositório.
+ * Nos métodos que devolvem Stream, mede-se só até a consulta ser aberta.
+ */
+public class MetricasRepositorios implements BeanPostProcessor {
+
+	private final ObjectProvider<MeterRegistry> meterRegistry;
+
+	public MetricasRepositorios(ObjectProvider<MeterRegistry> meterRegistry) {
+		this.meterRegistry = meterRegistry;
+	}
+
+	@Override
+	public Object postProcessAfterInitialization(Object bean, String beanName) {
+		if (bean instanceof Repository && bean instanceof Advised) {
+			Class<?> repositorio = interfaceRepositorio((Advised) bean);
+			if (repositorio != null) {
+				((Advised) bean).addAdvice(0, new Medicao(repositorio.getSimpleName()));
+			}
+		}
+		return bean;
+	}
+
+	private static Class<?> interfaceRepositorio(Advised proxy) {
+		for (Class<?> interfaceProxy : proxy.getProxiedInterfaces()) {
+			if (Repository.class.isAssignableFrom(interfaceProxy) && interfaceProxy != Repository.class) {
+				return interfaceProxy;
+			}
+		}
+		return null;
+	}
+
+	private static class Medidores {
+
+		final Timer tempo;
+		final Counter falhas;
+
+		Medidores(MeterRegistry registry, String repositorio, String metodo) {
+			this.tempo = Timer.builder("repositorio.consultas")
+					.description("Tempo das chamadas aos repositórios")
+					.tag("repositorio", repositorio)
+					.tag("metodo", metodo)
+					.register(registry);
+			this.falhas = Counter.builder("repositorio.consultas.falhas")
+					.description("Chamadas aos repositórios que terminaram em exceção")
+					.tag("repositorio", repositorio)
+					.tag("metodo", metodo)
+					.register(registry);
+		}
+	}
+
+	private class Medicao implements MethodInterceptor {
+
+		private final String repositorio;
+		private final Map<Method, Medidores> medidores = new ConcurrentHashMap<>();
+
+		Medicao(String repositorio) {
+			this.repositorio = repositorio;
+		}
+
+		@Override
+		public Object invoke(MethodInvocation invocacao) throws Throwable {
+			Method metodo = invocacao.getMethod();
+			if (metodo.getDeclaringClass() == Object.class) {
+				return invocacao.proceed();
+			}
+
+			Medidores medidor = medidores.computeIfAbsent(metodo,
+					m -> new Medidores(meterRegistry.getObject(), repositorio, m.getName()));
+			long inicio = System.nanoTime();
+			try {
+				return invocacao.proceed();
+			} catch (Throwable e) {
+				medidor.falhas.increment();
+				throw e;
+			} finally {
+				medidor.tempo.record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+			}
+		}
+	}
+}
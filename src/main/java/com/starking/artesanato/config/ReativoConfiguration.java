@@ -0,0 +1,151 @@
+package com.starking.artesanato.config;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.boot.web.server.WebServer;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.r2dbc.core.DatabaseClient;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.http.server.reactive.HttpHandler;
+import org.springframework.util.MimeType;
+import org.springframework.web.reactive.function.server.HandlerStrategies;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.starking.artesanato.api.FiltroJwtReativo;
+import com.starking.artesanato.api.resource.PecasReativoHandler;
+import com.starking.artesanato.model.repository.PecasRepositoryReativo;
+import com.starking.artesanato.service.JwtService;
+import com.starking.artesanato.service.PecaReativaService;
+import com.starking.artesanato.service.impl.PecaReativaServiceImpl;
+import com.starking.artesanato.service.impl.RevogacaoTokenService;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+
+/**
+ * API de leitura reativa ({@code reativo.habilitado=true}): listagem de
+ * peças, peça por id e saldo, servidos pelo Reactor Netty numa porta própria
+ * ({@code reativo.porta}) e lidos do banco pelo R2DBC. O Tomcat e o JPA
+ * continuam atendendo a API completa na porta da aplicação.
+ * <p>
+ * Nenhuma thread fica parada esperando o banco ou o cliente: um event loop
+ * por processador atende todas as conexões, e as linhas são lidas conforme o
+ * cliente consome a resposta. O pool do R2DBC
+ * ({@code reativo.r2dbc.pool.tamanho-maximo}) é separado do Hikari.
+ */
+@Configuration
+@ConditionalOnProperty(name = "reativo.habilitado", havingValue = "true")
+public class ReativoConfiguration {
+
+	@Value("${reativo.r2dbc.url}")
+	private String url;
+
+	@Value("${reativo.r2dbc.usuario:}")
+	private String usuario;
+
+	@Value("${reativo.r2dbc.senha:}")
+	private String senha;
+
+	@Value("${reativo.r2dbc.pool.tamanho-inicial:2}")
+	private int tamanhoInicialPool;
+
+	@Value("${reativo.r2dbc.pool.tamanho-maximo:10}")
+	private int tamanhoMaximoPool;
+
+	@Value("${reativo.porta:8081}")
+	private int porta;
+
+	@Bean(destroyMethod = "dispose")
+	public ConnectionPool connectionFactoryReativa() {
+		ConnectionFactoryOptions.Builder opcoes = ConnectionFactoryOptions.parse(url).mutate();
+		if(!usuario.isEmpty()) {
+			opcoes.option(ConnectionFactoryOptions.USER, usuario);
+			opcoes.option(ConnectionFactoryOptions.PASSWORD, senha);
+		}
+
+		return new ConnectionPool(ConnectionPoolConfiguration.builder(ConnectionFactories.get(opcoes.build()))
+				.name("reativo")
+				.initialSize(tamanhoInicialPool)
+				.maxSize(tamanhoMaximoPool)
+				.maxIdleTime(Duration.ofMinutes(10))
+				.build());
+	}
+
+	@Bean
+	public PecaReativaService pecaReativaService(
+			ConnectionPool connectionFactoryReativa,
+			@Value("${pecas.paginacao.limite-padrao:100}") int limitePadrao,
+			@Value("${pecas.paginacao.limite-maximo:1000}") int limiteMaximo) {
+		PecasRepositoryReativo repository = new PecasRepositoryReativo(DatabaseClient.create(connectionFactoryReativa));
+		return new PecaReativaServiceImpl(repository, limitePadrao, limiteMaximo);
+	}
+
+	@Bean
+	public ServidorReativo servidorReativo(
+			PecaReativaService pecaReativaService,
+			JwtService jwtService,
+			RevogacaoTokenService revogacaoService,
+			MeterRegistry meterRegistry,
+			ObjectMapper objectMapper) {
+		FiltroJwtReativo autenticacao = new FiltroJwtReativo(jwtService, revogacaoService, meterRegistry);
+
+		// mesmo ObjectMapper do Spring MVC; stream+json e x-ndjson são escritos elemento a elemento
+		Jackson2JsonEncoder json = new Jackson2JsonEncoder(objectMapper,
+				MediaType.APPLICATION_JSON, new MimeType("application", "*+json"), PecasReativoHandler.APPLICATION_NDJSON);
+		json.setStreamingMediaTypes(Arrays.asList(MediaType.APPLICATION_STREAM_JSON, PecasReativoHandler.APPLICATION_NDJSON));
+
+		HttpHandler httpHandler = RouterFunctions.toHttpHandler(
+				new PecasReativoHandler(pecaReativaService).rotas(autenticacao),
+				HandlerStrategies.builder().codecs(codecs -> codecs.defaultCodecs().jackson2JsonEncoder(json)).build());
+
+		return new ServidorReativo(new NettyReactiveWebServerFactory(porta).getWebServer(httpHandler));
+	}
+
+	/** Abre a porta reativa depois que o contexto sobe e fecha antes dos beans serem destruídos. */
+	public static class ServidorReativo implements SmartLifecycle {
+
+		private static final Logger log = LoggerFactory.getLogger(ServidorReativo.class);
+
+		private final WebServer webServer;
+		private volatile boolean executando;
+
+		ServidorReativo(WebServer webServer) {
+			this.webServer = webServer;
+		}
+
+		@Override
+		public void start() {
+			webServer.start();
+			executando = true;
+			log.info("API reativa atendendo na porta {}.", webServer.getPort());
+		}
+
+		@Override
+		public void stop() {
+			executando = false;
+			webServer.stop();
+		}
+
+		@Override
+		public boolean isRunning() {
+			return executando;
+		}
+
+		public int getPorta() {
+			return webServer.getPort();
+		}
+	}
+}
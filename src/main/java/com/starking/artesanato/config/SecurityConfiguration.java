@@ -4,6 +4,7 @@ import java.util.Arrays;
 import java.util.List;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.core.Ordered;
@@ -23,8 +24,11 @@ import org.springframework.web.filter.CorsFilter;
 
 import com.starking.artesanato.api.JwtTokenFilter;
 import com.starking.artesanato.service.JwtService;
+import com.starking.artesanato.service.impl.RevogacaoTokenService;
 import com.starking.artesanato.service.impl.SecurityUserDetailsService;
 
+import io.micrometer.core.instrument.MeterRegistry;
+
 @EnableWebSecurity
 public class SecurityConfiguration extends WebSecurityConfigurerAdapter {
 	
@@ -32,16 +36,38 @@ public class SecurityConfiguration extends WebSecurityConfigurerAdapter {
 	private SecurityUserDetailsService userDetailsService;
 	@Autowired
 	private JwtService jwtService;
+	@Autowired
+	private RevogacaoTokenService revogacaoService;
+	@Autowired
+	private MeterRegistry meterRegistry;
+	
+	@Value("${jwt.principal-stateless:false}")
+	private boolean principalStateless;
+	
+	/** Força fixa do BCrypt; com 0, é calibrada na subida pelo tempo alvo. */
+	@Value("${senhas.bcrypt.forca:0}")
+	private int forcaBCrypt;
+	
+	@Value("${senhas.bcrypt.tempo-alvo-ms:250}")
+	private long tempoAlvoBCrypt;
+	
+	@Value("${senhas.bcrypt.forca-minima:10}")
+	private int forcaMinimaBCrypt;
+	
+	@Value("${senhas.bcrypt.forca-maxima:14}")
+	private int forcaMaximaBCrypt;
 	
 	@Bean
 	public PasswordEncoder passwordEncoder() {
-		PasswordEncoder encoder = new BCryptPasswordEncoder();
+		int forca = forcaBCrypt > 0 ? forcaBCrypt
+				: CalibracaoBCrypt.calibrar(tempoAlvoBCrypt, forcaMinimaBCrypt, forcaMaximaBCrypt);
+		PasswordEncoder encoder = new BCryptPasswordEncoder(forca);
 		return encoder;
 	}
 	
 	@Bean
 	public JwtTokenFilter jwtTokenFilter() {
-		return new JwtTokenFilter(jwtService, userDetailsService);
+		return new JwtTokenFilter(jwtService, userDetailsService, revogacaoService, principalStateless, meterRegistry);
 	}
 
 	@Override
@@ -0,0 +1,104 @@
+package com.starking.artesanato.config;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import javax.annotation.PreDestroy;
+
+import org.apache.coyote.ProtocolHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Condition;
+import org.springframework.context.annotation.ConditionContext;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.core.type.AnnotatedTypeMetadata;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Modo opcional ({@code servidor.threads-virtuais=true}) em que cada
+ * requisição do Tomcat e cada tarefa assíncrona (respostas em streaming do
+ * Spring MVC e o {@code applicationTaskExecutor}) roda numa thread virtual
+ * própria. Sem o teto de threads do Tomcat, quem limita a concorrência no
+ * banco é o pool do Hikari: as requisições além de
+ * {@code spring.datasource.hikari.maximum-pool-size} esperam uma conexão por
+ * até {@code connection-timeout}.
+ * <p>
+ * Threads virtuais exigem Java 21 em tempo de execução; o projeto compila
+ * para Java 8, então a API é obtida por reflexão. Numa JVM sem ela, a
+ * aplicação avisa no log e segue com o pool de threads do Tomcat. Até o Java
+ * 23, uma thread virtual bloqueada em I/O dentro de {@code synchronized}
+ * (caso dos drivers do Postgres e do H2) prende a thread de plataforma que a
+ * carrega, o que reduz o ganho do modo. Por isso o pom.xml fixa o
+ * {@code tomcat.version}: o 9.0.29 do Spring Boot 2.2 processa cada socket
+ * dentro de um {@code synchronized} e prenderia a thread de plataforma
+ * durante a requisição inteira.
+ */
+@Configuration
+@ConditionalOnProperty(name = "servidor.threads-virtuais", havingValue = "true")
+@Conditional(ThreadsVirtuaisConfiguration.JvmComThreadsVirtuais.class)
+public class ThreadsVirtuaisConfiguration implements WebMvcConfigurer {
+
+	private static final Logger log = LoggerFactory.getLogger(ThreadsVirtuaisConfiguration.class);
+
+	private final ExecutorService executor = criarExecutor("virtual-");
+
+	@Bean
+	public TomcatProtocolHandlerCustomizer<ProtocolHandler> executorVirtualTomcat() {
+		return protocolHandler -> protocolHandler.setExecutor(executor);
+	}
+
+	/** Substitui o executor do Spring Boot para o {@code @Async} e afins. */
+	@Bean(name = { "applicationTaskExecutor", "taskExecutor" })
+	public AsyncTaskExecutor applicationTaskExecutor() {
+		return new TaskExecutorAdapter(executor);
+	}
+
+	@Override
+	public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+		configurer.setTaskExecutor(applicationTaskExecutor());
+	}
+
+	@PreDestroy
+	public void encerrar() {
+		executor.shutdown();
+	}
+
+	/** Um executor que abre uma thread virtual por tarefa, nomeada com o prefixo e um contador. */
+	static ExecutorService criarExecutor(String prefixo) {
+		try {
+			Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+			Class<?> tipoBuilder = Class.forName("java.lang.Thread$Builder");
+			builder = tipoBuilder.getMethod("name", String.class, long.class).invoke(builder, prefixo, 0L);
+			ThreadFactory fabrica = (ThreadFactory) tipoBuilder.getMethod("factory").invoke(builder);
+			Method porTarefa = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+			return (ExecutorService) porTarefa.invoke(null, fabrica);
+		} catch (ReflectiveOperationException e) {
+			throw new IllegalStateException("Não foi possível criar o executor de threads virtuais.", e);
+		}
+	}
+
+	/** Só ativa o modo se a JVM tiver threads virtuais; senão avisa e mantém o pool do Tomcat. */
+	static class JvmComThreadsVirtuais implements Condition {
+
+		@Override
+		public boolean matches(ConditionContext context, AnnotatedTypeMetadata metadata) {
+			try {
+				Thread.class.getMethod("ofVirtual");
+				return true;
+			} catch (NoSuchMethodException e) {
+				log.warn("Threads virtuais indisponíveis no Java {}; o Tomcat seguirá com o pool de threads.",
+						System.getProperty("java.version"));
+				return false;
+			}
+		}
+	}
+}
@@ -1,10 +1,16 @@
 package com.starking.artesanato.config;
 
+import java.util.List;
+
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
 import org.springframework.web.servlet.config.annotation.EnableWebMvc;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
+import com.starking.artesanato.api.FormatoCompacto;
+
 @EnableWebMvc
 @Configuration
 public class WebConfiguration implements WebMvcConfigurer {
@@ -13,4 +19,15 @@ public class WebConfiguration implements WebMvcConfigurer {
 	public void addCorsMappings( CorsRegistry registry ) {
 		registry.addMapping("/**").allowedMethods("GET", "POST", "PUT", "DELETE", "OPTIONS");
 	}
+	
+	/**
+	 * Troca o conversor CBOR padrão, que o Spring registra ao achar o
+	 * jackson-dataformat-cbor, pelo do {@link FormatoCompacto}. Fica depois do
+	 * JSON, que continua sendo a resposta de quem não pede application/cbor.
+	 */
+	@Override
+	public void extendMessageConverters( List<HttpMessageConverter<?>> converters ) {
+		converters.removeIf(converter -> converter instanceof MappingJackson2CborHttpMessageConverter);
+		converters.add(new MappingJackson2CborHttpMessageConverter(FormatoCompacto.criarMapper()));
+	}
 }
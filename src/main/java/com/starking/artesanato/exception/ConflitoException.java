@@ -0,0 +1,13 @@
+package com.starking.artesanato.exception;
+
+/**
+ * A operação esbarrou numa alteração concorrente dos mesmos registros e foi
+ * desfeita; o cliente pode repeti-la.
+ */
+public class ConflitoException extends RuntimeException {
+
+	public ConflitoException(String msg) {
+		super(msg);
+	}
+
+}
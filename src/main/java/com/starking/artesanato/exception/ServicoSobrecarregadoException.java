@@ -0,0 +1,13 @@
+package com.starking.artesanato.exception;
+
+/**
+ * O trabalho foi recusado porque a fila do recurso que o executaria está
+ * cheia; o cliente pode repetir a requisição mais tarde.
+ */
+public class ServicoSobrecarregadoException extends RuntimeException {
+
+	public ServicoSobrecarregadoException(String msg) {
+		super(msg);
+	}
+
+}
@@ -8,13 +8,17 @@ import javax.persistence.Convert;
 import javax.persistence.Entity;
 import javax.persistence.EnumType;
 import javax.persistence.Enumerated;
+import javax.persistence.FetchType;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
+import javax.persistence.SequenceGenerator;
 import javax.persistence.Table;
+import javax.persistence.Version;
 
+import org.hibernate.annotations.ColumnDefault;
 import org.springframework.data.jpa.convert.threeten.Jsr310JpaConverters;
 
 import com.starking.artesanato.model.enums.StatusPagamento;
@@ -33,8 +37,13 @@ import lombok.NoArgsConstructor;
 @AllArgsConstructor
 public class Pecas {
 
+	/**
+	 * Sequência com incremento 50 em vez de IDENTITY: o Hibernate reserva os
+	 * ids em memória e consegue agrupar os inserts em lotes JDBC.
+	 */
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "pecas_seq")
+	@SequenceGenerator(name = "pecas_seq", schema = "artesanato", sequenceName = "pecas_seq", allocationSize = 50)
 	@Column(name = "id")
 	private Long id;
 	
@@ -47,7 +56,11 @@ public class Pecas {
 	@Column(name = "ano")
 	private Integer ano;
 	
-	@ManyToOne
+	/**
+	 * Carregado só quando usado: as leituras da API trazem apenas o id do
+	 * usuário, e quem precisa dele inteiro pede no fetch da consulta.
+	 */
+	@ManyToOne(fetch = FetchType.LAZY)
 	@JoinColumn(name = "id_usuario")
 	private Usuario usuario;
 	
@@ -65,5 +78,14 @@ public class Pecas {
 	@Column(name = "status")
 	@Enumerated(value = EnumType.STRING)
 	private StatusPagamento status;
+	
+	/**
+	 * Incrementada a cada gravação, inclusive pelos updates diretos do
+	 * {@code PecasRepository}, que só alteram a linha na versão lida.
+	 */
+	@Version
+	@ColumnDefault("0")
+	@Column(name = "versao", nullable = false)
+	private Long versao;
 
 }
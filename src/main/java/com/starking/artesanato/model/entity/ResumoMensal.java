@@ -0,0 +1,44 @@
+package com.starking.artesanato.model.entity;
+
+import java.math.BigDecimal;
+
+import javax.persistence.Column;
+import javax.persistence.EmbeddedId;
+import javax.persistence.Entity;
+import javax.persistence.Table;
+
+import com.starking.artesanato.model.enums.StatusPagamento;
+import com.starking.artesanato.model.enums.TipoPagamento;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Quantidade e soma dos valores das peças de um usuário num mês, por tipo e
+ * status, mantidas a cada gravação de peça. Os relatórios leem daqui em vez
+ * de agrupar a tabela de peças.
+ */
+@Entity
+@Table(name = "resumo_mensal", schema = "artesanato")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ResumoMensal {
+
+	@EmbeddedId
+	private ChaveResumoMensal chave;
+	
+	@Column(name = "quantidade", nullable = false)
+	private Long quantidade;
+	
+	@Column(name = "total", nullable = false)
+	private BigDecimal total;
+	
+	/** Usado pelas consultas que agrupam as peças no mesmo formato. */
+	public ResumoMensal(Long idUsuario, Integer ano, Integer mes, TipoPagamento tipo, StatusPagamento status,
+			Long quantidade, BigDecimal total) {
+		this(new ChaveResumoMensal(idUsuario, ano, mes, tipo, status), quantidade, total);
+	}
+
+}
@@ -0,0 +1,34 @@
+package com.starking.artesanato.model.entity;
+
+import java.math.BigDecimal;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Saldo materializado de um usuário: créditos menos PIX das peças
+ * efetivadas, mantido a cada gravação de peça.
+ */
+@Entity
+@Table(name = "saldo_usuario", schema = "artesanato")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SaldoUsuario {
+
+	@Id
+	@Column(name = "id_usuario")
+	private Long idUsuario;
+	
+	@Column(name = "saldo", nullable = false)
+	private BigDecimal saldo;
+
+}
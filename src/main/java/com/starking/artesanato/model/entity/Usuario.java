@@ -3,6 +3,8 @@ package com.starking.artesanato.model.entity;
 import javax.persistence.*;
 import javax.validation.constraints.Email;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.validator.constraints.br.CPF;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
@@ -11,6 +13,8 @@ import lombok.*;
 
 @Entity
 @Table(name = "usuario", schema = "artesanato")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.NONSTRICT_READ_WRITE, region = "usuario")
 @Builder
 @Data
 @NoArgsConstructor
@@ -1,17 +1,61 @@
 package com.starking.artesanato.model.repository;
 
 import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import javax.persistence.QueryHint;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
+import com.starking.artesanato.api.dto.PecasDTO;
 import com.starking.artesanato.model.entity.Pecas;
+import com.starking.artesanato.model.entity.ResumoMensal;
 import com.starking.artesanato.model.enums.StatusPagamento;
 import com.starking.artesanato.model.enums.TipoPagamento;
+import com.starking.artesanato.service.evento.SituacaoPeca;
+
+public interface PecasRepository extends JpaRepository<Pecas, Long>, PecasRepositoryCustom {
+
+	/** Peças sem algum dos campos da chave do resumo mensal ficam fora dele. */
+	String CHAVE_RESUMO_PREENCHIDA = " and p.ano is not null and p.mes is not null and p.tipo is not null and p.status is not null ";
 
-public interface PecasRepository extends JpaRepository<Pecas, Long> {
+	/**
+	 * Carrega a peça junto com o usuário, num único select. Usado pelas
+	 * gravações, que validam e devolvem a peça com o usuário. É uma consulta,
+	 * e não um fetch graph, porque a peça vinda do cache de segundo nível
+	 * ignoraria o grafo e traria o usuário como proxy não inicializado.
+	 */
+	@Override
+	@Query( " select p from Pecas p left join fetch p.usuario where p.id = :id " )
+	Optional<Pecas> findById(@Param("id") Long id);
+	
+	/** Peça no formato da API, com o usuário reduzido ao id. */
+	@Query( " select new com.starking.artesanato.api.dto.PecasDTO("
+			+ " p.id, p.descricao, p.mes, p.ano, p.valor, p.usuario.id, p.tipo, p.status, p.versao) "
+			+ " from Pecas p where p.id = :id " )
+	Optional<PecasDTO> obterDTO(@Param("id") Long id);
+	
+	/** Peças dos ids informados no formato da API, em ordem de id. */
+	@Query( " select new com.starking.artesanato.api.dto.PecasDTO("
+			+ " p.id, p.descricao, p.mes, p.ano, p.valor, p.usuario.id, p.tipo, p.status, p.versao) "
+			+ " from Pecas p where p.id in :ids order by p.id " )
+	List<PecasDTO> obterDTOs(@Param("ids") Collection<Long> ids);
 
+	/**
+	 * Fica no cache de consultas, região "saldos", até a próxima gravação na
+	 * tabela de peças pelo Hibernate.
+	 */
+	@QueryHints({
+		@QueryHint(name = org.hibernate.annotations.QueryHints.CACHEABLE, value = "true"),
+		@QueryHint(name = org.hibernate.annotations.QueryHints.CACHE_REGION, value = "saldos")
+	})
 	@Query( value = 
 			  " select sum(l.valor) from Pecas l join l.usuario u "
 			+ " where u.id = :idUsuario and l.tipo =:tipo and l.status = :status group by u " )
@@ -20,4 +64,96 @@ public interface PecasRepository extends JpaRepository<Pecas, Long> {
 			@Param("tipo") TipoPagamento tipo,
 			@Param("status") StatusPagamento status);
 	
+	/** Créditos menos PIX das peças efetivadas do usuário, numa única passada. */
+	@Query( value = 
+			  " select sum(case when l.tipo = :credito then l.valor else -l.valor end) "
+			+ " from Pecas l join l.usuario u where u.id = :idUsuario and l.status = :status " )
+	BigDecimal obterSaldoEfetivado(
+			@Param("idUsuario") Long idUsuario,
+			@Param("credito") TipoPagamento credito,
+			@Param("status") StatusPagamento status);
+	
+	/** Linhas no formato [idUsuario, saldo] de todos os usuários com peças no status. */
+	@Query( value = 
+			  " select u.id, sum(case when l.tipo = :credito then l.valor else -l.valor end) "
+			+ " from Pecas l join l.usuario u where l.status = :status group by u.id " )
+	List<Object[]> obterSaldosEfetivados(
+			@Param("credito") TipoPagamento credito,
+			@Param("status") StatusPagamento status);
+	
+	/** Linhas no formato [idUsuario, saldo] dos usuários informados que têm peças no status. */
+	@Query( value = 
+			  " select u.id, sum(case when l.tipo = :credito then l.valor else -l.valor end) "
+			+ " from Pecas l join l.usuario u where u.id in :idsUsuarios and l.status = :status group by u.id " )
+	List<Object[]> obterSaldosEfetivadosPorUsuarios(
+			@Param("idsUsuarios") Collection<Long> idsUsuarios,
+			@Param("credito") TipoPagamento credito,
+			@Param("status") StatusPagamento status);
+	
+	/** Quantidade e soma das peças do usuário por ano, mês, tipo e status. */
+	@Query( " select new com.starking.artesanato.model.entity.ResumoMensal("
+			+ " p.usuario.id, p.ano, p.mes, p.tipo, p.status, count(p), coalesce(sum(p.valor), 0)) "
+			+ " from Pecas p where p.usuario.id = :idUsuario " + CHAVE_RESUMO_PREENCHIDA
+			+ " group by p.usuario.id, p.ano, p.mes, p.tipo, p.status " )
+	List<ResumoMensal> obterResumosMensais(@Param("idUsuario") Long idUsuario);
+	
+	/** Como {@link #obterResumosMensais(Long)}, para os usuários informados. */
+	@Query( " select new com.starking.artesanato.model.entity.ResumoMensal("
+			+ " p.usuario.id, p.ano, p.mes, p.tipo, p.status, count(p), coalesce(sum(p.valor), 0)) "
+			+ " from Pecas p where p.usuario.id in :idsUsuarios " + CHAVE_RESUMO_PREENCHIDA
+			+ " group by p.usuario.id, p.ano, p.mes, p.tipo, p.status " )
+	List<ResumoMensal> obterResumosMensaisPorUsuarios(@Param("idsUsuarios") Collection<Long> idsUsuarios);
+	
+	/**
+	 * Situação da peça como está gravada no banco. O flush fica desligado para
+	 * que alterações pendentes na entidade gerenciada não apareçam no resultado.
+	 */
+	@QueryHints(@QueryHint(name = org.hibernate.annotations.QueryHints.FLUSH_MODE, value = "COMMIT"))
+	@Query( " select new com.starking.artesanato.service.evento.SituacaoPeca("
+			+ " p.id, p.usuario.id, p.descricao, p.mes, p.ano, p.valor, p.tipo, p.status, p.versao) "
+			+ " from Pecas p where p.id = :id " )
+	Optional<SituacaoPeca> obterSituacao(@Param("id") Long id);
+	
+	/** Situação gravada das peças informadas que estão em um dos status. */
+	@Query( " select new com.starking.artesanato.service.evento.SituacaoPeca("
+			+ " p.id, u.id, p.descricao, p.mes, p.ano, p.valor, p.tipo, p.status, p.versao) "
+			+ " from Pecas p join p.usuario u where p.id in :ids and p.status in :status " )
+	List<SituacaoPeca> obterSituacoes(
+			@Param("ids") Collection<Long> ids,
+			@Param("status") Collection<StatusPagamento> status);
+	
+	@Modifying(flushAutomatically = true, clearAutomatically = true)
+	@Query( " update Pecas p set p.status = :novoStatus, p.versao = p.versao + 1 where p.id in :ids and p.status in :origens " )
+	int atualizarStatus(
+			@Param("ids") Collection<Long> ids,
+			@Param("novoStatus") StatusPagamento novoStatus,
+			@Param("origens") Collection<StatusPagamento> origens);
+	
+	/** Muda o status da peça se ela ainda estiver na versão informada. */
+	@Modifying
+	@Query( " update Pecas p set p.status = :status, p.versao = p.versao + 1 where p.id = :id and p.versao = :versao " )
+	int atualizarStatusNaVersao(
+			@Param("id") Long id,
+			@Param("status") StatusPagamento status,
+			@Param("versao") Long versao);
+	
+	/** Remove a peça se ela ainda estiver na versão informada. */
+	@Modifying
+	@Query( " delete from Pecas p where p.id = :id and p.versao = :versao " )
+	int deletarNaVersao(@Param("id") Long id, @Param("versao") Long versao);
+	
+	/** Pela coluna id_usuario: a consulta derivada do nome faz left join com usuario e filtra depois, lendo todas as peças. */
+	@Query( " select count(p) from Pecas p where p.usuario.id = :idUsuario " )
+	long countByUsuarioId(@Param("idUsuario") Long idUsuario);
+	
+	/** Linhas no formato [id, idUsuario, descricao, ano, mes], agrupadas por usuário. */
+	@QueryHints(@QueryHint(name = org.hibernate.annotations.QueryHints.FETCH_SIZE, value = "1000"))
+	@Query( " select p.id, u.id, p.descricao, p.ano, p.mes from Pecas p join p.usuario u order by u.id, p.id " )
+	Stream<Object[]> listarDescricoes();
+	
+	/** Linhas no formato [id, idUsuario, descricao, ano, mes] das peças de um usuário. */
+	@QueryHints(@QueryHint(name = org.hibernate.annotations.QueryHints.FETCH_SIZE, value = "1000"))
+	@Query( " select p.id, u.id, p.descricao, p.ano, p.mes from Pecas p join p.usuario u where u.id = :idUsuario " )
+	Stream<Object[]> listarDescricoesPorUsuario(@Param("idUsuario") Long idUsuario);
+	
 }
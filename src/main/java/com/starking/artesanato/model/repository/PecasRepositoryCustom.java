@@ -0,0 +1,47 @@
+package com.starking.artesanato.model.repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+
+import com.starking.artesanato.api.dto.PecasDTO;
+import com.starking.artesanato.model.entity.Pecas;
+import com.starking.artesanato.model.enums.StatusPagamento;
+import com.starking.artesanato.service.evento.SituacaoPeca;
+
+public interface PecasRepositoryCustom {
+
+	/**
+	 * Página de peças do usuário do filtro, em ordem de id, a partir do id
+	 * seguinte a {@code aposId}. Só entram no SQL os filtros informados, para
+	 * que a consulta use o índice (id_usuario, ano, mes, id). Seleciona só as
+	 * colunas do DTO, com o usuário reduzido ao id, sem passar pelo contexto
+	 * de persistência.
+	 */
+	List<PecasDTO> buscarPagina(Pecas filtro, Long aposId, int limite);
+	
+	/**
+	 * Situação gravada das peças do usuário do filtro que estão em um dos
+	 * status informados, filtradas por ano e mês quando presentes.
+	 */
+	List<SituacaoPeca> buscarSituacoes(Pecas filtro, Collection<StatusPagamento> status);
+	
+	/**
+	 * Grava descrição, mês, ano, valor, tipo e status da peça num único
+	 * update, sem carregá-la, desde que ela seja do usuário informado e
+	 * esteja na versão informada; incrementa a versão.
+	 *
+	 * @return 1 se a peça foi alterada, 0 se não existe, é de outro usuário
+	 * ou mudou de versão
+	 */
+	int atualizarNaVersao(Pecas pecas, Long versao);
+	
+	/**
+	 * Entrega as peças do usuário, em ordem de id, lidas por um cursor do
+	 * banco. Cada peça é desanexada do contexto de persistência depois de
+	 * consumida, de modo que a memória não cresce com a quantidade de linhas.
+	 * Precisa de uma transação aberta.
+	 */
+	void percorrerPorUsuario(Long idUsuario, Consumer<Pecas> consumidor);
+	
+}
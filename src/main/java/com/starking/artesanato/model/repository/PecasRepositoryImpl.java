@@ -0,0 +1,150 @@
+package com.starking.artesanato.model.repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Join;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+
+import org.hibernate.jpa.QueryHints;
+
+import com.starking.artesanato.api.dto.PecasDTO;
+import com.starking.artesanato.model.entity.Pecas;
+import com.starking.artesanato.model.entity.Usuario;
+import com.starking.artesanato.model.enums.StatusPagamento;
+import com.starking.artesanato.service.evento.SituacaoPeca;
+
+public class PecasRepositoryImpl implements PecasRepositoryCustom {
+
+	private static final int TAMANHO_FETCH = 500;
+	static final char ESCAPE_LIKE = '\\';
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	@Override
+	public List<PecasDTO> buscarPagina(Pecas filtro, Long aposId, int limite) {
+		CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+		CriteriaQuery<PecasDTO> query = cb.createQuery(PecasDTO.class);
+		Root<Pecas> pecas = query.from(Pecas.class);
+		
+		List<Predicate> condicoes = new ArrayList<>();
+		condicoes.add(cb.equal(pecas.get("usuario").get("id"), filtro.getUsuario().getId()));
+		
+		if(filtro.getAno() != null) {
+			condicoes.add(cb.equal(pecas.get("ano"), filtro.getAno()));
+		}
+		
+		if(filtro.getMes() != null) {
+			condicoes.add(cb.equal(pecas.get("mes"), filtro.getMes()));
+		}
+		
+		if(filtro.getDescricao() != null && !filtro.getDescricao().isEmpty()) {
+			condicoes.add(cb.like(cb.lower(pecas.get("descricao")), padraoContem(filtro.getDescricao()), ESCAPE_LIKE));
+		}
+		
+		if(aposId != null) {
+			condicoes.add(cb.greaterThan(pecas.get("id"), aposId));
+		}
+		
+		// usuario.id sai da própria coluna id_usuario, sem join com a tabela de usuários
+		query.select(cb.construct(PecasDTO.class,
+					pecas.get("id"), pecas.get("descricao"), pecas.get("mes"), pecas.get("ano"),
+					pecas.get("valor"), pecas.get("usuario").get("id"), pecas.get("tipo"), pecas.get("status"), pecas.get("versao")))
+			.where(condicoes.toArray(new Predicate[0]))
+			.orderBy(cb.asc(pecas.get("id")));
+		
+		return entityManager.createQuery(query)
+				.setMaxResults(limite)
+				.getResultList();
+	}
+
+	@Override
+	public List<SituacaoPeca> buscarSituacoes(Pecas filtro, Collection<StatusPagamento> status) {
+		CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+		CriteriaQuery<SituacaoPeca> query = cb.createQuery(SituacaoPeca.class);
+		Root<Pecas> pecas = query.from(Pecas.class);
+		Join<Pecas, Usuario> usuario = pecas.join("usuario");
+		
+		List<Predicate> condicoes = new ArrayList<>();
+		condicoes.add(cb.equal(usuario.get("id"), filtro.getUsuario().getId()));
+		condicoes.add(pecas.get("status").in(status));
+		
+		if(filtro.getAno() != null) {
+			condicoes.add(cb.equal(pecas.get("ano"), filtro.getAno()));
+		}
+		
+		if(filtro.getMes() != null) {
+			condicoes.add(cb.equal(pecas.get("mes"), filtro.getMes()));
+		}
+		
+		query.select(cb.construct(SituacaoPeca.class,
+					pecas.get("id"), usuario.get("id"), pecas.get("descricao"), pecas.get("mes"),
+					pecas.get("ano"), pecas.get("valor"), pecas.get("tipo"), pecas.get("status"), pecas.get("versao")))
+			.where(condicoes.toArray(new Predicate[0]));
+		
+		return entityManager.createQuery(query).getResultList();
+	}
+
+	@Override
+	public int atualizarNaVersao(Pecas pecas, Long versao) {
+		return entityManager.createQuery(
+					  " update Pecas p set p.descricao = :descricao, p.mes = :mes, p.ano = :ano, p.valor = :valor, "
+					+ " p.tipo = :tipo, p.status = :status, p.versao = p.versao + 1 "
+					+ " where p.id = :id and p.usuario.id = :idUsuario and p.versao = :versao ")
+				.setParameter("descricao", pecas.getDescricao())
+				.setParameter("mes", pecas.getMes())
+				.setParameter("ano", pecas.getAno())
+				.setParameter("valor", pecas.getValor())
+				.setParameter("tipo", pecas.getTipo())
+				.setParameter("status", pecas.getStatus())
+				.setParameter("id", pecas.getId())
+				.setParameter("idUsuario", pecas.getUsuario().getId())
+				.setParameter("versao", versao)
+				.executeUpdate();
+	}
+
+	@Override
+	public void percorrerPorUsuario(Long idUsuario, Consumer<Pecas> consumidor) {
+		Stream<Pecas> pecas = entityManager
+				.createQuery(" select p from Pecas p join fetch p.usuario u where u.id = :idUsuario order by p.id ", Pecas.class)
+				.setParameter("idUsuario", idUsuario)
+				.setHint(QueryHints.HINT_FETCH_SIZE, TAMANHO_FETCH)
+				.setHint(QueryHints.HINT_READONLY, true)
+				.setHint(QueryHints.HINT_CACHEABLE, false)
+				.getResultStream();
+		
+		try (Stream<Pecas> cursor = pecas) {
+			cursor.forEach(peca -> {
+				consumidor.accept(peca);
+				entityManager.detach(peca);
+			});
+		}
+	}
+	
+	/**
+	 * Padrão de {@code like} que encontra o trecho em qualquer posição, em
+	 * minúsculas, com {@code %}, {@code _} e a própria barra escapados para
+	 * valerem como texto, igual à busca pelo índice de trigramas.
+	 */
+	static String padraoContem(String trecho) {
+		StringBuilder padrao = new StringBuilder(trecho.length() + 2).append('%');
+		for(char c : trecho.toLowerCase(Locale.ROOT).toCharArray()) {
+			if(c == '%' || c == '_' || c == ESCAPE_LIKE) {
+				padrao.append(ESCAPE_LIKE);
+			}
+			padrao.append(c);
+		}
+		return padrao.append('%').toString();
+	}
+
+}
@@ -0,0 +1,126 @@
+package com.starking.artesanato.model.repository;
+
+import java.math.BigDecimal;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import org.springframework.data.r2dbc.core.DatabaseClient;
+import org.springframework.data.r2dbc.core.DatabaseClient.GenericExecuteSpec;
+
+import com.starking.artesanato.model.entity.Pecas;
+import com.starking.artesanato.model.entity.Usuario;
+import com.starking.artesanato.model.enums.StatusPagamento;
+import com.starking.artesanato.model.enums.TipoPagamento;
+
+import io.r2dbc.spi.Row;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Consultas de leitura de peças pelo driver R2DBC, sem bloquear a thread que
+ * as chama. Lê as mesmas tabelas do {@link PecasRepository}; as linhas viram
+ * {@link Pecas} com o usuário preenchido só com o id e sem a data de
+ * cadastro, que a API não devolve.
+ */
+public class PecasRepositoryReativo {
+
+	private static final String COLUNAS = " select p.id, p.descricao, p.mes, p.ano, p.valor, p.tipo, p.status, p.versao, p.id_usuario "
+			+ " from artesanato.pecas p ";
+
+	private final DatabaseClient databaseClient;
+
+	public PecasRepositoryReativo(DatabaseClient databaseClient) {
+		this.databaseClient = databaseClient;
+	}
+
+	/** Mesma página do {@link PecasRepositoryCustom#buscarPagina}, emitida conforme as linhas chegam. */
+	public Flux<Pecas> buscarPagina(Pecas filtro, Long aposId, int limite) {
+		StringBuilder sql = new StringBuilder(COLUNAS).append(" where p.id_usuario = :idUsuario ");
+		Map<String, Object> parametros = new LinkedHashMap<>();
+		parametros.put("idUsuario", filtro.getUsuario().getId());
+
+		if(filtro.getAno() != null) {
+			sql.append(" and p.ano = :ano ");
+			parametros.put("ano", filtro.getAno());
+		}
+
+		if(filtro.getMes() != null) {
+			sql.append(" and p.mes = :mes ");
+			parametros.put("mes", filtro.getMes());
+		}
+
+		if(filtro.getDescricao() != null && !filtro.getDescricao().isEmpty()) {
+			sql.append(" and lower(p.descricao) like :descricao escape '").append(PecasRepositoryImpl.ESCAPE_LIKE).append("' ");
+			parametros.put("descricao", PecasRepositoryImpl.padraoContem(filtro.getDescricao()));
+		}
+
+		if(aposId != null) {
+			sql.append(" and p.id > :aposId ");
+			parametros.put("aposId", aposId);
+		}
+
+		sql.append(" order by p.id limit :limite ");
+		parametros.put("limite", limite);
+
+		GenericExecuteSpec consulta = databaseClient.execute(sql.toString());
+		for(Map.Entry<String, Object> parametro : parametros.entrySet()) {
+			consulta = consulta.bind(parametro.getKey(), parametro.getValue());
+		}
+
+		return consulta.map((linha, metadados) -> converter(linha)).all();
+	}
+
+	public Mono<Pecas> obterPorId(Long id) {
+		return databaseClient.execute(COLUNAS + " where p.id = :id ")
+				.bind("id", id)
+				.map((linha, metadados) -> converter(linha))
+				.one();
+	}
+
+	public Mono<Boolean> existeUsuario(Long idUsuario) {
+		return databaseClient.execute(" select u.id from artesanato.usuario u where u.id = :idUsuario ")
+				.bind("idUsuario", idUsuario)
+				.map((linha, metadados) -> linha.get("id", Long.class))
+				.first()
+				.hasElement();
+	}
+
+	/** Saldo da tabela saldo_usuario; vazio se o usuário ainda não tem linha nela. */
+	public Mono<BigDecimal> obterSaldoMaterializado(Long idUsuario) {
+		return databaseClient.execute(" select s.saldo from artesanato.saldo_usuario s where s.id_usuario = :idUsuario ")
+				.bind("idUsuario", idUsuario)
+				.map((linha, metadados) -> linha.get("saldo", BigDecimal.class))
+				.one();
+	}
+
+	/** Créditos menos PIX das peças no status, como o {@link PecasRepository#obterSaldoEfetivado}. */
+	public Mono<BigDecimal> obterSaldoEfetivado(Long idUsuario, TipoPagamento credito, StatusPagamento status) {
+		return databaseClient.execute(
+					  " select sum(case when p.tipo = :credito then p.valor else -p.valor end) as saldo "
+					+ " from artesanato.pecas p where p.id_usuario = :idUsuario and p.status = :status ")
+				.bind("credito", credito.name())
+				.bind("idUsuario", idUsuario)
+				.bind("status", status.name())
+				// sum de nenhuma linha é null, que não pode ser emitido
+				.map((linha, metadados) -> Optional.ofNullable(linha.get("saldo", BigDecimal.class)))
+				.one()
+				.flatMap(Mono::justOrEmpty);
+	}
+
+	private static Pecas converter(Row linha) {
+		String tipo = linha.get("tipo", String.class);
+		String status = linha.get("status", String.class);
+		return Pecas.builder()
+				.id(linha.get("id", Long.class))
+				.descricao(linha.get("descricao", String.class))
+				.mes(linha.get("mes", Integer.class))
+				.ano(linha.get("ano", Integer.class))
+				.valor(linha.get("valor", BigDecimal.class))
+				.tipo(tipo == null ? null : TipoPagamento.valueOf(tipo))
+				.status(status == null ? null : StatusPagamento.valueOf(status))
+				.versao(linha.get("versao", Long.class))
+				.usuario(Usuario.builder().id(linha.get("id_usuario", Long.class)).build())
+				.build();
+	}
+}
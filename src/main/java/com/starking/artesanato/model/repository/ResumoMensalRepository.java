@@ -0,0 +1,43 @@
+package com.starking.artesanato.model.repository;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.starking.artesanato.model.entity.ChaveResumoMensal;
+import com.starking.artesanato.model.entity.ResumoMensal;
+
+public interface ResumoMensalRepository extends JpaRepository<ResumoMensal, ChaveResumoMensal> {
+
+	@Query( " select r from ResumoMensal r where r.chave.idUsuario = :idUsuario " )
+	List<ResumoMensal> obterPorUsuario(@Param("idUsuario") Long idUsuario);
+	
+	@Query( " select r from ResumoMensal r where r.chave.idUsuario in :idsUsuarios " )
+	List<ResumoMensal> obterPorUsuarios(@Param("idsUsuarios") Collection<Long> idsUsuarios);
+	
+	/** Usuários com resumos gravados e id maior que {@code depois}, em ordem crescente, uma página por vez. */
+	@Query( " select distinct r.chave.idUsuario from ResumoMensal r where r.chave.idUsuario > :depois order by r.chave.idUsuario " )
+	List<Long> obterIdsUsuarios(@Param("depois") Long depois, Pageable pagina);
+	
+	boolean existsByChaveIdUsuario(Long idUsuario);
+	
+	@Modifying
+	@Query( " update ResumoMensal r set r.quantidade = r.quantidade + :quantidade, r.total = r.total + :total "
+			+ " where r.chave.idUsuario = :#{#chave.idUsuario} and r.chave.ano = :#{#chave.ano} and r.chave.mes = :#{#chave.mes} "
+			+ " and r.chave.tipo = :#{#chave.tipo} and r.chave.status = :#{#chave.status} " )
+	int somar(
+			@Param("chave") ChaveResumoMensal chave,
+			@Param("quantidade") long quantidade,
+			@Param("total") BigDecimal total);
+	
+	@Modifying
+	@Query( " delete from ResumoMensal r where r.chave.idUsuario = :idUsuario " )
+	int removerPorUsuario(@Param("idUsuario") Long idUsuario);
+	
+}
@@ -0,0 +1,26 @@
+package com.starking.artesanato.model.repository;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.starking.artesanato.model.entity.SaldoUsuario;
+
+public interface SaldoUsuarioRepository extends JpaRepository<SaldoUsuario, Long> {
+
+	@Query( " select s.saldo from SaldoUsuario s where s.idUsuario = :idUsuario " )
+	Optional<BigDecimal> obterSaldo(@Param("idUsuario") Long idUsuario);
+	
+	@Modifying
+	@Query( " update SaldoUsuario s set s.saldo = s.saldo + :valor where s.idUsuario = :idUsuario " )
+	int somarAoSaldo(@Param("idUsuario") Long idUsuario, @Param("valor") BigDecimal valor);
+	
+	@Modifying
+	@Query( " update SaldoUsuario s set s.saldo = :saldo where s.idUsuario = :idUsuario " )
+	int corrigirSaldo(@Param("idUsuario") Long idUsuario, @Param("saldo") BigDecimal saldo);
+	
+}
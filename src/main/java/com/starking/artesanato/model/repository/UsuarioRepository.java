@@ -3,6 +3,10 @@ package com.starking.artesanato.model.repository;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.starking.artesanato.model.entity.Usuario;
 
@@ -12,4 +16,16 @@ public interface UsuarioRepository extends JpaRepository<Usuario, Long> {
 	
 	Optional<Usuario> findByEmail(String email);
 	
+	@Query( value = " select u.id from Usuario u where u.email = :email " )
+	Optional<Long> obterIdPorEmail(@Param("email") String email);
+	
+	/** Troca o hash da senha se ele ainda for o informado. */
+	@Transactional
+	@Modifying
+	@Query( value = " update Usuario u set u.senha = :novoHash where u.id = :id and u.senha = :hashAnterior " )
+	int atualizarSenha(
+			@Param("id") Long id,
+			@Param("hashAnterior") String hashAnterior,
+			@Param("novoHash") String novoHash);
+	
 }
@@ -0,0 +1,20 @@
+package com.starking.artesanato.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collection;
+
+public interface ImportacaoPecasService {
+
+	/**
+	 * Importa as peças de um CSV lido em fluxo, sem carregar o arquivo inteiro.
+	 * As linhas são validadas em paralelo e gravadas em partes, cada uma na sua
+	 * transação; as linhas rejeitadas são informadas no relatório com o número
+	 * da linha. Bloqueia até a última parte ser gravada.
+	 */
+	RelatorioImportacao importar(InputStream csv) throws IOException;
+
+	/** Relatórios parciais das importações que ainda estão correndo. */
+	Collection<RelatorioImportacao> emAndamento();
+
+}
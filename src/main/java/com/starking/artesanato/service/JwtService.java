@@ -14,4 +14,6 @@ public interface JwtService {
 	boolean isTokenValido(String token);
 	
 	String obterLoginUsuario( String token );
+	
+	TokenVerificado obterTokenVerificado( String token );
 }
@@ -0,0 +1,23 @@
+package com.starking.artesanato.service;
+
+import java.util.List;
+
+import com.starking.artesanato.model.entity.Pecas;
+
+public interface LotePecasService {
+
+	/**
+	 * Grava as peças em partes de {@code pecas.lote.tamanho}, cada parte na sua
+	 * transação. As peças chegam com o usuário preenchido apenas pelo id. Devolve
+	 * um resultado por peça, na mesma ordem; uma peça inválida não impede as
+	 * demais.
+	 */
+	List<ResultadoItemLote> salvar(List<Pecas> pecas);
+	
+	/**
+	 * Como {@link #salvar(List)}, mas mantém o status informado em cada peça
+	 * (PENDENTE quando ausente), para carga de histórico.
+	 */
+	List<ResultadoItemLote> importar(List<Pecas> pecas);
+	
+}
@@ -0,0 +1,26 @@
+package com.starking.artesanato.service;
+
+import java.math.BigDecimal;
+
+import com.starking.artesanato.model.entity.Pecas;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Leituras de peças e saldo sem bloqueio, para a API reativa. Segue as mesmas
+ * regras de paginação e de saldo do {@link PecaService}.
+ */
+public interface PecaReativaService {
+
+	Flux<Pecas> buscar( Pecas pecasFiltro, Long aposId, Integer limite );
+	
+	/** Como o {@link PecaService#tamanhoPagina(Integer)}. */
+	int tamanhoPagina( Integer limite );
+	
+	Mono<Pecas> obterPorId(Long id);
+	
+	Mono<Boolean> existeUsuario(Long idUsuario);
+	
+	Mono<BigDecimal> obterSaldoPorUsuario(Long idUsuario);
+}
@@ -1,11 +1,19 @@
 package com.starking.artesanato.service;
 
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 
+import com.starking.artesanato.api.dto.PecasDTO;
+import com.starking.artesanato.api.dto.RelatorioPecasDTO;
+import com.starking.artesanato.exception.ConflitoException;
+import com.starking.artesanato.exception.RegraNegocioException;
 import com.starking.artesanato.model.entity.Pecas;
 import com.starking.artesanato.model.enums.StatusPagamento;
+import com.starking.artesanato.service.evento.SituacaoPeca;
 
 public interface PecaService {
 
@@ -17,11 +25,71 @@ public interface PecaService {
 	
 	List<Pecas> buscar( Pecas pecasFiltro );
 	
+	/** Página de peças do usuário do filtro no formato da API, sem carregar as entidades. */
+	List<PecasDTO> buscar( Pecas pecasFiltro, Long aposId, Integer limite );
+	
+	/**
+	 * Tamanho de página que o {@link #buscar(Pecas, Long, Integer)} usa para o
+	 * limite pedido: o padrão sem limite válido, nunca acima do máximo. Uma
+	 * página com menos peças que isso é a última.
+	 */
+	int tamanhoPagina( Integer limite );
+	
 	void atualizarStatus(Pecas pecas, StatusPagamento status);
 	
+	/**
+	 * Grava os campos da peça de id informado com um único update, sem
+	 * carregar a entidade nem o usuário. A peça precisa ser do usuário
+	 * informado nela e estar na versão {@code versao}, ou na versão atual
+	 * quando ela é nula.
+	 *
+	 * @return situação gravada, vazia se a peça não existe ou é de outro usuário
+	 * @throws ConflitoException se a peça mudou de versão
+	 */
+	Optional<SituacaoPeca> atualizar(Long id, Pecas pecas, Long versao);
+	
+	/** Como {@link #atualizar(Long, Pecas, Long)}, mudando só o status. */
+	Optional<SituacaoPeca> atualizarStatus(Long id, StatusPagamento status, Long versao);
+	
+	/** Como {@link #atualizar(Long, Pecas, Long)}, removendo a peça; devolve a situação removida. */
+	Optional<SituacaoPeca> deletar(Long id, Long versao);
+	
+	/**
+	 * Muda o status de várias peças com um único update por lote de ids. As
+	 * peças são as dos ids informados ou, sem ids, as do usuário do filtro,
+	 * restritas por mês, ano e status atual. Só são alteradas as peças cujo
+	 * status atual permite a transição.
+	 *
+	 * @return quantidade de peças alteradas
+	 */
+	int atualizarStatus(Collection<Long> ids, Pecas filtro, StatusPagamento status);
+	
 	void validar(Pecas pecas);
 	
+	/** Peça com o usuário carregado, para alteração. */
 	Optional<Pecas> obterPorId(Long id);
 	
+	/** Peça no formato da API, sem carregar a entidade. */
+	Optional<PecasDTO> obterDTOPorId(Long id);
+	
 	BigDecimal obterSaldoPorUsuario(Long id);
+	
+	/**
+	 * Relatório do ano do usuário, lido dos resumos mensais. Sem {@code mesAte},
+	 * o acumulado vai até o mês corrente no ano corrente e até dezembro nos
+	 * demais.
+	 *
+	 * @throws RegraNegocioException se o ano ou o mês forem inválidos
+	 */
+	RelatorioPecasDTO obterRelatorio(Long idUsuario, Integer ano, Integer mesAte);
+	
+	/**
+	 * Entrega ao consumidor o saldo de cada usuário informado, lote a lote,
+	 * conforme cada consulta agrupada termina. Usuários sem peças efetivadas
+	 * recebem zero.
+	 */
+	void obterSaldosPorUsuarios(Collection<Long> idsUsuarios, BiConsumer<Long, BigDecimal> consumidor);
+	
+	/** Entrega todas as peças do usuário, uma a uma, sem carregá-las todas em memória. */
+	void exportar(Long idUsuario, Consumer<Pecas> consumidor);
 }
\ No newline at end of file
@@ -0,0 +1,83 @@
+package com.starking.artesanato.service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Progresso de uma importação, atualizado pelas threads do pipeline enquanto
+ * ela corre e devolvido como relatório final ao terminar. Só as primeiras
+ * rejeições são guardadas com a mensagem; as demais entram apenas na contagem.
+ */
+public class RelatorioImportacao {
+
+	@Getter
+	@AllArgsConstructor
+	public static class Rejeicao {
+
+		private final long linha;
+		private final String erro;
+	}
+
+	@Getter
+	private final String id = UUID.randomUUID().toString();
+	@Getter
+	private final Instant inicio = Instant.now();
+	@Getter
+	private volatile boolean concluida;
+
+	private final AtomicLong lidas = new AtomicLong();
+	private final AtomicLong gravadas = new AtomicLong();
+	private final AtomicLong rejeitadas = new AtomicLong();
+	private final List<Rejeicao> rejeicoes = new ArrayList<>();
+	private final int maximoRejeicoes;
+
+	public RelatorioImportacao(int maximoRejeicoes) {
+		this.maximoRejeicoes = maximoRejeicoes;
+	}
+
+	public void lida() {
+		lidas.incrementAndGet();
+	}
+
+	public void gravadas(int quantidade) {
+		gravadas.addAndGet(quantidade);
+	}
+
+	public void rejeitada(long linha, String erro) {
+		rejeitadas.incrementAndGet();
+		synchronized (rejeicoes) {
+			if (rejeicoes.size() < maximoRejeicoes) {
+				rejeicoes.add(new Rejeicao(linha, erro));
+			}
+		}
+	}
+
+	public void concluir() {
+		concluida = true;
+	}
+
+	public long getLidas() {
+		return lidas.get();
+	}
+
+	public long getGravadas() {
+		return gravadas.get();
+	}
+
+	public long getRejeitadas() {
+		return rejeitadas.get();
+	}
+
+	public List<Rejeicao> getRejeicoes() {
+		synchronized (rejeicoes) {
+			return Collections.unmodifiableList(new ArrayList<>(rejeicoes));
+		}
+	}
+}
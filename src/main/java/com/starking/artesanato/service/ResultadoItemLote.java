@@ -0,0 +1,25 @@
+package com.starking.artesanato.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/** Resultado de um item de um lote: o id gravado ou a mensagem de erro. */
+@Getter
+@AllArgsConstructor
+public class ResultadoItemLote {
+
+	private final Long id;
+	private final String erro;
+
+	public static ResultadoItemLote sucesso(Long id) {
+		return new ResultadoItemLote(id, null);
+	}
+
+	public static ResultadoItemLote falha(String erro) {
+		return new ResultadoItemLote(null, erro);
+	}
+
+	public boolean isSucesso() {
+		return erro == null;
+	}
+}
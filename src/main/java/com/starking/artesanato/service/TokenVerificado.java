@@ -0,0 +1,19 @@
+package com.starking.artesanato.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class TokenVerificado {
+
+	private final String login;
+	private final Long idUsuario;
+	private final String nome;
+	/** Claim "exp", em segundos desde a época. */
+	private final long expiracao;
+
+	public boolean isExpirado(long agoraEmMillis) {
+		return agoraEmMillis > expiracao * 1000;
+	}
+}
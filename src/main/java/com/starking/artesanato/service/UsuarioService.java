@@ -1,6 +1,7 @@
 package com.starking.artesanato.service;
 
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 import com.starking.artesanato.model.entity.Usuario;
 
@@ -8,6 +9,13 @@ public interface UsuarioService {
 
 	Usuario autenticar(String email, String senha);
 	
+	/**
+	 * Consulta o usuário na thread que chama e compara a senha no executor do
+	 * BCrypt. O futuro falha com {@code ErroAutenticacao} se a senha não bate;
+	 * com a fila do executor cheia, lança {@code ServicoSobrecarregadoException}.
+	 */
+	CompletableFuture<Usuario> autenticarAssincrono(String email, String senha);
+	
 	Usuario salvarUsuario(Usuario usuario);
 	
 	void validarEmail(String email);
@@ -0,0 +1,20 @@
+package com.starking.artesanato.service.evento;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Situação de uma peça antes e depois de uma gravação. {@code anterior} é nulo
+ * para peças novas e {@code atual} é nulo para peças excluídas.
+ */
+@Getter
+@AllArgsConstructor
+public class AlteracaoPeca {
+
+	private final SituacaoPeca anterior;
+	private final SituacaoPeca atual;
+
+	public boolean isRemocao() {
+		return atual == null;
+	}
+}
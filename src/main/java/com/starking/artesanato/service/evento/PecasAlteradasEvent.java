@@ -0,0 +1,41 @@
+package com.starking.artesanato.service.evento;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Publicado a cada gravação ou exclusão de peças, com a situação de cada uma
+ * antes e depois da operação. Os índices e agregados mantidos fora da tabela
+ * de peças se atualizam a partir dele em vez de consultar o banco de novo.
+ */
+@Getter
+@AllArgsConstructor
+public class PecasAlteradasEvent {
+
+	private final List<AlteracaoPeca> alteracoes;
+
+	/** Usuários das peças alteradas, antes e depois, em ordem crescente de id. */
+	public SortedSet<Long> getIdsUsuarios() {
+		SortedSet<Long> ids = new TreeSet<>();
+		for (AlteracaoPeca alteracao : alteracoes) {
+			adicionarUsuario(ids, alteracao.getAnterior());
+			adicionarUsuario(ids, alteracao.getAtual());
+		}
+		return ids;
+	}
+
+	public static PecasAlteradasEvent de(SituacaoPeca anterior, SituacaoPeca atual) {
+		return new PecasAlteradasEvent(Collections.singletonList(new AlteracaoPeca(anterior, atual)));
+	}
+
+	private static void adicionarUsuario(SortedSet<Long> ids, SituacaoPeca peca) {
+		if (peca != null && peca.getIdUsuario() != null) {
+			ids.add(peca.getIdUsuario());
+		}
+	}
+}
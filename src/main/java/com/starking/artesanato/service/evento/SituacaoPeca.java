@@ -0,0 +1,40 @@
+package com.starking.artesanato.service.evento;
+
+import java.math.BigDecimal;
+
+import com.starking.artesanato.model.entity.Pecas;
+import com.starking.artesanato.model.enums.StatusPagamento;
+import com.starking.artesanato.model.enums.TipoPagamento;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Cópia imutável dos campos de uma peça no momento da gravação, para que os
+ * ouvintes não dependam da entidade gerenciada depois do commit.
+ */
+@Getter
+@AllArgsConstructor
+public class SituacaoPeca {
+
+	private final Long id;
+	private final Long idUsuario;
+	private final String descricao;
+	private final Integer mes;
+	private final Integer ano;
+	private final BigDecimal valor;
+	private final TipoPagamento tipo;
+	private final StatusPagamento status;
+	private final Long versao;
+
+	public static SituacaoPeca de(Pecas pecas) {
+		Long idUsuario = pecas.getUsuario() == null ? null : pecas.getUsuario().getId();
+		return new SituacaoPeca(pecas.getId(), idUsuario, pecas.getDescricao(), pecas.getMes(),
+				pecas.getAno(), pecas.getValor(), pecas.getTipo(), pecas.getStatus(), pecas.getVersao());
+	}
+
+	/** Situação depois de um update que mudou só o status e incrementou a versão. */
+	public SituacaoPeca comStatus(StatusPagamento novoStatus) {
+		return new SituacaoPeca(id, idUsuario, descricao, mes, ano, valor, tipo, novoStatus, versao == null ? null : versao + 1);
+	}
+}
@@ -0,0 +1,15 @@
+package com.starking.artesanato.service.evento;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Publicado a cada gravação de usuário, para que os caches indexados por
+ * e-mail descartem a entrada correspondente depois do commit.
+ */
+@Getter
+@AllArgsConstructor
+public class UsuarioAlteradoEvent {
+
+	private final String email;
+}
@@ -0,0 +1,184 @@
+package com.starking.artesanato.service.impl;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+
+import org.hibernate.SessionFactory;
+import org.postgresql.PGConnection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.starking.artesanato.model.entity.Pecas;
+import com.starking.artesanato.model.enums.StatusPagamento;
+import com.starking.artesanato.model.repository.UsuarioRepository;
+import com.starking.artesanato.service.ResultadoItemLote;
+import com.starking.artesanato.service.evento.AlteracaoPeca;
+import com.starking.artesanato.service.evento.PecasAlteradasEvent;
+import com.starking.artesanato.service.evento.SituacaoPeca;
+import com.starking.artesanato.utils.ConstantesUtils;
+
+/**
+ * Caminho rápido da importação no PostgreSQL: grava uma parte inteira com um
+ * único COPY em vez de inserts. Os ids saem da mesma sequência da entidade e
+ * seguem o otimizador pooled-lo do Hibernate (cada valor da sequência reserva
+ * os 50 ids seguintes), então não colidem com os gerados pelo JPA.
+ */
+@Component
+class CopiaPecasPostgres {
+
+	private static final Logger log = LoggerFactory.getLogger(CopiaPecasPostgres.class);
+
+	/** Mesmo allocationSize da sequência em {@link Pecas}. */
+	private static final int INCREMENTO_SEQUENCIA = 50;
+
+	private static final String RESERVAR_IDS = "select nextval('artesanato.pecas_seq') from generate_series(1, ?)";
+	private static final String COPIAR = "COPY artesanato.pecas (id, descricao, mes, ano, valor, tipo, status, id_usuario) FROM STDIN WITH (FORMAT csv)";
+
+	private final DataSource dataSource;
+	private final EntityManagerFactory entityManagerFactory;
+	private final UsuarioRepository usuarioRepository;
+	private final ApplicationEventPublisher publisher;
+	private final TransactionTemplate transacao;
+	private final boolean habilitada;
+	private volatile Boolean disponivel;
+
+	CopiaPecasPostgres(
+			DataSource dataSource,
+			EntityManagerFactory entityManagerFactory,
+			UsuarioRepository usuarioRepository,
+			ApplicationEventPublisher publisher,
+			PlatformTransactionManager transactionManager,
+			@Value("${pecas.importacao.copy:true}") boolean habilitada) {
+		this.dataSource = dataSource;
+		this.entityManagerFactory = entityManagerFactory;
+		this.usuarioRepository = usuarioRepository;
+		this.publisher = publisher;
+		this.transacao = new TransactionTemplate(transactionManager);
+		this.habilitada = habilitada;
+	}
+
+	/** Se a base é PostgreSQL e o COPY não foi desligado por configuração. */
+	boolean isDisponivel() {
+		if (disponivel == null) {
+			disponivel = habilitada && isPostgres();
+		}
+		return disponivel;
+	}
+
+	/**
+	 * Grava as peças já validadas numa transação. Peças de usuários
+	 * inexistentes são rejeitadas; as demais mantêm o status informado
+	 * (PENDENTE quando ausente). O COPY não passa pelo Hibernate, então as
+	 * consultas em cache (o saldo agregado) são despejadas depois do commit.
+	 */
+	List<ResultadoItemLote> gravar(List<Pecas> pecas) {
+		List<ResultadoItemLote> gravadas = transacao.execute(status -> {
+			Set<Long> ids = new HashSet<>();
+			pecas.forEach(p -> ids.add(p.getUsuario().getId()));
+			Set<Long> existentes = new HashSet<>();
+			usuarioRepository.findAllById(ids).forEach(usuario -> existentes.add(usuario.getId()));
+
+			List<Pecas> validas = new ArrayList<>(pecas.size());
+			for (Pecas p : pecas) {
+				if (existentes.contains(p.getUsuario().getId())) {
+					validas.add(p);
+				}
+			}
+
+			Connection conexao = DataSourceUtils.getConnection(dataSource);
+			try {
+				List<Long> novosIds = reservarIds(conexao, validas.size());
+				StringBuilder dados = new StringBuilder(validas.size() * 64);
+				for (int i = 0; i < validas.size(); i++) {
+					Pecas p = validas.get(i);
+					p.setId(novosIds.get(i));
+					if (p.getStatus() == null) {
+						p.setStatus(StatusPagamento.PENDENTE);
+					}
+					linha(dados, p);
+				}
+				if (!validas.isEmpty()) {
+					conexao.unwrap(PGConnection.class).getCopyAPI().copyIn(COPIAR, new StringReader(dados.toString()));
+				}
+			} catch (SQLException | IOException e) {
+				throw new IllegalStateException("Falha no COPY das peças importadas.", e);
+			} finally {
+				DataSourceUtils.releaseConnection(conexao, dataSource);
+			}
+
+			List<AlteracaoPeca> alteracoes = new ArrayList<>(validas.size());
+			validas.forEach(p -> alteracoes.add(new AlteracaoPeca(null, SituacaoPeca.de(p))));
+			publisher.publishEvent(new PecasAlteradasEvent(alteracoes));
+
+			List<ResultadoItemLote> resultados = new ArrayList<>(pecas.size());
+			for (Pecas p : pecas) {
+				resultados.add(existentes.contains(p.getUsuario().getId())
+						? ResultadoItemLote.sucesso(p.getId())
+						: ResultadoItemLote.falha(ConstantesUtils.USUARIO_NAO_ENCONTRADO_ID));
+			}
+			return resultados;
+		});
+		entityManagerFactory.unwrap(SessionFactory.class).getCache().evictQueryRegions();
+		return gravadas;
+	}
+
+	private List<Long> reservarIds(Connection conexao, int quantidade) throws SQLException {
+		List<Long> ids = new ArrayList<>(quantidade);
+		if (quantidade == 0) {
+			return ids;
+		}
+		try (PreparedStatement reserva = conexao.prepareStatement(RESERVAR_IDS)) {
+			reserva.setInt(1, (quantidade + INCREMENTO_SEQUENCIA - 1) / INCREMENTO_SEQUENCIA);
+			try (ResultSet blocos = reserva.executeQuery()) {
+				while (blocos.next() && ids.size() < quantidade) {
+					long inicio = blocos.getLong(1);
+					for (int i = 0; i < INCREMENTO_SEQUENCIA && ids.size() < quantidade; i++) {
+						ids.add(inicio + i);
+					}
+				}
+			}
+		}
+		return ids;
+	}
+
+	private static void linha(StringBuilder dados, Pecas p) {
+		dados.append(p.getId()).append(',');
+		if (p.getDescricao() != null) {
+			dados.append('"').append(p.getDescricao().replace("\"", "\"\"")).append('"');
+		}
+		dados.append(',').append(p.getMes())
+				.append(',').append(p.getAno())
+				.append(',').append(p.getValor().toPlainString())
+				.append(',').append(p.getTipo().name())
+				.append(',').append(p.getStatus().name())
+				.append(',').append(p.getUsuario().getId())
+				.append('\n');
+	}
+
+	private boolean isPostgres() {
+		try (Connection conexao = dataSource.getConnection()) {
+			return "PostgreSQL".equalsIgnoreCase(conexao.getMetaData().getDatabaseProductName());
+		} catch (SQLException e) {
+			log.warn("Não foi possível identificar a base; a importação usará inserts em lote.", e);
+			return false;
+		}
+	}
+
+}
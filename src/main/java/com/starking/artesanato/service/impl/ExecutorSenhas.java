@@ -0,0 +1,88 @@
+package com.starking.artesanato.service.impl;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import com.starking.artesanato.exception.ServicoSobrecarregadoException;
+import com.starking.artesanato.utils.ConstantesUtils;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+
+/**
+ * Executa o BCrypt fora das threads do Tomcat, num pool de tamanho fixo com
+ * fila limitada. Uma rajada de logins ocupa no máximo as threads deste pool,
+ * e as demais requisições continuam sendo atendidas; com a fila cheia, o
+ * trabalho é recusado com {@link ServicoSobrecarregadoException} em vez de
+ * esperar indefinidamente.
+ */
+@Component
+public class ExecutorSenhas {
+
+	private final PasswordEncoder encoder;
+	private final ThreadPoolExecutor executor;
+	private final Timer tempoComparar;
+	private final Timer tempoCriptografar;
+
+	public ExecutorSenhas(
+			PasswordEncoder encoder,
+			MeterRegistry meterRegistry,
+			@Value("${senhas.executor.threads:0}") int threads,
+			@Value("${senhas.executor.fila:100}") int fila) {
+		this.encoder = encoder;
+
+		// BCrypt só usa CPU: por padrão fica com metade dos processadores
+		int tamanho = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+		AtomicInteger contador = new AtomicInteger();
+		this.executor = new ThreadPoolExecutor(tamanho, tamanho, 0, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<>(fila),
+				tarefa -> {
+					Thread thread = new Thread(tarefa, "senhas-" + contador.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				},
+				new ThreadPoolExecutor.AbortPolicy());
+
+		ExecutorServiceMetrics.monitor(meterRegistry, executor, "senhas");
+		this.tempoComparar = meterRegistry.timer("senhas.bcrypt", "operacao", "comparar");
+		this.tempoCriptografar = meterRegistry.timer("senhas.bcrypt", "operacao", "criptografar");
+	}
+
+	public CompletableFuture<Boolean> comparar(String senha, String hash) {
+		return executar(() -> tempoComparar.record(() -> encoder.matches(senha, hash)));
+	}
+
+	public CompletableFuture<String> criptografar(String senha) {
+		return executar(() -> tempoCriptografar.record(() -> encoder.encode(senha)));
+	}
+
+	/** Se o hash foi gerado com uma força menor que a atual e deve ser refeito. */
+	public boolean precisaAtualizar(String hash) {
+		return encoder.upgradeEncoding(hash);
+	}
+
+	private <T> CompletableFuture<T> executar(Supplier<T> trabalho) {
+		try {
+			return CompletableFuture.supplyAsync(trabalho, executor);
+		} catch (RejectedExecutionException e) {
+			throw new ServicoSobrecarregadoException(ConstantesUtils.SERVICO_SOBRECARREGADO);
+		}
+	}
+
+	@PreDestroy
+	public void encerrar() {
+		executor.shutdown();
+	}
+}
@@ -0,0 +1,240 @@
+package com.starking.artesanato.service.impl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.starking.artesanato.exception.RegraNegocioException;
+import com.starking.artesanato.model.entity.Pecas;
+import com.starking.artesanato.service.ImportacaoPecasService;
+import com.starking.artesanato.service.LotePecasService;
+import com.starking.artesanato.service.PecaService;
+import com.starking.artesanato.service.RelatorioImportacao;
+import com.starking.artesanato.service.ResultadoItemLote;
+import com.starking.artesanato.utils.ConstantesUtils;
+
+/**
+ * Pipeline da importação em três estágios, todos com memória limitada:
+ * <ol>
+ * <li>a thread da requisição lê o CSV e agrupa os registros em partes;</li>
+ * <li>um pool pequeno converte e valida cada parte. A fila do pool é curta e,
+ * cheia, a própria thread leitora valida a parte, o que a impede de ler
+ * adiante;</li>
+ * <li>uma única thread grava as partes válidas, tiradas de uma fila também
+ * limitada. Com a fila cheia os validadores esperam, e a leitura com eles.</li>
+ * </ol>
+ * Assim a memória fica presa a algumas partes, qualquer que seja o tamanho do
+ * arquivo. No PostgreSQL a gravação usa COPY; nas demais bases, inserts em lote
+ * pelo {@link LotePecasService}.
+ */
+@Service
+public class ImportacaoPecasServiceImpl implements ImportacaoPecasService {
+
+	private static final Logger log = LoggerFactory.getLogger(ImportacaoPecasServiceImpl.class);
+
+	private static final List<LinhaValida> FIM = new ArrayList<>();
+
+	private static final long ESPERA_FILA_MS = 100;
+
+	private final PecaService pecaService;
+	private final LotePecasService loteService;
+	private final CopiaPecasPostgres copia;
+	private final Map<String, RelatorioImportacao> emAndamento = new ConcurrentHashMap<>();
+
+	@Value("${pecas.importacao.tamanho-parte:1000}")
+	private int tamanhoParte;
+
+	@Value("${pecas.importacao.validadores:2}")
+	private int validadores;
+
+	@Value("${pecas.importacao.partes-em-espera:4}")
+	private int partesEmEspera;
+
+	@Value("${pecas.importacao.maximo-rejeicoes-relatadas:1000}")
+	private int maximoRejeicoes;
+
+	public ImportacaoPecasServiceImpl(PecaService pecaService, LotePecasService loteService, CopiaPecasPostgres copia) {
+		this.pecaService = pecaService;
+		this.loteService = loteService;
+		this.copia = copia;
+	}
+
+	@Override
+	public RelatorioImportacao importar(InputStream csv) throws IOException {
+		RelatorioImportacao relatorio = new RelatorioImportacao(maximoRejeicoes);
+		BlockingQueue<List<LinhaValida>> fila = new ArrayBlockingQueue<>(partesEmEspera);
+		AtomicReference<Throwable> falha = new AtomicReference<>();
+
+		ThreadPoolExecutor validacao = new ThreadPoolExecutor(validadores, validadores, 0, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<>(validadores), threads("importacao-validacao-"), new ThreadPoolExecutor.CallerRunsPolicy());
+		ExecutorService gravacao = Executors.newSingleThreadExecutor(threads("importacao-gravacao-"));
+
+		emAndamento.put(relatorio.getId(), relatorio);
+		try(LeitorCsvPecas leitor = new LeitorCsvPecas(csv)) {
+			Future<?> gravador = gravacao.submit(() -> {
+				gravar(fila, relatorio);
+				return null;
+			});
+
+			List<LeitorCsvPecas.Registro> parte = new ArrayList<>(tamanhoParte);
+			LeitorCsvPecas.Registro registro;
+			while((registro = leitor.proxima()) != null && falha.get() == null && !gravador.isDone()) {
+				relatorio.lida();
+				parte.add(registro);
+				if(parte.size() == tamanhoParte) {
+					validar(validacao, leitor, parte, fila, gravador, relatorio, falha);
+					parte = new ArrayList<>(tamanhoParte);
+				}
+			}
+			if(!parte.isEmpty()) {
+				validar(validacao, leitor, parte, fila, gravador, relatorio, falha);
+			}
+
+			validacao.shutdown();
+			validacao.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+			enfileirar(fila, FIM, gravador);
+			gravador.get();
+			if(falha.get() != null) {
+				throw new IllegalStateException("Falha ao validar as peças importadas.", falha.get());
+			}
+		}catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Importação interrompida.", e);
+		}catch (ExecutionException e) {
+			throw new IllegalStateException("Falha ao gravar as peças importadas.", e.getCause());
+		}finally {
+			validacao.shutdownNow();
+			gravacao.shutdownNow();
+			relatorio.concluir();
+			emAndamento.remove(relatorio.getId());
+		}
+
+		log.info("Importação {} concluída: {} linhas lidas, {} gravadas, {} rejeitadas.",
+				relatorio.getId(), relatorio.getLidas(), relatorio.getGravadas(), relatorio.getRejeitadas());
+		return relatorio;
+	}
+
+	@Override
+	public Collection<RelatorioImportacao> emAndamento() {
+		return Collections.unmodifiableCollection(new ArrayList<>(emAndamento.values()));
+	}
+
+	private void validar(ThreadPoolExecutor validacao, LeitorCsvPecas leitor, List<LeitorCsvPecas.Registro> parte,
+			BlockingQueue<List<LinhaValida>> fila, Future<?> gravador, RelatorioImportacao relatorio,
+			AtomicReference<Throwable> falha) {
+		validacao.execute(() -> {
+			try {
+				List<LinhaValida> validas = new ArrayList<>(parte.size());
+				for(LeitorCsvPecas.Registro registro : parte) {
+					try {
+						Pecas pecas = leitor.converter(registro);
+						pecaService.validar(pecas);
+						validas.add(new LinhaValida(registro.linha, pecas));
+					}catch (RegraNegocioException e) {
+						relatorio.rejeitada(registro.linha, e.getMessage());
+					}
+				}
+				if(!validas.isEmpty()) {
+					enfileirar(fila, validas, gravador);
+				}
+			}catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				falha.compareAndSet(null, e);
+			}catch (RuntimeException e) {
+				falha.compareAndSet(null, e);
+			}
+		});
+	}
+
+	/**
+	 * Espera vaga na fila, desistindo se o gravador tiver terminado com erro,
+	 * para que os validadores não fiquem presos numa fila que ninguém consome.
+	 * O erro do gravador é devolvido depois pelo seu {@link Future}.
+	 */
+	private static boolean enfileirar(BlockingQueue<List<LinhaValida>> fila, List<LinhaValida> parte, Future<?> gravador)
+			throws InterruptedException {
+		while(!fila.offer(parte, ESPERA_FILA_MS, TimeUnit.MILLISECONDS)) {
+			if(gravador.isDone()) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private void gravar(BlockingQueue<List<LinhaValida>> fila, RelatorioImportacao relatorio) throws InterruptedException {
+		boolean usarCopia = copia.isDisponivel();
+		List<LinhaValida> parte;
+		while((parte = fila.take()) != FIM) {
+			List<Pecas> pecas = new ArrayList<>(parte.size());
+			parte.forEach(linha -> pecas.add(linha.pecas));
+
+			List<ResultadoItemLote> resultados = usarCopia ? copiar(pecas) : loteService.importar(pecas);
+			int gravadas = 0;
+			for(int i = 0; i < resultados.size(); i++) {
+				if(resultados.get(i).isSucesso()) {
+					gravadas++;
+				}else {
+					relatorio.rejeitada(parte.get(i).linha, resultados.get(i).getErro());
+				}
+			}
+			relatorio.gravadas(gravadas);
+			log.debug("Importação {}: {} peças gravadas até a linha {}.",
+					relatorio.getId(), relatorio.getGravadas(), parte.get(parte.size() - 1).linha);
+		}
+	}
+
+	private List<ResultadoItemLote> copiar(List<Pecas> pecas) {
+		try {
+			return copia.gravar(pecas);
+		}catch (RuntimeException e) {
+			log.warn("Falha ao copiar uma parte de {} peças importadas.", pecas.size(), e);
+			List<ResultadoItemLote> resultados = new ArrayList<>(pecas.size());
+			for(int i = 0; i < pecas.size(); i++) {
+				resultados.add(ResultadoItemLote.falha(ConstantesUtils.FALHA_GRAVAR_LOTE));
+			}
+			return resultados;
+		}
+	}
+
+	private static ThreadFactory threads(String prefixo) {
+		AtomicInteger contador = new AtomicInteger();
+		return tarefa -> {
+			Thread thread = new Thread(tarefa, prefixo + contador.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		};
+	}
+
+	private static final class LinhaValida {
+
+		private final long linha;
+		private final Pecas pecas;
+
+		LinhaValida(long linha, Pecas pecas) {
+			this.linha = linha;
+			this.pecas = pecas;
+		}
+	}
+
+}
@@ -0,0 +1,276 @@
+package com.starking.artesanato.service.impl;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.starking.artesanato.model.repository.PecasRepository;
+import com.starking.artesanato.service.evento.AlteracaoPeca;
+import com.starking.artesanato.service.evento.PecasAlteradasEvent;
+import com.starking.artesanato.service.evento.SituacaoPeca;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Busca por trecho da descrição sem passar pelo {@code like '%x%'} do banco,
+ * que nenhum índice B-tree atende. Mantém um {@link IndiceTrigramas} por
+ * usuário num cache limitado pelo total de peças indexadas
+ * ({@code pecas.indice.maximo-pecas}); o usuário despejado é recarregado do
+ * banco na próxima busca. Na inicialização a tabela é lida uma vez, em
+ * streaming, até preencher o limite, e depois cada gravação atualiza o índice
+ * após o commit. Usuários com mais peças que o limite ficam marcados por
+ * {@code pecas.indice.usuarios-grandes.ttl-segundos} e vão direto ao banco,
+ * sem recontar a cada busca.
+ * <p>
+ * Os eventos só chegam das gravações desta instância. Com várias instâncias,
+ * cada índice expira {@code pecas.indice.ttl-segundos} depois de carregado,
+ * contados da carga e não da última alteração, e é relido do banco; esse é
+ * o atraso máximo para enxergar peças gravadas em outra instância.
+ */
+@Service
+public class IndiceDescricaoPecas {
+
+	private static final Logger log = LoggerFactory.getLogger(IndiceDescricaoPecas.class);
+
+	private final PecasRepository repository;
+	private final TransactionTemplate transacaoLeitura;
+	private final long maximoPecas;
+	private final boolean carregarNaInicializacao;
+	private final Cache<Long, IndiceTrigramas> indices;
+	private final Cache<Long, Boolean> usuariosGrandes;
+
+	/** Cargas sob demanda em andamento, marcadas quando o usuário é alterado durante a leitura. */
+	private final ConcurrentMap<Long, Carga> cargas = new ConcurrentHashMap<>();
+
+	/** Usuários alterados enquanto a carga inicial lê a tabela; não nulo só durante a carga. */
+	private volatile Set<Long> alteradosDuranteCarga;
+
+	public IndiceDescricaoPecas(
+			PecasRepository repository,
+			PlatformTransactionManager transactionManager,
+			MeterRegistry meterRegistry,
+			@Value("${pecas.indice.maximo-pecas:1000000}") long maximoPecas,
+			@Value("${pecas.indice.carregar-na-inicializacao:true}") boolean carregarNaInicializacao,
+			@Value("${pecas.indice.usuarios-grandes.ttl-segundos:600}") long ttlUsuariosGrandes,
+			@Value("${pecas.indice.ttl-segundos:60}") long ttl) {
+		this.repository = repository;
+		this.transacaoLeitura = new TransactionTemplate(transactionManager);
+		this.transacaoLeitura.setReadOnly(true);
+		this.maximoPecas = maximoPecas;
+		this.carregarNaInicializacao = carregarNaInicializacao;
+		this.indices = Caffeine.newBuilder()
+				.maximumWeight(maximoPecas)
+				.<Long, IndiceTrigramas>weigher((idUsuario, indice) -> Math.max(1, indice.tamanho()))
+				.expireAfter(expirarAposCarga(TimeUnit.SECONDS.toNanos(ttl)))
+				.recordStats()
+				.build();
+		this.usuariosGrandes = Caffeine.newBuilder()
+				.maximumSize(10_000)
+				.expireAfterWrite(ttlUsuariosGrandes, TimeUnit.SECONDS)
+				.build();
+
+		CaffeineCacheMetrics.monitor(meterRegistry, indices, "pecas.indice");
+	}
+
+	/**
+	 * Ids das peças do usuário cuja descrição contém {@code trecho}, já
+	 * filtrados por ano e mês, em ordem crescente a partir de {@code aposId}.
+	 * Devolve {@code null} quando o usuário tem peças demais para o índice; nesse
+	 * caso a busca deve ir ao banco.
+	 */
+	public List<Long> buscarIds(Long idUsuario, String trecho, Integer ano, Integer mes, Long aposId, int limite) {
+		if (usuariosGrandes.getIfPresent(idUsuario) != null) {
+			return null;
+		}
+		IndiceTrigramas indice = indices.getIfPresent(idUsuario);
+		if (indice == null) {
+			indice = carregar(idUsuario);
+		}
+		return indice == null ? null : indice.buscar(trecho, ano, mes, aposId, limite);
+	}
+
+	@TransactionalEventListener(fallbackExecution = true)
+	public void pecasAlteradas(PecasAlteradasEvent evento) {
+		for (AlteracaoPeca alteracao : evento.getAlteracoes()) {
+			if (alteracao.isRemocao()) {
+				aplicar(alteracao.getAnterior(), true);
+			} else {
+				aplicar(alteracao.getAtual(), false);
+			}
+		}
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void carregar() {
+		if (!carregarNaInicializacao) {
+			return;
+		}
+		alteradosDuranteCarga = ConcurrentHashMap.newKeySet();
+		try {
+			long carregadas = transacaoLeitura.execute(status -> {
+				try (Stream<Object[]> linhas = repository.listarDescricoes()) {
+					return carregarTabela(linhas);
+				}
+			});
+			log.info("Índice de descrições carregado com {} peças.", carregadas);
+		} finally {
+			alteradosDuranteCarga = null;
+		}
+	}
+
+	/**
+	 * As linhas chegam agrupadas por usuário; cada índice é publicado quando o
+	 * próximo usuário começa. Ao atingir o limite a leitura para, e o usuário
+	 * incompleto fica para a carga sob demanda.
+	 */
+	private long carregarTabela(Stream<Object[]> linhas) {
+		long total = 0;
+		Long usuarioAtual = null;
+		IndiceTrigramas indiceAtual = null;
+
+		Iterator<Object[]> iterador = linhas.iterator();
+		while (iterador.hasNext()) {
+			Object[] linha = iterador.next();
+			Long idUsuario = (Long) linha[1];
+			if (!idUsuario.equals(usuarioAtual)) {
+				publicar(usuarioAtual, indiceAtual);
+				if (total >= maximoPecas) {
+					return total;
+				}
+				usuarioAtual = idUsuario;
+				indiceAtual = new IndiceTrigramas();
+			}
+			gravar(indiceAtual, linha);
+			total++;
+		}
+
+		publicar(usuarioAtual, indiceAtual);
+		return total;
+	}
+
+	/**
+	 * A verificação de {@link #alteradosDuranteCarga} fica dentro do compute:
+	 * uma alteração que chegue depois dela espera a publicação no
+	 * computeIfPresent do {@link #aplicar} e é aplicada ao índice publicado.
+	 */
+	private void publicar(Long idUsuario, IndiceTrigramas indice) {
+		if (idUsuario == null) {
+			return;
+		}
+		Set<Long> alterados = alteradosDuranteCarga;
+		indices.asMap().compute(idUsuario, (id, atual) ->
+				atual != null || alterados.contains(id) ? atual : indice);
+	}
+
+	/**
+	 * Lê o usuário do banco fora do cache, sem prender o bin do mapa durante a
+	 * consulta, e publica o índice só se nenhuma alteração dele chegou durante
+	 * a leitura; nesse caso a busca usa o índice lido e a próxima recarrega.
+	 * Só a primeira de duas cargas simultâneas do mesmo usuário publica.
+	 */
+	private IndiceTrigramas carregar(Long idUsuario) {
+		Carga carga = new Carga();
+		boolean publicar = cargas.putIfAbsent(idUsuario, carga) == null;
+		try {
+			IndiceTrigramas indice = carregarUsuario(idUsuario);
+			if (indice != null && publicar) {
+				indices.asMap().compute(idUsuario, (id, atual) -> atual != null || carga.alterado ? atual : indice);
+			}
+			return indice;
+		} finally {
+			if (publicar) {
+				cargas.remove(idUsuario, carga);
+			}
+		}
+	}
+
+	private IndiceTrigramas carregarUsuario(Long idUsuario) {
+		return transacaoLeitura.execute(status -> {
+			if (repository.countByUsuarioId(idUsuario) > maximoPecas) {
+				usuariosGrandes.put(idUsuario, Boolean.TRUE);
+				return null;
+			}
+			IndiceTrigramas indice = new IndiceTrigramas();
+			try (Stream<Object[]> linhas = repository.listarDescricoesPorUsuario(idUsuario)) {
+				linhas.forEach(linha -> gravar(indice, linha));
+			}
+			return indice;
+		});
+	}
+
+	/**
+	 * A carga em andamento do usuário é marcada antes do computeIfPresent, que
+	 * espera uma publicação já iniciada terminar; assim a alteração nunca se
+	 * perde entre a leitura do banco e a publicação do índice. Usuários fora do
+	 * cache são ignorados: serão lidos já com a alteração.
+	 */
+	private void aplicar(SituacaoPeca peca, boolean removida) {
+		if (peca == null || peca.getId() == null || peca.getIdUsuario() == null) {
+			return;
+		}
+		Set<Long> alterados = alteradosDuranteCarga;
+		if (alterados != null) {
+			alterados.add(peca.getIdUsuario());
+		}
+		Carga carga = cargas.get(peca.getIdUsuario());
+		if (carga != null) {
+			carga.alterado = true;
+		}
+		indices.asMap().computeIfPresent(peca.getIdUsuario(), (idUsuario, indice) -> {
+			if (removida) {
+				indice.remover(peca.getId());
+			} else {
+				indice.gravar(peca.getId(), peca.getDescricao(), peca.getAno(), peca.getMes());
+			}
+			return indice;
+		});
+	}
+
+	private static void gravar(IndiceTrigramas indice, Object[] linha) {
+		indice.gravar((Long) linha[0], (String) linha[2], (Integer) linha[3], (Integer) linha[4]);
+	}
+
+	/** Expira {@code nanos} depois da carga; as alterações aplicadas ao índice não renovam o prazo. */
+	private static Expiry<Long, IndiceTrigramas> expirarAposCarga(long nanos) {
+		return new Expiry<Long, IndiceTrigramas>() {
+			@Override
+			public long expireAfterCreate(Long idUsuario, IndiceTrigramas indice, long agora) {
+				return nanos;
+			}
+
+			@Override
+			public long expireAfterUpdate(Long idUsuario, IndiceTrigramas indice, long agora, long restante) {
+				return restante;
+			}
+
+			@Override
+			public long expireAfterRead(Long idUsuario, IndiceTrigramas indice, long agora, long restante) {
+				return restante;
+			}
+		};
+	}
+
+	private static final class Carga {
+
+		private volatile boolean alterado;
+	}
+
+}
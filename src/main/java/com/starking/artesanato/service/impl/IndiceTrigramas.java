@@ -0,0 +1,223 @@
+package com.starking.artesanato.service.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Índice invertido das descrições das peças de um único usuário. Cada
+ * trigrama da descrição em minúsculas aponta para a lista ordenada dos ids
+ * que o contêm; uma busca por trecho intersecta as listas dos trigramas do
+ * trecho, começando pela menor, e confirma cada candidato com
+ * {@link String#contains}, o mesmo resultado do {@code lower(descricao) like}.
+ * Trechos com menos de três caracteres percorrem as entradas em ordem de id.
+ */
+final class IndiceTrigramas {
+
+	private final TreeMap<Long, Entrada> entradas = new TreeMap<>();
+	private final Map<Long, ListaIds> postagens = new HashMap<>();
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+	void gravar(long id, String descricao, Integer ano, Integer mes) {
+		String normalizada = normalizar(descricao);
+		lock.writeLock().lock();
+		try {
+			Entrada anterior = entradas.put(id, new Entrada(normalizada, ano, mes));
+			if (anterior != null) {
+				if (anterior.descricao.equals(normalizada)) {
+					return;
+				}
+				for (long trigrama : trigramas(anterior.descricao)) {
+					removerPostagem(trigrama, id);
+				}
+			}
+			for (long trigrama : trigramas(normalizada)) {
+				postagens.computeIfAbsent(trigrama, t -> new ListaIds()).adicionar(id);
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	void remover(long id) {
+		lock.writeLock().lock();
+		try {
+			Entrada anterior = entradas.remove(id);
+			if (anterior != null) {
+				for (long trigrama : trigramas(anterior.descricao)) {
+					removerPostagem(trigrama, id);
+				}
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Ids, em ordem crescente e maiores que {@code aposId}, das peças cuja
+	 * descrição contém {@code trecho} sem diferenciar maiúsculas, filtrados
+	 * por ano e mês quando informados.
+	 */
+	List<Long> buscar(String trecho, Integer ano, Integer mes, Long aposId, int limite) {
+		String normalizado = normalizar(trecho);
+		long inicio = aposId == null ? Long.MIN_VALUE : aposId;
+		List<Long> encontrados = new ArrayList<>(Math.min(limite, 64));
+
+		lock.readLock().lock();
+		try {
+			Set<Long> trigramas = trigramas(normalizado);
+			if (trigramas.isEmpty()) {
+				for (Map.Entry<Long, Entrada> entrada : entradas.tailMap(inicio, false).entrySet()) {
+					if (entrada.getValue().atende(normalizado, ano, mes)) {
+						encontrados.add(entrada.getKey());
+						if (encontrados.size() == limite) {
+							break;
+						}
+					}
+				}
+				return encontrados;
+			}
+
+			ListaIds[] listas = new ListaIds[trigramas.size()];
+			int i = 0;
+			for (long trigrama : trigramas) {
+				ListaIds lista = postagens.get(trigrama);
+				if (lista == null) {
+					return Collections.emptyList();
+				}
+				listas[i++] = lista;
+			}
+			Arrays.sort(listas, (a, b) -> Integer.compare(a.tamanho, b.tamanho));
+
+			ListaIds menor = listas[0];
+			for (int p = menor.posicaoApos(inicio); p < menor.tamanho; p++) {
+				long id = menor.ids[p];
+				if (!contidoEmTodas(listas, id)) {
+					continue;
+				}
+				if (entradas.get(id).atende(normalizado, ano, mes)) {
+					encontrados.add(id);
+					if (encontrados.size() == limite) {
+						break;
+					}
+				}
+			}
+			return encontrados;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	int tamanho() {
+		lock.readLock().lock();
+		try {
+			return entradas.size();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	static String normalizar(String texto) {
+		return texto == null ? "" : texto.toLowerCase(Locale.ROOT);
+	}
+
+	/** Trigramas distintos do texto, cada um com três chars empacotados em um long. */
+	static Set<Long> trigramas(String texto) {
+		if (texto.length() < 3) {
+			return Collections.emptySet();
+		}
+		Set<Long> trigramas = new LinkedHashSet<>();
+		for (int i = 0; i + 3 <= texto.length(); i++) {
+			trigramas.add(((long) texto.charAt(i) << 32) | ((long) texto.charAt(i + 1) << 16) | texto.charAt(i + 2));
+		}
+		return trigramas;
+	}
+
+	private static boolean contidoEmTodas(ListaIds[] listas, long id) {
+		for (int i = 1; i < listas.length; i++) {
+			if (!listas[i].contem(id)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private void removerPostagem(long trigrama, long id) {
+		ListaIds lista = postagens.get(trigrama);
+		if (lista != null && lista.remover(id) && lista.tamanho == 0) {
+			postagens.remove(trigrama);
+		}
+	}
+
+	private static final class Entrada {
+
+		final String descricao;
+		final Integer ano;
+		final Integer mes;
+
+		Entrada(String descricao, Integer ano, Integer mes) {
+			this.descricao = descricao;
+			this.ano = ano;
+			this.mes = mes;
+		}
+
+		boolean atende(String trecho, Integer ano, Integer mes) {
+			return (ano == null || Objects.equals(ano, this.ano))
+					&& (mes == null || Objects.equals(mes, this.mes))
+					&& descricao.contains(trecho);
+		}
+	}
+
+	/**
+	 * Lista ordenada de ids sem boxing. Como os ids crescem, quase toda
+	 * inserção cai no fim do array.
+	 */
+	private static final class ListaIds {
+
+		long[] ids = new long[4];
+		int tamanho;
+
+		void adicionar(long id) {
+			int posicao = Arrays.binarySearch(ids, 0, tamanho, id);
+			if (posicao >= 0) {
+				return;
+			}
+			posicao = -posicao - 1;
+			if (tamanho == ids.length) {
+				ids = Arrays.copyOf(ids, tamanho + (tamanho >> 1) + 1);
+			}
+			System.arraycopy(ids, posicao, ids, posicao + 1, tamanho - posicao);
+			ids[posicao] = id;
+			tamanho++;
+		}
+
+		boolean remover(long id) {
+			int posicao = Arrays.binarySearch(ids, 0, tamanho, id);
+			if (posicao < 0) {
+				return false;
+			}
+			System.arraycopy(ids, posicao + 1, ids, posicao, tamanho - posicao - 1);
+			tamanho--;
+			return true;
+		}
+
+		boolean contem(long id) {
+			return Arrays.binarySearch(ids, 0, tamanho, id) >= 0;
+		}
+
+		int posicaoApos(long id) {
+			int posicao = Arrays.binarySearch(ids, 0, tamanho, id);
+			return posicao >= 0 ? posicao + 1 : -posicao - 1;
+		}
+	}
+}
@@ -1,40 +1,92 @@
 package com.starking.artesanato.service.impl;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.Instant;
-import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.Base64;
 import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
 
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import com.starking.artesanato.model.entity.Usuario;
 import com.starking.artesanato.service.JwtService;
+import com.starking.artesanato.service.TokenVerificado;
 
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 
 @Service
 public class JwtServiceImpl implements JwtService {
 	
+	private static final DateTimeFormatter FORMATO_HORA_EXPIRACAO = DateTimeFormatter
+			.ofPattern("HH:mm")
+			.withZone(ZoneId.systemDefault());
+	
 	@Value("${jwt.expiracao}")
-	private String expiracao;
+	private long expiracao;
 	
 	@Value("${jwt.chave-assinatura}")
 	private String chaveAssinatura;
+	
+	@Value("${jwt.cache.tamanho-maximo:10000}")
+	private long tamanhoMaximoCache;
+	
+	private final MeterRegistry meterRegistry;
+	
+	private byte[] chave;
+	private JwtParser parser;
+	private JwtVerificador verificador;
+	
+	/**
+	 * Claims já verificadas, indexadas pelo SHA-256 do token. Cada entrada vive
+	 * até o "exp" do próprio token, de modo que um token repetido não passa de
+	 * novo pela verificação HS512 nem pelo parse do JSON.
+	 */
+	private Cache<String, TokenVerificado> cacheClaims;
+	
+	private final ThreadLocal<MessageDigest> sha256 = ThreadLocal.withInitial(JwtServiceImpl::criarSha256);
+	
+	public JwtServiceImpl(MeterRegistry meterRegistry) {
+		this.meterRegistry = meterRegistry;
+	}
+	
+	@PostConstruct
+	public void iniciar() {
+		this.chave = Base64.getDecoder().decode(chaveAssinatura);
+		this.parser = Jwts.parser().setSigningKey(chave);
+		this.verificador = new JwtVerificador(chave);
+		
+		this.cacheClaims = Caffeine.newBuilder()
+				.maximumSize(tamanhoMaximoCache)
+				.expireAfter(new ExpiracaoDoToken())
+				.recordStats()
+				.build();
+		
+		CaffeineCacheMetrics.monitor(meterRegistry, cacheClaims, "jwt.claims");
+	}
 
 	@Override
 	public String gerarToken(Usuario usuario) {
-		long exp = Long.valueOf(expiracao);
-		LocalDateTime dataHoraExpiracao = LocalDateTime.now().plusMinutes(exp);
-		Instant instant = dataHoraExpiracao.atZone( ZoneId.systemDefault() ).toInstant();
+		Instant instant = Instant.now().plus(expiracao, ChronoUnit.MINUTES);
 		java.util.Date data = Date.from(instant);
 		
-		String horaExpiracaoToken = dataHoraExpiracao.toLocalTime()
-				.format(DateTimeFormatter.ofPattern("HH:mm"));
+		String horaExpiracaoToken = FORMATO_HORA_EXPIRACAO.format(instant);
 		
 		String token = Jwts
 							.builder()
@@ -43,7 +95,7 @@ public class JwtServiceImpl implements JwtService {
 							.claim("userid", usuario.getId())
 							.claim("nome", usuario.getNome())
 							.claim("horaExpiracao", horaExpiracaoToken)
-							.signWith( SignatureAlgorithm.HS512 , chaveAssinatura )
+							.signWith( SignatureAlgorithm.HS512 , chave )
 							.compact();
 		
 		return token;
@@ -51,22 +103,14 @@ public class JwtServiceImpl implements JwtService {
 
 	@Override
 	public Claims obterClaims(String token) throws ExpiredJwtException {
-		return Jwts
-				.parser()
-				.setSigningKey(chaveAssinatura)
-				.parseClaimsJws(token)
-				.getBody();
+		return parser.parseClaimsJws(token).getBody();
 	}
 
 	@Override
 	public boolean isTokenValido(String token) {
 		try {
-			Claims claims = obterClaims(token);
-			java.util.Date dataEx = claims.getExpiration();
-			LocalDateTime dataExpiracao = dataEx.toInstant()
-					.atZone(ZoneId.systemDefault()).toLocalDateTime();
-			boolean dataHoraAtualIsAfterDataExpiracao = LocalDateTime.now().isAfter(dataExpiracao);
-			return !dataHoraAtualIsAfterDataExpiracao;
+			TokenVerificado tokenVerificado = obterTokenVerificado(token);
+			return !tokenVerificado.isExpirado(System.currentTimeMillis());
 		}catch(ExpiredJwtException e) {
 			return false;
 		}
@@ -74,8 +118,58 @@ public class JwtServiceImpl implements JwtService {
 
 	@Override
 	public String obterLoginUsuario(String token) {
+		return obterTokenVerificado(token).getLogin();
+	}
+	
+	@Override
+	public TokenVerificado obterTokenVerificado(String token) {
+		return cacheClaims.get(digest(token), chave -> verificar(token));
+	}
+	
+	private TokenVerificado verificar(String token) {
+		TokenVerificado tokenVerificado = verificador.verificar(token);
+		if (tokenVerificado != null) {
+			return tokenVerificado;
+		}
+		
 		Claims claims = obterClaims(token);
-		return claims.getSubject();
+		return new TokenVerificado(
+				claims.getSubject(),
+				claims.get("userid", Long.class),
+				claims.get("nome", String.class),
+				claims.getExpiration().getTime() / 1000);
+	}
+	
+	private String digest(String token) {
+		byte[] hash = sha256.get().digest(token.getBytes(StandardCharsets.US_ASCII));
+		return Base64.getEncoder().encodeToString(hash);
+	}
+	
+	private static MessageDigest criarSha256() {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+	
+	private static class ExpiracaoDoToken implements Expiry<String, TokenVerificado> {
+		
+		@Override
+		public long expireAfterCreate(String chave, TokenVerificado token, long currentTime) {
+			long restanteMillis = token.getExpiracao() * 1000 - System.currentTimeMillis();
+			return TimeUnit.MILLISECONDS.toNanos(Math.max(0, restanteMillis));
+		}
+		
+		@Override
+		public long expireAfterUpdate(String chave, TokenVerificado token, long currentTime, long currentDuration) {
+			return currentDuration;
+		}
+		
+		@Override
+		public long expireAfterRead(String chave, TokenVerificado token, long currentTime, long currentDuration) {
+			return currentDuration;
+		}
 	}
 
 }
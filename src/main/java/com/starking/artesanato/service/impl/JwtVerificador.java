@@ -0,0 +1,210 @@
+package com.starking.artesanato.service.impl;
+
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+import java.util.Arrays;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.starking.artesanato.service.TokenVerificado;
+
+import io.jsonwebtoken.MalformedJwtException;
+import io.jsonwebtoken.SignatureException;
+
+/**
+ * Verificação HS512 dos tokens emitidos por {@link JwtServiceImpl} sem passar
+ * pelo parser do jjwt. A chave é decodificada uma única vez, cada thread reusa
+ * o seu {@link Mac} e os buffers de trabalho, a assinatura é comparada em tempo
+ * constante sobre os bytes crus e do payload só são lidos "sub", "exp", "userid"
+ * e "nome".
+ */
+public class JwtVerificador {
+
+	/** {"alg":"HS512"} em base64url, exatamente como o jjwt gera o cabeçalho. */
+	static final String CABECALHO_HS512 = "eyJhbGciOiJIUzUxMiJ9";
+
+	private static final String ALGORITMO = "HmacSHA512";
+	private static final int TAMANHO_ASSINATURA = 64;
+	private static final JsonFactory JSON = new JsonFactory();
+	private static final byte[] BASE64URL = new byte[128];
+
+	static {
+		Arrays.fill(BASE64URL, (byte) -1);
+		String alfabeto = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_";
+		for (int i = 0; i < alfabeto.length(); i++) {
+			BASE64URL[alfabeto.charAt(i)] = (byte) i;
+		}
+	}
+
+	private final SecretKeySpec chave;
+	private final ThreadLocal<Contexto> contextos;
+
+	public JwtVerificador(byte[] chaveAssinatura) {
+		this.chave = new SecretKeySpec(chaveAssinatura, ALGORITMO);
+		this.contextos = ThreadLocal.withInitial(() -> new Contexto(criarMac()));
+	}
+
+	/**
+	 * Verifica a assinatura e extrai as claims usadas na autenticação.
+	 *
+	 * @return {@code null} quando o cabeçalho não é o HS512 gerado por esta
+	 *         aplicação; o chamador deve então recorrer ao parser completo.
+	 * @throws MalformedJwtException quando o token não tem o formato esperado.
+	 * @throws SignatureException quando a assinatura não confere.
+	 */
+	public TokenVerificado verificar(String token) {
+		int primeiroPonto = token.indexOf('.');
+		if (primeiroPonto != CABECALHO_HS512.length() || !token.startsWith(CABECALHO_HS512)) {
+			return null;
+		}
+
+		int segundoPonto = token.indexOf('.', primeiroPonto + 1);
+		if (segundoPonto < 0 || token.indexOf('.', segundoPonto + 1) >= 0) {
+			throw new MalformedJwtException("JWT deve conter exatamente 2 pontos.");
+		}
+
+		Contexto contexto = contextos.get();
+
+		byte[] conteudo = contexto.conteudo(segundoPonto);
+		for (int i = 0; i < segundoPonto; i++) {
+			conteudo[i] = (byte) token.charAt(i);
+		}
+
+		int tamanhoRecebida = decodificar(token, segundoPonto + 1, token.length(), contexto.recebida);
+		if (tamanhoRecebida != TAMANHO_ASSINATURA) {
+			throw new SignatureException("Assinatura JWT inválida.");
+		}
+
+		Mac mac = contexto.mac;
+		mac.update(conteudo, 0, segundoPonto);
+		try {
+			mac.doFinal(contexto.calculada, 0);
+		} catch (GeneralSecurityException e) {
+			throw new IllegalStateException(e);
+		}
+
+		if (!iguaisEmTempoConstante(contexto.calculada, contexto.recebida)) {
+			throw new SignatureException("Assinatura JWT não confere com a calculada localmente.");
+		}
+
+		byte[] payload = contexto.payload(segundoPonto - primeiroPonto);
+		int tamanhoPayload = decodificar(token, primeiroPonto + 1, segundoPonto, payload);
+		if (tamanhoPayload < 0) {
+			throw new MalformedJwtException("Payload JWT não está em base64url.");
+		}
+		return lerClaims(payload, tamanhoPayload);
+	}
+
+	private static TokenVerificado lerClaims(byte[] payload, int tamanho) {
+		String login = null;
+		Long idUsuario = null;
+		String nome = null;
+		Long expiracao = null;
+
+		try (JsonParser parser = JSON.createParser(payload, 0, tamanho)) {
+			if (parser.nextToken() != JsonToken.START_OBJECT) {
+				throw new MalformedJwtException("Payload JWT não é um objeto JSON.");
+			}
+			while (parser.nextToken() == JsonToken.FIELD_NAME) {
+				String campo = parser.getCurrentName();
+				JsonToken valor = parser.nextToken();
+				if ("sub".equals(campo)) {
+					login = parser.getValueAsString();
+				} else if ("exp".equals(campo) && valor == JsonToken.VALUE_NUMBER_INT) {
+					expiracao = parser.getLongValue();
+				} else if ("userid".equals(campo) && valor == JsonToken.VALUE_NUMBER_INT) {
+					idUsuario = parser.getLongValue();
+				} else if ("nome".equals(campo)) {
+					nome = parser.getValueAsString();
+				} else {
+					parser.skipChildren();
+				}
+			}
+		} catch (IOException e) {
+			throw new MalformedJwtException("Payload JWT inválido.", e);
+		}
+
+		if (expiracao == null) {
+			throw new MalformedJwtException("Token sem a claim exp.");
+		}
+		return new TokenVerificado(login, idUsuario, nome, expiracao);
+	}
+
+	/**
+	 * Decodifica base64url sem padding de {@code texto[inicio, fim)} para
+	 * {@code destino}, devolvendo quantos bytes foram escritos ou -1 se o
+	 * trecho não couber ou não for base64url válido.
+	 */
+	private static int decodificar(String texto, int inicio, int fim, byte[] destino) {
+		int escritos = 0;
+		int acumulado = 0;
+		int bits = 0;
+		for (int i = inicio; i < fim; i++) {
+			char c = texto.charAt(i);
+			int valor = c < 128 ? BASE64URL[c] : -1;
+			if (valor < 0) {
+				return -1;
+			}
+			acumulado = (acumulado << 6) | valor;
+			bits += 6;
+			if (bits >= 8) {
+				bits -= 8;
+				if (escritos == destino.length) {
+					return -1;
+				}
+				destino[escritos++] = (byte) (acumulado >> bits);
+			}
+		}
+		return escritos;
+	}
+
+	private static boolean iguaisEmTempoConstante(byte[] a, byte[] b) {
+		int diferenca = 0;
+		for (int i = 0; i < TAMANHO_ASSINATURA; i++) {
+			diferenca |= a[i] ^ b[i];
+		}
+		return diferenca == 0;
+	}
+
+	private Mac criarMac() {
+		try {
+			Mac mac = Mac.getInstance(ALGORITMO);
+			mac.init(chave);
+			return mac;
+		} catch (GeneralSecurityException e) {
+			throw new IllegalStateException("Não foi possível inicializar o HMAC-SHA512.", e);
+		}
+	}
+
+	private static final class Contexto {
+
+		private final Mac mac;
+		private final byte[] calculada = new byte[TAMANHO_ASSINATURA];
+		private final byte[] recebida = new byte[TAMANHO_ASSINATURA];
+		private byte[] conteudo = new byte[512];
+		private byte[] payload = new byte[384];
+
+		private Contexto(Mac mac) {
+			this.mac = mac;
+		}
+
+		private byte[] conteudo(int tamanho) {
+			if (conteudo.length < tamanho) {
+				conteudo = new byte[tamanho];
+			}
+			return conteudo;
+		}
+
+		private byte[] payload(int tamanhoBase64) {
+			int tamanho = tamanhoBase64 * 3 / 4 + 1;
+			if (payload.length < tamanho) {
+				payload = new byte[tamanho];
+			}
+			return payload;
+		}
+	}
+}
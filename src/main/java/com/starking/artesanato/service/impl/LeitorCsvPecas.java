@@ -0,0 +1,190 @@
+package com.starking.artesanato.service.impl;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import com.starking.artesanato.exception.RegraNegocioException;
+import com.starking.artesanato.model.entity.Pecas;
+import com.starking.artesanato.model.entity.Usuario;
+import com.starking.artesanato.model.enums.StatusPagamento;
+import com.starking.artesanato.model.enums.TipoPagamento;
+import com.starking.artesanato.utils.ConstantesUtils;
+
+/**
+ * Lê um CSV de peças registro a registro. As colunas são localizadas pelo
+ * cabeçalho, então a ordem é livre e colunas extras (como o id da exportação)
+ * são ignoradas. Campos entre aspas podem conter vírgulas, aspas duplicadas e
+ * quebras de linha.
+ * <p>
+ * A leitura ({@link #proxima()}) é sequencial; a conversão
+ * ({@link #converter(Registro)}) não guarda estado e pode rodar em várias
+ * threads.
+ */
+final class LeitorCsvPecas implements Closeable {
+
+	static final String[] COLUNAS_OBRIGATORIAS = { "descricao", "mes", "ano", "valor", "tipo", "usuario" };
+
+	static final class Registro {
+
+		final long linha;
+		final List<String> campos;
+
+		Registro(long linha, List<String> campos) {
+			this.linha = linha;
+			this.campos = campos;
+		}
+	}
+
+	private final BufferedReader leitor;
+	private final Map<String, Integer> colunas = new HashMap<>();
+	private long linhaAtual;
+
+	LeitorCsvPecas(InputStream entrada) throws IOException {
+		this.leitor = new BufferedReader(new InputStreamReader(entrada, StandardCharsets.UTF_8), 64 * 1024);
+
+		Registro cabecalho = proxima();
+		if (cabecalho == null) {
+			throw new RegraNegocioException(ConstantesUtils.CABECALHO_IMPORTACAO_INVALIDO);
+		}
+		for (int i = 0; i < cabecalho.campos.size(); i++) {
+			colunas.put(cabecalho.campos.get(i).trim().toLowerCase(Locale.ROOT), i);
+		}
+		for (String coluna : COLUNAS_OBRIGATORIAS) {
+			if (!colunas.containsKey(coluna)) {
+				throw new RegraNegocioException(ConstantesUtils.CABECALHO_IMPORTACAO_INVALIDO);
+			}
+		}
+	}
+
+	/** Próximo registro, ou {@code null} no fim do arquivo. Linhas em branco são puladas. */
+	Registro proxima() throws IOException {
+		String linha;
+		do {
+			linha = leitor.readLine();
+			linhaAtual++;
+			if (linha == null) {
+				return null;
+			}
+		} while (linha.isEmpty());
+
+		long inicio = linhaAtual;
+		List<String> campos = new ArrayList<>();
+		StringBuilder campo = new StringBuilder();
+		boolean entreAspas = false;
+
+		while (true) {
+			for (int i = 0; i < linha.length(); i++) {
+				char c = linha.charAt(i);
+				if (entreAspas) {
+					if (c == '"' && i + 1 < linha.length() && linha.charAt(i + 1) == '"') {
+						campo.append('"');
+						i++;
+					} else if (c == '"') {
+						entreAspas = false;
+					} else {
+						campo.append(c);
+					}
+				} else if (c == '"') {
+					entreAspas = true;
+				} else if (c == ',') {
+					campos.add(campo.toString());
+					campo.setLength(0);
+				} else {
+					campo.append(c);
+				}
+			}
+			if (!entreAspas) {
+				break;
+			}
+			linha = leitor.readLine();
+			linhaAtual++;
+			if (linha == null) {
+				break;
+			}
+			campo.append('\n');
+		}
+		campos.add(campo.toString());
+		return new Registro(inicio, campos);
+	}
+
+	/**
+	 * Converte o registro numa peça com o usuário preenchido só pelo id.
+	 *
+	 * @throws RegraNegocioException se algum campo não puder ser convertido
+	 */
+	Pecas converter(Registro registro) {
+		Pecas pecas = new Pecas();
+		pecas.setDescricao(campo(registro, "descricao"));
+		pecas.setMes(inteiro(registro, "mes", ConstantesUtils.MES_VALIDO));
+		pecas.setAno(inteiro(registro, "ano", ConstantesUtils.ANO_VALIDO));
+
+		String valor = campo(registro, "valor");
+		try {
+			pecas.setValor(valor == null ? null : new BigDecimal(valor.trim()));
+		} catch (NumberFormatException e) {
+			throw new RegraNegocioException(ConstantesUtils.INFORME_VALOR);
+		}
+
+		Long idUsuario = longo(registro, "usuario", ConstantesUtils.INFORME_USUARIO);
+		if (idUsuario != null) {
+			pecas.setUsuario(Usuario.builder().id(idUsuario).build());
+		}
+
+		String tipo = campo(registro, "tipo");
+		String status = campo(registro, "status");
+		try {
+			pecas.setTipo(tipo == null ? null : TipoPagamento.valueOf(tipo.trim().toUpperCase(Locale.ROOT)));
+		} catch (IllegalArgumentException e) {
+			throw new RegraNegocioException(ConstantesUtils.INFORME_PECAS);
+		}
+		try {
+			pecas.setStatus(status == null ? null : StatusPagamento.valueOf(status.trim().toUpperCase(Locale.ROOT)));
+		} catch (IllegalArgumentException e) {
+			throw new RegraNegocioException(ConstantesUtils.ATUALIZAR_STATUS_PECA);
+		}
+		return pecas;
+	}
+
+	@Override
+	public void close() throws IOException {
+		leitor.close();
+	}
+
+	private String campo(Registro registro, String coluna) {
+		Integer indice = colunas.get(coluna);
+		if (indice == null || indice >= registro.campos.size()) {
+			return null;
+		}
+		String valor = registro.campos.get(indice);
+		return valor.isEmpty() ? null : valor;
+	}
+
+	private Integer inteiro(Registro registro, String coluna, String erro) {
+		String valor = campo(registro, coluna);
+		try {
+			// fora da faixa do Integer também é inválido, em vez de truncar o long
+			return valor == null ? null : Integer.valueOf(valor.trim());
+		} catch (NumberFormatException e) {
+			throw new RegraNegocioException(erro);
+		}
+	}
+
+	private Long longo(Registro registro, String coluna, String erro) {
+		String valor = campo(registro, coluna);
+		try {
+			return valor == null ? null : Long.valueOf(valor.trim());
+		} catch (NumberFormatException e) {
+			throw new RegraNegocioException(erro);
+		}
+	}
+}
@@ -0,0 +1,147 @@
+package com.starking.artesanato.service.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.starking.artesanato.exception.RegraNegocioException;
+import com.starking.artesanato.model.entity.Pecas;
+import com.starking.artesanato.model.entity.Usuario;
+import com.starking.artesanato.model.enums.StatusPagamento;
+import com.starking.artesanato.model.repository.UsuarioRepository;
+import com.starking.artesanato.service.LotePecasService;
+import com.starking.artesanato.service.PecaService;
+import com.starking.artesanato.service.ResultadoItemLote;
+import com.starking.artesanato.service.evento.AlteracaoPeca;
+import com.starking.artesanato.service.evento.PecasAlteradasEvent;
+import com.starking.artesanato.service.evento.SituacaoPeca;
+import com.starking.artesanato.utils.ConstantesUtils;
+
+@Service
+public class LotePecasServiceImpl implements LotePecasService {
+	
+	private static final Logger log = LoggerFactory.getLogger(LotePecasServiceImpl.class);
+	
+	@PersistenceContext
+	private EntityManager entityManager;
+	
+	private PecaService pecaService;
+	private UsuarioRepository usuarioRepository;
+	private ApplicationEventPublisher publisher;
+	private TransactionTemplate transacao;
+	
+	@Value("${pecas.lote.tamanho:500}")
+	private int tamanhoParte;
+	
+	public LotePecasServiceImpl(
+			PecaService pecaService,
+			UsuarioRepository usuarioRepository,
+			ApplicationEventPublisher publisher,
+			PlatformTransactionManager transactionManager) {
+		this.pecaService = pecaService;
+		this.usuarioRepository = usuarioRepository;
+		this.publisher = publisher;
+		this.transacao = new TransactionTemplate(transactionManager);
+	}
+
+	@Override
+	public List<ResultadoItemLote> salvar(List<Pecas> pecas) {
+		return gravar(pecas, false);
+	}
+	
+	@Override
+	public List<ResultadoItemLote> importar(List<Pecas> pecas) {
+		return gravar(pecas, true);
+	}
+	
+	private List<ResultadoItemLote> gravar(List<Pecas> pecas, boolean manterStatus) {
+		List<ResultadoItemLote> resultados = new ArrayList<>(pecas.size());
+		
+		for(int inicio = 0; inicio < pecas.size(); inicio += tamanhoParte) {
+			List<Pecas> parte = pecas.subList(inicio, Math.min(inicio + tamanhoParte, pecas.size()));
+			try {
+				resultados.addAll(Arrays.asList(transacao.execute(status -> salvarParte(parte, manterStatus))));
+			}catch (RuntimeException e) {
+				log.warn("Falha ao gravar as peças {} a {} do lote.", inicio, inicio + parte.size() - 1, e);
+				for(int i = 0; i < parte.size(); i++) {
+					resultados.add(ResultadoItemLote.falha(ConstantesUtils.FALHA_GRAVAR_LOTE));
+				}
+			}
+		}
+		
+		return resultados;
+	}
+	
+	/**
+	 * Consulta cada usuário distinto da parte uma única vez, persiste as peças
+	 * válidas e faz um único flush, que o Hibernate envia em lotes JDBC. O
+	 * contexto de persistência é limpo em seguida para não crescer com o lote.
+	 */
+	private ResultadoItemLote[] salvarParte(List<Pecas> parte, boolean manterStatus) {
+		ResultadoItemLote[] resultados = new ResultadoItemLote[parte.size()];
+		Map<Long, Usuario> usuarios = buscarUsuarios(parte);
+		List<Pecas> gravadas = new ArrayList<>(parte.size());
+		
+		for(int i = 0; i < parte.size(); i++) {
+			Pecas pecas = parte.get(i);
+			try {
+				Long idUsuario = pecas.getUsuario() == null ? null : pecas.getUsuario().getId();
+				if(idUsuario != null) {
+					Usuario usuario = usuarios.get(idUsuario);
+					if(usuario == null) {
+						throw new RegraNegocioException(ConstantesUtils.USUARIO_NAO_ENCONTRADO_ID);
+					}
+					pecas.setUsuario(usuario);
+				}
+				pecaService.validar(pecas);
+			}catch (RegraNegocioException e) {
+				resultados[i] = ResultadoItemLote.falha(e.getMessage());
+				continue;
+			}
+			
+			pecas.setId(null);
+			if(!manterStatus || pecas.getStatus() == null) {
+				pecas.setStatus(StatusPagamento.PENDENTE);
+			}
+			entityManager.persist(pecas);
+			gravadas.add(pecas);
+			resultados[i] = ResultadoItemLote.sucesso(pecas.getId());
+		}
+		
+		entityManager.flush();
+		publisher.publishEvent(new PecasAlteradasEvent(gravadas.stream()
+				.map(pecas -> new AlteracaoPeca(null, SituacaoPeca.de(pecas)))
+				.collect(Collectors.toList())));
+		entityManager.clear();
+		
+		return resultados;
+	}
+	
+	private Map<Long, Usuario> buscarUsuarios(List<Pecas> parte) {
+		Set<Long> ids = new HashSet<>();
+		for(Pecas pecas : parte) {
+			if(pecas.getUsuario() != null && pecas.getUsuario().getId() != null) {
+				ids.add(pecas.getUsuario().getId());
+			}
+		}
+		return usuarioRepository.findAllById(ids).stream()
+				.collect(Collectors.toMap(Usuario::getId, Function.identity()));
+	}
+
+}
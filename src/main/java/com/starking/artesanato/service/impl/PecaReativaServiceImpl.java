@@ -0,0 +1,60 @@
+package com.starking.artesanato.service.impl;
+
+import java.math.BigDecimal;
+import java.util.Objects;
+
+import com.starking.artesanato.model.entity.Pecas;
+import com.starking.artesanato.model.enums.StatusPagamento;
+import com.starking.artesanato.model.enums.TipoPagamento;
+import com.starking.artesanato.model.repository.PecasRepositoryReativo;
+import com.starking.artesanato.service.PecaReativaService;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * A busca por descrição vai sempre ao banco: o {@link IndiceDescricaoPecas}
+ * recarrega pelo JDBC o usuário que não está em memória, o que bloquearia a
+ * thread do event loop.
+ */
+public class PecaReativaServiceImpl implements PecaReativaService {
+
+	private final PecasRepositoryReativo repository;
+	private final int limitePadrao;
+	private final int limiteMaximo;
+
+	public PecaReativaServiceImpl(PecasRepositoryReativo repository, int limitePadrao, int limiteMaximo) {
+		this.repository = repository;
+		this.limitePadrao = limitePadrao;
+		this.limiteMaximo = limiteMaximo;
+	}
+
+	@Override
+	public Flux<Pecas> buscar(Pecas pecasFiltro, Long aposId, Integer limite) {
+		Objects.requireNonNull(pecasFiltro.getUsuario());
+		return repository.buscarPagina(pecasFiltro, aposId, tamanhoPagina(limite));
+	}
+
+	@Override
+	public int tamanhoPagina(Integer limite) {
+		return limite == null || limite < 1 ? limitePadrao : Math.min(limite, limiteMaximo);
+	}
+
+	@Override
+	public Mono<Pecas> obterPorId(Long id) {
+		return repository.obterPorId(id);
+	}
+
+	@Override
+	public Mono<Boolean> existeUsuario(Long idUsuario) {
+		return repository.existeUsuario(idUsuario);
+	}
+
+	@Override
+	public Mono<BigDecimal> obterSaldoPorUsuario(Long idUsuario) {
+		return repository.obterSaldoMaterializado(idUsuario)
+				.switchIfEmpty(Mono.defer(() ->
+					repository.obterSaldoEfetivado(idUsuario, TipoPagamento.CREDITO, StatusPagamento.EFETIVADO)))
+				.defaultIfEmpty(BigDecimal.ZERO);
+	}
+}
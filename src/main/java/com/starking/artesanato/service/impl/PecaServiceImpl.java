@@ -1,58 +1,135 @@
 package com.starking.artesanato.service.impl;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Example;
 import org.springframework.data.domain.ExampleMatcher;
 import org.springframework.data.domain.ExampleMatcher.StringMatcher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import com.starking.artesanato.api.dto.PecasDTO;
+import com.starking.artesanato.api.dto.RelatorioPecasDTO;
+import com.starking.artesanato.api.dto.ResumoPeriodoDTO;
+import com.starking.artesanato.exception.ConflitoException;
 import com.starking.artesanato.exception.RegraNegocioException;
+import com.starking.artesanato.model.entity.ChaveResumoMensal;
 import com.starking.artesanato.model.entity.Pecas;
+import com.starking.artesanato.model.entity.ResumoMensal;
 import com.starking.artesanato.model.enums.StatusPagamento;
 import com.starking.artesanato.model.enums.TipoPagamento;
 import com.starking.artesanato.model.repository.PecasRepository;
 import com.starking.artesanato.service.PecaService;
+import com.starking.artesanato.service.evento.AlteracaoPeca;
+import com.starking.artesanato.service.evento.PecasAlteradasEvent;
+import com.starking.artesanato.service.evento.SituacaoPeca;
 import com.starking.artesanato.utils.ConstantesUtils;
 
+import io.micrometer.core.annotation.Timed;
+
 @Service
 public class PecaServiceImpl implements PecaService {
 	
+	/** Status de onde cada status pode ser alcançado na mudança em lote. */
+	private static final Map<StatusPagamento, Set<StatusPagamento>> ORIGENS_PERMITIDAS = new EnumMap<>(StatusPagamento.class);
+	
+	static {
+		ORIGENS_PERMITIDAS.put(StatusPagamento.PENDENTE, EnumSet.noneOf(StatusPagamento.class));
+		ORIGENS_PERMITIDAS.put(StatusPagamento.EFETIVADO, EnumSet.of(StatusPagamento.PENDENTE));
+		ORIGENS_PERMITIDAS.put(StatusPagamento.CANCELADO, EnumSet.of(StatusPagamento.PENDENTE, StatusPagamento.EFETIVADO));
+	}
+	
 	private PecasRepository repository;
+	private ApplicationEventPublisher publisher;
+	private ObjectProvider<IndiceDescricaoPecas> indiceDescricao;
+	private ObjectProvider<SaldosMaterializados> saldos;
+	private ObjectProvider<ResumosMensais> resumos;
+	private TransactionTemplate transacaoLeitura;
+	
+	@Value("${pecas.paginacao.limite-padrao:100}")
+	private int limitePadrao;
+	
+	@Value("${pecas.paginacao.limite-maximo:1000}")
+	private int limiteMaximo;
+	
+	@Value("${saldo.lote.tamanho:1000}")
+	private int tamanhoLoteSaldos;
 	
-	public PecaServiceImpl(PecasRepository repository) {
+	@Value("${pecas.status.lote.tamanho:1000}")
+	private int tamanhoLoteStatus;
+	
+	public PecaServiceImpl(
+			PecasRepository repository,
+			ApplicationEventPublisher publisher,
+			ObjectProvider<IndiceDescricaoPecas> indiceDescricao,
+			ObjectProvider<SaldosMaterializados> saldos,
+			ObjectProvider<ResumosMensais> resumos,
+			PlatformTransactionManager transactionManager) {
 		this.repository = repository;
+		this.publisher = publisher;
+		this.indiceDescricao = indiceDescricao;
+		this.saldos = saldos;
+		this.resumos = resumos;
+		this.transacaoLeitura = new TransactionTemplate(transactionManager);
+		this.transacaoLeitura.setReadOnly(true);
 	}
 
 	@Override
 	@Transactional
+	@Timed("pecas.servico")
 	public Pecas salvar(Pecas pecas) {
 		validar(pecas);
 		pecas.setStatus(StatusPagamento.PENDENTE);
-		return this.repository.save(pecas);
+		Pecas pecaSalva = this.repository.save(pecas);
+		publisher.publishEvent(PecasAlteradasEvent.de(null, SituacaoPeca.de(pecaSalva)));
+		return pecaSalva;
 	}
 
 	@Override
 	@Transactional
+	@Timed("pecas.servico")
 	public Pecas atualizar(Pecas pecas) {
 		Objects.requireNonNull(pecas.getId());
 		validar(pecas);
-		return this.repository.save(pecas);
+		SituacaoPeca anterior = this.repository.obterSituacao(pecas.getId()).orElse(null);
+		Pecas pecaSalva = this.repository.save(pecas);
+		publisher.publishEvent(PecasAlteradasEvent.de(anterior, SituacaoPeca.de(pecaSalva)));
+		return pecaSalva;
 	}
 
 	@Override
 	@Transactional
 	public void deletar(Pecas pecas) {
 		Objects.requireNonNull(pecas.getId());
+		SituacaoPeca anterior = this.repository.obterSituacao(pecas.getId()).orElse(SituacaoPeca.de(pecas));
 		this.repository.delete(pecas);
+		publisher.publishEvent(PecasAlteradasEvent.de(anterior, null));
 	}
 
 	@Override
 	@Transactional(readOnly = true)
+	@Timed("pecas.servico")
 	public List<Pecas> buscar(Pecas lancamentoFiltro) {
 		Example<Pecas> example = Example.of( lancamentoFiltro, 
 				ExampleMatcher.matching()
@@ -61,13 +138,158 @@ public class PecaServiceImpl implements PecaService {
 		
 		return this.repository.findAll(example);
 	}
-
+	
+	@Override
+	@Transactional(readOnly = true)
+	@Timed("pecas.servico")
+	public List<PecasDTO> buscar(Pecas pecasFiltro, Long aposId, Integer limite) {
+		Objects.requireNonNull(pecasFiltro.getUsuario());
+		int tamanhoPagina = tamanhoPagina(limite);
+		
+		IndiceDescricaoPecas indice = indiceDescricao.getIfAvailable();
+		if(indice != null && pecasFiltro.getDescricao() != null && !pecasFiltro.getDescricao().isEmpty()) {
+			List<Long> ids = indice.buscarIds(pecasFiltro.getUsuario().getId(), pecasFiltro.getDescricao(),
+					pecasFiltro.getAno(), pecasFiltro.getMes(), aposId, tamanhoPagina);
+			if(ids != null) {
+				return ids.isEmpty() ? Collections.emptyList() : this.repository.obterDTOs(ids);
+			}
+		}
+		
+		return this.repository.buscarPagina(pecasFiltro, aposId, tamanhoPagina);
+	}
+	
+	@Override
+	public int tamanhoPagina(Integer limite) {
+		return limite == null || limite < 1 ? limitePadrao : Math.min(limite, limiteMaximo);
+	}
+	
 	@Override
+	@Transactional
 	public void atualizarStatus(Pecas pecas, StatusPagamento status) {
 		pecas.setStatus(status);
 		atualizar(pecas);
 	}
 
+	@Override
+	@Transactional
+	@Timed("pecas.servico")
+	public Optional<SituacaoPeca> atualizar(Long id, Pecas pecas, Long versao) {
+		pecas.setId(id);
+		validar(pecas);
+		Optional<SituacaoPeca> anterior = this.repository.obterSituacao(id)
+				.filter(situacao -> pecas.getUsuario().getId().equals(situacao.getIdUsuario()));
+		if(!anterior.isPresent()) {
+			return Optional.empty();
+		}
+		
+		Long versaoLida = versaoEsperada(anterior.get(), versao);
+		if(this.repository.atualizarNaVersao(pecas, versaoLida) == 0) {
+			throw new ConflitoException(ConstantesUtils.PECA_ALTERADA_CONCORRENTEMENTE);
+		}
+		
+		SituacaoPeca gravada = new SituacaoPeca(id, pecas.getUsuario().getId(), pecas.getDescricao(), pecas.getMes(),
+				pecas.getAno(), pecas.getValor(), pecas.getTipo(), pecas.getStatus(), versaoLida + 1);
+		publisher.publishEvent(PecasAlteradasEvent.de(anterior.get(), gravada));
+		return Optional.of(gravada);
+	}
+
+	@Override
+	@Transactional
+	@Timed("pecas.servico")
+	public Optional<SituacaoPeca> atualizarStatus(Long id, StatusPagamento status, Long versao) {
+		Optional<SituacaoPeca> anterior = this.repository.obterSituacao(id);
+		if(!anterior.isPresent()) {
+			return Optional.empty();
+		}
+		
+		if(this.repository.atualizarStatusNaVersao(id, status, versaoEsperada(anterior.get(), versao)) == 0) {
+			throw new ConflitoException(ConstantesUtils.PECA_ALTERADA_CONCORRENTEMENTE);
+		}
+		
+		SituacaoPeca gravada = anterior.get().comStatus(status);
+		publisher.publishEvent(PecasAlteradasEvent.de(anterior.get(), gravada));
+		return Optional.of(gravada);
+	}
+
+	@Override
+	@Transactional
+	@Timed("pecas.servico")
+	public Optional<SituacaoPeca> deletar(Long id, Long versao) {
+		Optional<SituacaoPeca> anterior = this.repository.obterSituacao(id);
+		if(!anterior.isPresent()) {
+			return Optional.empty();
+		}
+		
+		if(this.repository.deletarNaVersao(id, versaoEsperada(anterior.get(), versao)) == 0) {
+			throw new ConflitoException(ConstantesUtils.PECA_ALTERADA_CONCORRENTEMENTE);
+		}
+		
+		publisher.publishEvent(PecasAlteradasEvent.de(anterior.get(), null));
+		return anterior;
+	}
+	
+	/**
+	 * Versão em que a gravação deve encontrar a peça: a que o cliente leu ou,
+	 * sem ela, a lida agora. Em ambos os casos o evento publicado parte da
+	 * situação que o update de fato substituiu.
+	 */
+	private static Long versaoEsperada(SituacaoPeca anterior, Long versaoCliente) {
+		if(versaoCliente != null && !versaoCliente.equals(anterior.getVersao())) {
+			throw new ConflitoException(ConstantesUtils.PECA_ALTERADA_CONCORRENTEMENTE);
+		}
+		return anterior.getVersao();
+	}
+
+	@Override
+	@Transactional
+	public int atualizarStatus(Collection<Long> ids, Pecas filtro, StatusPagamento status) {
+		Set<StatusPagamento> origens = EnumSet.noneOf(StatusPagamento.class);
+		origens.addAll(ORIGENS_PERMITIDAS.get(status));
+		if(filtro != null && filtro.getStatus() != null) {
+			origens.retainAll(EnumSet.of(filtro.getStatus()));
+		}
+		if(origens.isEmpty()) {
+			throw new RegraNegocioException(ConstantesUtils.TRANSICAO_STATUS_INVALIDA);
+		}
+		
+		List<SituacaoPeca> anteriores = new ArrayList<>();
+		if(ids != null && !ids.isEmpty()) {
+			List<Long> distintos = new ArrayList<>(new LinkedHashSet<>(ids));
+			for(int inicio = 0; inicio < distintos.size(); inicio += tamanhoLoteStatus) {
+				anteriores.addAll(this.repository.obterSituacoes(
+						distintos.subList(inicio, Math.min(inicio + tamanhoLoteStatus, distintos.size())), origens));
+			}
+		}else {
+			if(filtro == null || filtro.getUsuario() == null || filtro.getUsuario().getId() == null) {
+				throw new RegraNegocioException(ConstantesUtils.INFORME_PECAS_OU_USUARIO);
+			}
+			anteriores = this.repository.buscarSituacoes(filtro, origens);
+		}
+		
+		// um update por status de origem, para que o where confira exatamente o status lido
+		Map<StatusPagamento, List<Long>> afetadasPorStatus = anteriores.stream().collect(
+				Collectors.groupingBy(SituacaoPeca::getStatus, Collectors.mapping(SituacaoPeca::getId, Collectors.toList())));
+		int atualizadas = 0;
+		for(Map.Entry<StatusPagamento, List<Long>> grupo : afetadasPorStatus.entrySet()) {
+			List<Long> afetadas = grupo.getValue();
+			for(int inicio = 0; inicio < afetadas.size(); inicio += tamanhoLoteStatus) {
+				atualizadas += this.repository.atualizarStatus(
+						afetadas.subList(inicio, Math.min(inicio + tamanhoLoteStatus, afetadas.size())),
+						status, EnumSet.of(grupo.getKey()));
+			}
+		}
+		
+		// outra transação mudou alguma peça entre a leitura e o update; desfaz tudo
+		if(atualizadas != anteriores.size()) {
+			throw new ConflitoException(ConstantesUtils.PECAS_ALTERADAS_CONCORRENTEMENTE);
+		}
+		
+		publisher.publishEvent(new PecasAlteradasEvent(anteriores.stream()
+				.map(anterior -> new AlteracaoPeca(anterior, anterior.comStatus(status)))
+				.collect(Collectors.toList())));
+		return atualizadas;
+	}
+
 	@Override
 	public void validar(Pecas pecas) {
 		
@@ -103,8 +325,24 @@ public class PecaServiceImpl implements PecaService {
 
 	@Override
 	@Transactional(readOnly = true)
+	@Timed("pecas.servico")
+	public Optional<PecasDTO> obterDTOPorId(Long id) {
+		return this.repository.obterDTO(id);
+	}
+
+	@Override
+	@Transactional(readOnly = true)
+	@Timed("pecas.servico")
 	public BigDecimal obterSaldoPorUsuario(Long id) {
 		
+		SaldosMaterializados saldosMaterializados = saldos.getIfAvailable();
+		if(saldosMaterializados != null) {
+			Optional<BigDecimal> saldo = saldosMaterializados.obterSaldo(id);
+			if(saldo.isPresent()) {
+				return saldo.get();
+			}
+		}
+		
 		BigDecimal credito = this.repository.obterSaldoPorTipoPecaEUsuarioEStatus(id, TipoPagamento.CREDITO, StatusPagamento.EFETIVADO);
 		BigDecimal pix = this.repository.obterSaldoPorTipoPecaEUsuarioEStatus(id, TipoPagamento.PIX, StatusPagamento.EFETIVADO);
 		
@@ -119,4 +357,120 @@ public class PecaServiceImpl implements PecaService {
 		return credito.subtract(pix);
 	}
 
+	/**
+	 * Sem transação no método: cada lote abre a sua, curta, e o consumidor
+	 * escreve a resposta com a conexão já devolvida ao pool, mesmo que o
+	 * cliente leia devagar.
+	 */
+	@Override
+	public void obterSaldosPorUsuarios(Collection<Long> idsUsuarios, BiConsumer<Long, BigDecimal> consumidor) {
+		List<Long> ids = new ArrayList<>(new LinkedHashSet<>(idsUsuarios));
+		
+		for(int inicio = 0; inicio < ids.size(); inicio += tamanhoLoteSaldos) {
+			List<Long> lote = ids.subList(inicio, Math.min(inicio + tamanhoLoteSaldos, ids.size()));
+			
+			Map<Long, BigDecimal> saldos = transacaoLeitura.execute(status -> {
+				Map<Long, BigDecimal> saldosLote = new HashMap<>();
+				for(Object[] linha : this.repository.obterSaldosEfetivadosPorUsuarios(lote, TipoPagamento.CREDITO, StatusPagamento.EFETIVADO)) {
+					saldosLote.put((Long) linha[0], (BigDecimal) linha[1]);
+				}
+				return saldosLote;
+			});
+			
+			for(Long id : lote) {
+				consumidor.accept(id, saldos.getOrDefault(id, BigDecimal.ZERO));
+			}
+		}
+	}
+
+	@Override
+	@Transactional(readOnly = true)
+	@Timed("pecas.servico")
+	public RelatorioPecasDTO obterRelatorio(Long idUsuario, Integer ano, Integer mesAte) {
+		if(ano == null || ano.toString().length() != 4) {
+			throw new RegraNegocioException(ConstantesUtils.ANO_VALIDO);
+		}
+		
+		LocalDate hoje = LocalDate.now();
+		if(mesAte == null) {
+			mesAte = ano == hoje.getYear() ? hoje.getMonthValue() : 12;
+		}
+		
+		if(mesAte < 1 || mesAte > 12) {
+			throw new RegraNegocioException(ConstantesUtils.MES_VALIDO);
+		}
+		
+		ResumosMensais resumosMensais = resumos.getIfAvailable();
+		List<ResumoMensal> linhas = resumosMensais == null ? null : resumosMensais.obterResumos(idUsuario).orElse(null);
+		if(linhas == null) {
+			linhas = this.repository.obterResumosMensais(idUsuario);
+		}
+		
+		BigDecimal saldoInicial = BigDecimal.ZERO;
+		List<ResumoPeriodoDTO> meses = new ArrayList<>();
+		for(int mes = 1; mes <= 12; mes++) {
+			meses.add(ResumoPeriodoDTO.builder().mes(mes).quantidade(0l).quantidadeEfetivadas(0l)
+					.creditos(BigDecimal.ZERO).pix(BigDecimal.ZERO).build());
+		}
+		
+		for(ResumoMensal linha : linhas) {
+			ChaveResumoMensal chave = linha.getChave();
+			boolean efetivada = chave.getStatus() == StatusPagamento.EFETIVADO;
+			if(chave.getAno() < ano) {
+				if(efetivada) {
+					saldoInicial = chave.getTipo() == TipoPagamento.CREDITO
+							? saldoInicial.add(linha.getTotal()) : saldoInicial.subtract(linha.getTotal());
+				}
+			}else if(chave.getAno().equals(ano) && chave.getMes() >= 1 && chave.getMes() <= 12) {
+				somar(meses.get(chave.getMes() - 1), linha);
+			}
+		}
+		
+		ResumoPeriodoDTO acumulado = ResumoPeriodoDTO.builder().quantidade(0l).quantidadeEfetivadas(0l)
+				.creditos(BigDecimal.ZERO).pix(BigDecimal.ZERO).saldo(BigDecimal.ZERO).saldoAcumulado(saldoInicial).build();
+		BigDecimal saldoAcumulado = saldoInicial;
+		for(ResumoPeriodoDTO periodo : meses) {
+			periodo.setSaldo(periodo.getCreditos().subtract(periodo.getPix()));
+			saldoAcumulado = saldoAcumulado.add(periodo.getSaldo());
+			periodo.setSaldoAcumulado(saldoAcumulado);
+			
+			if(periodo.getMes() <= mesAte) {
+				acumulado.setQuantidade(acumulado.getQuantidade() + periodo.getQuantidade());
+				acumulado.setQuantidadeEfetivadas(acumulado.getQuantidadeEfetivadas() + periodo.getQuantidadeEfetivadas());
+				acumulado.setCreditos(acumulado.getCreditos().add(periodo.getCreditos()));
+				acumulado.setPix(acumulado.getPix().add(periodo.getPix()));
+				acumulado.setSaldo(acumulado.getSaldo().add(periodo.getSaldo()));
+				acumulado.setSaldoAcumulado(saldoAcumulado);
+			}
+		}
+		
+		return RelatorioPecasDTO.builder()
+				.usuario(idUsuario)
+				.ano(ano)
+				.mesAte(mesAte)
+				.saldoInicial(saldoInicial)
+				.meses(meses)
+				.acumuladoAno(acumulado)
+				.build();
+	}
+	
+	private static void somar(ResumoPeriodoDTO periodo, ResumoMensal linha) {
+		periodo.setQuantidade(periodo.getQuantidade() + linha.getQuantidade());
+		if(linha.getChave().getStatus() != StatusPagamento.EFETIVADO) {
+			return;
+		}
+		periodo.setQuantidadeEfetivadas(periodo.getQuantidadeEfetivadas() + linha.getQuantidade());
+		if(linha.getChave().getTipo() == TipoPagamento.CREDITO) {
+			periodo.setCreditos(periodo.getCreditos().add(linha.getTotal()));
+		}else {
+			periodo.setPix(periodo.getPix().add(linha.getTotal()));
+		}
+	}
+
+	@Override
+	@Transactional(readOnly = true)
+	public void exportar(Long idUsuario, Consumer<Pecas> consumidor) {
+		this.repository.percorrerPorUsuario(idUsuario, consumidor);
+	}
+
 }
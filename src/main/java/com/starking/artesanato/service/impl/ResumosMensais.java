@@ -0,0 +1,240 @@
+package com.starking.artesanato.service.impl;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.starking.artesanato.model.entity.ChaveResumoMensal;
+import com.starking.artesanato.model.entity.ResumoMensal;
+import com.starking.artesanato.model.repository.PecasRepository;
+import com.starking.artesanato.model.repository.ResumoMensalRepository;
+import com.starking.artesanato.service.evento.AlteracaoPeca;
+import com.starking.artesanato.service.evento.PecasAlteradasEvent;
+import com.starking.artesanato.service.evento.SituacaoPeca;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Mantém a tabela resumo_mensal, com a quantidade e a soma dos valores das
+ * peças por usuário, ano, mês, tipo e status, da mesma forma que o
+ * {@link SaldosMaterializados} mantém o saldo: cada gravação aplica a
+ * diferença na mesma transação, e o primeiro movimento de um usuário ainda
+ * sem linhas grava todos os resumos dele a partir das peças.
+ * <p>
+ * Enquanto o usuário tem linhas, toda chave com peças tem a sua; uma chave
+ * que aparece pela primeira vez (outro mês, outro status) é inserida com a
+ * própria diferença. As alterações de um usuário são serializadas pelas
+ * mesmas {@link TravasUsuarios} do saldo. A verificação agendada reconstrói
+ * os usuários cujos resumos divergirem do agregado, conferindo de novo com o
+ * usuário travado.
+ */
+@Service
+public class ResumosMensais {
+
+	private static final Logger log = LoggerFactory.getLogger(ResumosMensais.class);
+
+	private final ResumoMensalRepository resumoRepository;
+	private final PecasRepository pecasRepository;
+	private final TravasUsuarios travas;
+	private final TransactionTemplate transacao;
+	private final TransactionTemplate transacaoNova;
+	private final Counter divergencias;
+	private final int tamanhoLote;
+
+	public ResumosMensais(
+			ResumoMensalRepository resumoRepository,
+			PecasRepository pecasRepository,
+			TravasUsuarios travas,
+			PlatformTransactionManager transactionManager,
+			MeterRegistry meterRegistry,
+			@Value("${resumos.verificacao.lote.tamanho:500}") int tamanhoLote) {
+		this.resumoRepository = resumoRepository;
+		this.pecasRepository = pecasRepository;
+		this.travas = travas;
+		this.transacao = new TransactionTemplate(transactionManager);
+		this.transacaoNova = new TransactionTemplate(transactionManager);
+		this.transacaoNova.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+		this.divergencias = meterRegistry.counter("resumos.verificacao.divergencias");
+		this.tamanhoLote = tamanhoLote;
+	}
+
+	/** Resumos gravados do usuário; vazio se ele ainda não tem linhas na tabela. */
+	public Optional<List<ResumoMensal>> obterResumos(Long idUsuario) {
+		List<ResumoMensal> resumos = resumoRepository.obterPorUsuario(idUsuario);
+		return resumos.isEmpty() ? Optional.empty() : Optional.of(resumos);
+	}
+
+	@EventListener
+	public void pecasAlteradas(PecasAlteradasEvent evento) {
+		Map<Long, Map<ChaveResumoMensal, Diferenca>> diferencas = new TreeMap<>();
+		for (AlteracaoPeca alteracao : evento.getAlteracoes()) {
+			acumular(diferencas, alteracao.getAnterior(), -1);
+			acumular(diferencas, alteracao.getAtual(), 1);
+		}
+		diferencas.values().forEach(porChave -> porChave.values().removeIf(Diferenca::nula));
+		diferencas.values().removeIf(Map::isEmpty);
+		if (diferencas.isEmpty()) {
+			return;
+		}
+
+		transacao.execute(status -> {
+			// todos os usuários do evento, como o SaldosMaterializados, para que os dois travem na mesma ordem
+			travas.travar(evento.getIdsUsuarios());
+			diferencas.forEach(this::aplicar);
+			return null;
+		});
+	}
+
+	/**
+	 * Percorre os usuários com resumos gravados em lotes de
+	 * {@code resumos.verificacao.lote.tamanho}, compara os resumos de cada lote
+	 * com o agregado das peças e reconstrói, cada um na sua transação, os
+	 * usuários em que algum divergir. Usuários sem linhas na tabela ficam de
+	 * fora: eles já são lidos pelo agregado.
+	 *
+	 * @return quantidade de usuários corrigidos
+	 */
+	@Scheduled(cron = "${resumos.verificacao.cron:0 30 3 * * *}")
+	public int verificar() {
+		int corrigidos = 0;
+		Long ultimo = 0l;
+		List<Long> lote;
+		do {
+			Long depois = ultimo;
+			lote = transacaoNova.execute(status -> resumoRepository.obterIdsUsuarios(depois, PageRequest.of(0, tamanhoLote)));
+			if (lote.isEmpty()) {
+				break;
+			}
+			for (Long idUsuario : divergentes(lote)) {
+				if (corrigir(idUsuario)) {
+					corrigidos++;
+				}
+			}
+			ultimo = lote.get(lote.size() - 1);
+		} while (lote.size() == tamanhoLote);
+		return corrigidos;
+	}
+
+	private Set<Long> divergentes(List<Long> lote) {
+		Map<Long, List<ResumoMensal>> materializados = transacaoNova.execute(status -> resumoRepository.obterPorUsuarios(lote)
+				.stream().collect(Collectors.groupingBy(resumo -> resumo.getChave().getIdUsuario())));
+		Map<Long, List<ResumoMensal>> calculados = pecasRepository.obterResumosMensaisPorUsuarios(lote)
+				.stream().collect(Collectors.groupingBy(resumo -> resumo.getChave().getIdUsuario()));
+
+		Set<Long> divergentes = new LinkedHashSet<>();
+		for (Long idUsuario : lote) {
+			if (divergem(materializados.getOrDefault(idUsuario, Collections.emptyList()),
+					calculados.getOrDefault(idUsuario, Collections.emptyList()))) {
+				divergentes.add(idUsuario);
+			}
+		}
+		return divergentes;
+	}
+
+	/**
+	 * Compara de novo com o usuário travado, já que uma gravação pode ter
+	 * mudado as peças entre a leitura do lote e a do agregado, e só reconstrói
+	 * se a divergência continuar.
+	 */
+	private boolean corrigir(Long idUsuario) {
+		return transacaoNova.execute(status -> {
+			travas.travar(Collections.singleton(idUsuario));
+			if (!divergem(resumoRepository.obterPorUsuario(idUsuario), pecasRepository.obterResumosMensais(idUsuario))) {
+				return false;
+			}
+			reconstruir(idUsuario);
+			divergencias.increment();
+			log.warn("Resumos mensais do usuário {} divergiam do agregado e foram reconstruídos.", idUsuario);
+			return true;
+		});
+	}
+
+	private void aplicar(Long idUsuario, Map<ChaveResumoMensal, Diferenca> porChave) {
+		if (!resumoRepository.existsByChaveIdUsuario(idUsuario)) {
+			// o agregado já inclui esta alteração
+			reconstruir(idUsuario);
+			return;
+		}
+		porChave.forEach((chave, diferenca) -> {
+			if (resumoRepository.somar(chave, diferenca.quantidade, diferenca.total) == 0) {
+				// chave nova: antes desta alteração não havia peças nela
+				resumoRepository.save(new ResumoMensal(chave, diferenca.quantidade, diferenca.total));
+			}
+		});
+	}
+
+	private void reconstruir(Long idUsuario) {
+		resumoRepository.removerPorUsuario(idUsuario);
+		resumoRepository.saveAll(pecasRepository.obterResumosMensais(idUsuario));
+	}
+
+	/** Se os resumos gravados de um usuário, quando ele tem algum, diferem dos calculados. */
+	private static boolean divergem(List<ResumoMensal> materializados, List<ResumoMensal> calculados) {
+		if (materializados.isEmpty()) {
+			return false;
+		}
+		Map<ChaveResumoMensal, ResumoMensal> porChave = new HashMap<>();
+		calculados.forEach(resumo -> porChave.put(resumo.getChave(), resumo));
+		for (ResumoMensal materializado : materializados) {
+			if (!iguais(materializado, porChave.remove(materializado.getChave()))) {
+				return true;
+			}
+		}
+		return !porChave.isEmpty();
+	}
+
+	private static boolean iguais(ResumoMensal materializado, ResumoMensal calculado) {
+		if (calculado == null) {
+			return materializado.getQuantidade() == 0 && materializado.getTotal().signum() == 0;
+		}
+		return materializado.getQuantidade().equals(calculado.getQuantidade())
+				&& materializado.getTotal().compareTo(calculado.getTotal()) == 0;
+	}
+
+	private static void acumular(Map<Long, Map<ChaveResumoMensal, Diferenca>> diferencas, SituacaoPeca peca, int sinal) {
+		if (peca == null || peca.getIdUsuario() == null || peca.getAno() == null || peca.getMes() == null
+				|| peca.getTipo() == null || peca.getStatus() == null) {
+			return;
+		}
+		ChaveResumoMensal chave = new ChaveResumoMensal(peca.getIdUsuario(), peca.getAno(), peca.getMes(), peca.getTipo(), peca.getStatus());
+		BigDecimal valor = peca.getValor() == null ? BigDecimal.ZERO : peca.getValor();
+		diferencas.computeIfAbsent(peca.getIdUsuario(), id -> new HashMap<>())
+				.computeIfAbsent(chave, c -> new Diferenca())
+				.somar(sinal, sinal < 0 ? valor.negate() : valor);
+	}
+
+	private static final class Diferenca {
+
+		private long quantidade;
+		private BigDecimal total = BigDecimal.ZERO;
+
+		void somar(long quantidade, BigDecimal total) {
+			this.quantidade += quantidade;
+			this.total = this.total.add(total);
+		}
+
+		boolean nula() {
+			return quantidade == 0 && total.signum() == 0;
+		}
+	}
+
+}
@@ -0,0 +1,64 @@
+package com.starking.artesanato.service.impl;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.starking.artesanato.model.repository.UsuarioRepository;
+import com.starking.artesanato.service.TokenVerificado;
+import com.starking.artesanato.service.evento.UsuarioAlteradoEvent;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Confere se o usuário de um token ainda existe com o mesmo id, consultando o
+ * banco no máximo uma vez por e-mail a cada {@code jwt.revogacao.ttl-segundos}.
+ * Usado no modo stateless do {@code JwtTokenFilter}, em que o principal é
+ * montado a partir das claims sem buscar o usuário a cada requisição.
+ */
+@Service
+public class RevogacaoTokenService {
+
+	private final UsuarioRepository usuarioRepository;
+	private final Cache<String, Optional<Long>> usuariosAtivos;
+
+	public RevogacaoTokenService(
+			UsuarioRepository usuarioRepository,
+			MeterRegistry meterRegistry,
+			@Value("${jwt.revogacao.ttl-segundos:60}") long ttlSegundos,
+			@Value("${jwt.revogacao.tamanho-maximo:10000}") long tamanhoMaximo) {
+		this.usuarioRepository = usuarioRepository;
+		this.usuariosAtivos = Caffeine.newBuilder()
+				.maximumSize(tamanhoMaximo)
+				.expireAfterWrite(ttlSegundos, TimeUnit.SECONDS)
+				.recordStats()
+				.build();
+
+		CaffeineCacheMetrics.monitor(meterRegistry, usuariosAtivos, "jwt.revogacao");
+	}
+
+	public boolean isRevogado(TokenVerificado token) {
+		if (token.getLogin() == null) {
+			return true;
+		}
+
+		Optional<Long> idAtual = usuariosAtivos.get(token.getLogin(), usuarioRepository::obterIdPorEmail);
+		return !idAtual.isPresent() || !idAtual.get().equals(token.getIdUsuario());
+	}
+
+	public void invalidar(String email) {
+		usuariosAtivos.invalidate(email);
+	}
+
+	@TransactionalEventListener(fallbackExecution = true)
+	public void usuarioAlterado(UsuarioAlteradoEvent evento) {
+		invalidar(evento.getEmail());
+	}
+
+}
@@ -0,0 +1,157 @@
+package com.starking.artesanato.service.impl;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.starking.artesanato.model.entity.SaldoUsuario;
+import com.starking.artesanato.model.enums.StatusPagamento;
+import com.starking.artesanato.model.enums.TipoPagamento;
+import com.starking.artesanato.model.repository.PecasRepository;
+import com.starking.artesanato.model.repository.SaldoUsuarioRepository;
+import com.starking.artesanato.service.evento.AlteracaoPeca;
+import com.starking.artesanato.service.evento.PecasAlteradasEvent;
+import com.starking.artesanato.service.evento.SituacaoPeca;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Mantém a tabela saldo_usuario, de onde o saldo é lido sem somar as peças.
+ * Cada gravação de peça aplica a diferença entre a contribuição anterior e a
+ * atual na mesma transação; o primeiro movimento de um usuário sem linha na
+ * tabela grava o saldo calculado pelo agregado, que já inclui a alteração.
+ * <p>
+ * As alterações de um mesmo usuário são serializadas pelas
+ * {@link TravasUsuarios}, mantidas até o fim da transação, para que duas
+ * gravações concorrentes, mesmo em instâncias diferentes, não tentem inserir a
+ * mesma linha. A verificação agendada compara a tabela com o agregado e
+ * corrige as divergências.
+ */
+@Service
+public class SaldosMaterializados {
+
+	private static final Logger log = LoggerFactory.getLogger(SaldosMaterializados.class);
+
+	private final SaldoUsuarioRepository saldoRepository;
+	private final PecasRepository pecasRepository;
+	private final TravasUsuarios travas;
+	private final TransactionTemplate transacao;
+	private final TransactionTemplate transacaoNova;
+	private final Counter divergencias;
+
+	public SaldosMaterializados(
+			SaldoUsuarioRepository saldoRepository,
+			PecasRepository pecasRepository,
+			TravasUsuarios travas,
+			PlatformTransactionManager transactionManager,
+			MeterRegistry meterRegistry) {
+		this.saldoRepository = saldoRepository;
+		this.pecasRepository = pecasRepository;
+		this.travas = travas;
+		this.transacao = new TransactionTemplate(transactionManager);
+		this.transacaoNova = new TransactionTemplate(transactionManager);
+		this.transacaoNova.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+		this.divergencias = meterRegistry.counter("saldo.verificacao.divergencias");
+	}
+
+	public Optional<BigDecimal> obterSaldo(Long idUsuario) {
+		return saldoRepository.obterSaldo(idUsuario);
+	}
+
+	@EventListener
+	public void pecasAlteradas(PecasAlteradasEvent evento) {
+		Map<Long, BigDecimal> diferencas = new TreeMap<>();
+		for (AlteracaoPeca alteracao : evento.getAlteracoes()) {
+			acumular(diferencas, alteracao.getAnterior(), false);
+			acumular(diferencas, alteracao.getAtual(), true);
+		}
+		diferencas.values().removeIf(diferenca -> diferenca.signum() == 0);
+		if (diferencas.isEmpty()) {
+			return;
+		}
+
+		transacao.execute(status -> {
+			// todos os usuários do evento, como o ResumosMensais, para que os dois travem na mesma ordem
+			travas.travar(evento.getIdsUsuarios());
+			diferencas.forEach(this::aplicar);
+			return null;
+		});
+	}
+
+	/**
+	 * Compara cada linha da tabela com o agregado das peças efetivadas e corrige
+	 * as que divergirem, cada uma na sua transação.
+	 *
+	 * @return quantidade de saldos corrigidos
+	 */
+	@Scheduled(cron = "${saldo.verificacao.cron:0 0 3 * * *}")
+	public int verificar() {
+		Map<Long, BigDecimal> materializados = transacaoNova.execute(status -> {
+			Map<Long, BigDecimal> saldos = new HashMap<>();
+			saldoRepository.findAll().forEach(saldo -> saldos.put(saldo.getIdUsuario(), saldo.getSaldo()));
+			return saldos;
+		});
+		Map<Long, BigDecimal> calculados = new HashMap<>();
+		for (Object[] linha : pecasRepository.obterSaldosEfetivados(TipoPagamento.CREDITO, StatusPagamento.EFETIVADO)) {
+			calculados.put((Long) linha[0], (BigDecimal) linha[1]);
+		}
+
+		int corrigidos = 0;
+		for (Map.Entry<Long, BigDecimal> materializado : materializados.entrySet()) {
+			BigDecimal calculado = calculados.getOrDefault(materializado.getKey(), BigDecimal.ZERO);
+			if (calculado.compareTo(materializado.getValue()) != 0 && corrigir(materializado.getKey())) {
+				corrigidos++;
+			}
+		}
+		return corrigidos;
+	}
+
+	private boolean corrigir(Long idUsuario) {
+		return transacaoNova.execute(status -> {
+			travas.travar(Collections.singleton(idUsuario));
+			BigDecimal anterior = saldoRepository.obterSaldo(idUsuario).orElse(null);
+			BigDecimal calculado = calcular(idUsuario);
+			if (anterior == null || anterior.compareTo(calculado) == 0) {
+				return false;
+			}
+			saldoRepository.corrigirSaldo(idUsuario, calculado);
+			divergencias.increment();
+			log.warn("Saldo do usuário {} divergia do agregado: {} corrigido para {}.", idUsuario, anterior, calculado);
+			return true;
+		});
+	}
+
+	private void aplicar(Long idUsuario, BigDecimal diferenca) {
+		if (saldoRepository.somarAoSaldo(idUsuario, diferenca) == 0) {
+			saldoRepository.save(new SaldoUsuario(idUsuario, calcular(idUsuario)));
+		}
+	}
+
+	private BigDecimal calcular(Long idUsuario) {
+		BigDecimal saldo = pecasRepository.obterSaldoEfetivado(idUsuario, TipoPagamento.CREDITO, StatusPagamento.EFETIVADO);
+		return saldo == null ? BigDecimal.ZERO : saldo;
+	}
+
+	private static void acumular(Map<Long, BigDecimal> diferencas, SituacaoPeca peca, boolean soma) {
+		if (peca == null || peca.getIdUsuario() == null || peca.getValor() == null || peca.getTipo() == null
+				|| peca.getStatus() != StatusPagamento.EFETIVADO) {
+			return;
+		}
+		BigDecimal contribuicao = peca.getTipo() == TipoPagamento.CREDITO ? peca.getValor() : peca.getValor().negate();
+		diferencas.merge(peca.getIdUsuario(), soma ? contribuicao : contribuicao.negate(), BigDecimal::add);
+	}
+
+}
@@ -1,29 +1,69 @@
 package com.starking.artesanato.service.impl;
 
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.starking.artesanato.model.entity.Usuario;
 import com.starking.artesanato.model.repository.UsuarioRepository;
+import com.starking.artesanato.service.evento.UsuarioAlteradoEvent;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 
 @Service
 public class SecurityUserDetailsService implements UserDetailsService {
 	
 	private UsuarioRepository usuarioRepository;
 
-	public SecurityUserDetailsService(UsuarioRepository usuarioRepository) {
+	/**
+	 * Usuários já carregados, por e-mail. O Caffeine faz o carregamento de uma
+	 * mesma chave uma única vez mesmo com chamadas concorrentes; as demais
+	 * aguardam o resultado em vez de repetir a consulta. Cada chamada recebe
+	 * uma cópia, já que o Spring Security pode apagar a senha do UserDetails
+	 * devolvido.
+	 */
+	private Cache<String, UserDetails> cacheUsuarios;
+
+	public SecurityUserDetailsService(
+			UsuarioRepository usuarioRepository,
+			MeterRegistry meterRegistry,
+			@Value("${usuarios.cache.ttl-segundos:300}") long ttlSegundos,
+			@Value("${usuarios.cache.tamanho-maximo:10000}") long tamanhoMaximo) {
 		this.usuarioRepository = usuarioRepository;
+		this.cacheUsuarios = Caffeine.newBuilder()
+				.maximumSize(tamanhoMaximo)
+				.expireAfterWrite(ttlSegundos, TimeUnit.SECONDS)
+				.recordStats()
+				.build();
+
+		CaffeineCacheMetrics.monitor(meterRegistry, cacheUsuarios, "usuarios.detalhes");
 	}
 	
 	@Override
 	public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
+		UserDetails usuario = cacheUsuarios.get(email, this::carregarUsuario);
+		return User.withUserDetails(usuario).build();
+	}
+
+	@TransactionalEventListener(fallbackExecution = true)
+	public void usuarioAlterado(UsuarioAlteradoEvent evento) {
+		cacheUsuarios.invalidate(evento.getEmail());
+	}
+
+	private UserDetails carregarUsuario(String email) {
 		Usuario usuarioEncontrado = usuarioRepository
 				.findByEmail(email)
 				.orElseThrow(() -> new UsernameNotFoundException("Email não cadastrado."));
-		
+
 		return User.builder()
 				.username(usuarioEncontrado.getEmail())
 				.password(usuarioEncontrado.getSenha())
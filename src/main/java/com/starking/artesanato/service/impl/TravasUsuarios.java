@@ -0,0 +1,91 @@
+package com.starking.artesanato.service.impl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeSet;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.LockTimeoutException;
+import javax.persistence.PersistenceContext;
+import javax.persistence.PessimisticLockException;
+
+import org.hibernate.dialect.PostgreSQL81Dialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.starking.artesanato.exception.ConflitoException;
+import com.starking.artesanato.utils.ConstantesUtils;
+
+/**
+ * Serializa a manutenção das tabelas derivadas das peças (saldo_usuario,
+ * resumo_mensal) por usuário, entre todas as instâncias da aplicação: trava a
+ * linha do usuário em artesanato.usuario até o fim da transação corrente. Os
+ * usuários de uma alteração são travados num único comando, em ordem crescente
+ * de id, para que duas transações nunca esperem uma pela outra em ordens
+ * opostas.
+ * <p>
+ * No PostgreSQL a trava é {@code for no key update}, que não disputa com o
+ * {@code for key share} que a chave estrangeira toma ao inserir peças, e a
+ * espera é limitada por {@code pecas.travas.timeout-ms} (lock_timeout local à
+ * transação). Nas demais bases, o H2 de desenvolvimento e testes, é
+ * {@code for update} com o tempo de espera da própria base. Esgotada a espera,
+ * a gravação é desfeita com {@link ConflitoException}.
+ */
+@Component
+public class TravasUsuarios {
+
+	private static final Logger log = LoggerFactory.getLogger(TravasUsuarios.class);
+
+	private static final String TRAVAR = " select u.id from artesanato.usuario u where u.id in (:ids) order by u.id ";
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	private final boolean postgres;
+	private final String timeout;
+
+	/** A base é identificada pelo dialeto, sem abrir outra conexão com a da transação já presa. */
+	public TravasUsuarios(
+			EntityManagerFactory entityManagerFactory,
+			@Value("${pecas.travas.timeout-ms:5000}") long timeoutMs) {
+		this.postgres = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+				.getJdbcServices().getDialect() instanceof PostgreSQL81Dialect;
+		this.timeout = timeoutMs + "ms";
+	}
+
+	/**
+	 * Trava os usuários até o fim da transação corrente, que precisa existir.
+	 * Travar de novo um usuário já travado pela mesma transação não espera.
+	 */
+	public void travar(Collection<Long> idsUsuarios) {
+		if (idsUsuarios.isEmpty()) {
+			return;
+		}
+		List<Long> ids = new ArrayList<>(new TreeSet<>(idsUsuarios));
+		try {
+			if (postgres) {
+				String anterior = (String) entityManager.createNativeQuery(" select current_setting('lock_timeout') ").getSingleResult();
+				definirLockTimeout(timeout);
+				entityManager.createNativeQuery(TRAVAR + " for no key update ").setParameter("ids", ids).getResultList();
+				definirLockTimeout(anterior);
+			} else {
+				entityManager.createNativeQuery(TRAVAR + " for update ").setParameter("ids", ids).getResultList();
+			}
+		} catch (PessimisticLockException | LockTimeoutException e) {
+			log.warn("Tempo esgotado esperando a trava dos usuários {}.", ids);
+			throw new ConflitoException(ConstantesUtils.PECAS_ALTERADAS_CONCORRENTEMENTE);
+		}
+	}
+
+	private void definirLockTimeout(String valor) {
+		entityManager.createNativeQuery(" select set_config('lock_timeout', :valor, true) ")
+				.setParameter("valor", valor)
+				.getSingleResult();
+	}
+
+}
@@ -1,64 +1,155 @@
 package com.starking.artesanato.service.impl;
 
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import com.starking.artesanato.exception.ErroAutenticacao;
 import com.starking.artesanato.exception.RegraNegocioException;
+import com.starking.artesanato.exception.ServicoSobrecarregadoException;
 import com.starking.artesanato.model.entity.Usuario;
 import com.starking.artesanato.model.repository.UsuarioRepository;
 import com.starking.artesanato.service.UsuarioService;
+import com.starking.artesanato.service.evento.UsuarioAlteradoEvent;
 import com.starking.artesanato.utils.*;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
 @Service
 public class UsuarioServiceImpl implements UsuarioService {
 	
+	private static final Logger log = LoggerFactory.getLogger(UsuarioServiceImpl.class);
+	
 	private UsuarioRepository repository;
-	private PasswordEncoder encoder;
+	private ExecutorSenhas senhas;
+	private ApplicationEventPublisher eventPublisher;
+	
+	/** Onde roda a gravação do hash refeito, fora das threads do BCrypt. */
+	private Executor tarefas;
+	
+	/**
+	 * A autenticação é medida em duas etapas, a consulta do usuário e a
+	 * comparação do BCrypt, para que uma não esconda a outra. A da senha
+	 * inclui a espera na fila do {@link ExecutorSenhas}.
+	 */
+	private Timer tempoConsulta;
+	private Timer tempoSenha;
+	private MeterRegistry meterRegistry;
 	
 	public UsuarioServiceImpl(
 			UsuarioRepository repository, 
-			PasswordEncoder encoder) {
+			ExecutorSenhas senhas,
+			ApplicationEventPublisher eventPublisher,
+			MeterRegistry meterRegistry,
+			@Qualifier("applicationTaskExecutor") Executor tarefas) {
 		super();
 		this.repository = repository;
-		this.encoder = encoder;
+		this.senhas = senhas;
+		this.eventPublisher = eventPublisher;
+		this.tarefas = tarefas;
+		this.meterRegistry = meterRegistry;
+		this.tempoConsulta = meterRegistry.timer("usuarios.autenticacao", "etapa", "consulta");
+		this.tempoSenha = meterRegistry.timer("usuarios.autenticacao", "etapa", "senha");
 	}
 
 	@Override
 	public Usuario autenticar(String email, String senha) {
-		Optional<Usuario> usuario = this.repository.findByEmail(email);
+		return aguardar(autenticarAssincrono(email, senha));
+	}
+	
+	@Override
+	public CompletableFuture<Usuario> autenticarAssincrono(String email, String senha) {
+		Optional<Usuario> usuario = this.tempoConsulta.record(() -> this.repository.findByEmail(email));
 		
 		if(!usuario.isPresent()) {
+			contarAutenticacao("usuario-nao-encontrado");
 			throw new ErroAutenticacao(ConstantesUtils.USUARIO_NAO_ENCONTRADO);
 		}
 		
-		boolean senhasBatem = encoder.matches(senha, usuario.get().getSenha());
-		
-		if(!senhasBatem) {
-			throw new ErroAutenticacao(ConstantesUtils.SENHA_INVALIDA);
+		Usuario usuarioEncontrado = usuario.get();
+		Timer.Sample amostra = Timer.start(meterRegistry);
+		return senhas.comparar(senha, usuarioEncontrado.getSenha()).thenApply(senhasBatem -> {
+			amostra.stop(tempoSenha);
+			
+			if(!senhasBatem) {
+				contarAutenticacao("senha-invalida");
+				throw new ErroAutenticacao(ConstantesUtils.SENHA_INVALIDA);
+			}
+			
+			contarAutenticacao("sucesso");
+			if(senhas.precisaAtualizar(usuarioEncontrado.getSenha())) {
+				atualizarHash(usuarioEncontrado, senha);
+			}
+			return usuarioEncontrado;
+		});
+	}
+	
+	/**
+	 * Refaz o hash gravado com uma força menor que a atual, sem atrasar o login
+	 * que o detectou. Se o executor estiver cheio, fica para o próximo login.
+	 * O update no banco vai para o {@code applicationTaskExecutor}, para não
+	 * ocupar uma thread do BCrypt esperando conexão.
+	 */
+	private void atualizarHash(Usuario usuario, String senha) {
+		String hashAnterior = usuario.getSenha();
+		try {
+			senhas.criptografar(senha).thenAcceptAsync(novoHash -> {
+				if(repository.atualizarSenha(usuario.getId(), hashAnterior, novoHash) > 0) {
+					eventPublisher.publishEvent(new UsuarioAlteradoEvent(usuario.getEmail()));
+				}
+			}, tarefas).exceptionally(e -> {
+				log.warn("Não foi possível atualizar o hash da senha do usuário {}.", usuario.getId(), e);
+				return null;
+			});
+		}catch (ServicoSobrecarregadoException e) {
+			log.debug("Executor de senhas cheio; o hash do usuário {} será atualizado depois.", usuario.getId());
 		}
-
-		return usuario.get();
+	}
+	
+	private void contarAutenticacao(String resultado) {
+		meterRegistry.counter("usuarios.autenticacao.resultado", "resultado", resultado).increment();
 	}
 
+	/**
+	 * Sem transação própria: o hash espera a fila do {@link ExecutorSenhas} e
+	 * não pode segurar uma conexão do pool. A consulta do e-mail e o save
+	 * abrem cada um a sua, curta, antes e depois do hash.
+	 */
 	@Override
-	@Transactional
 	public Usuario salvarUsuario(Usuario usuario) {
 		validarEmail(usuario.getEmail());
 		usuario.setCpf(usuario.getCpf());
 		usuario.setCelular(usuario.getCelular());
 		criptografarSenha(usuario);
-		return repository.save(usuario);
+		Usuario usuarioSalvo = repository.save(usuario);
+		eventPublisher.publishEvent(new UsuarioAlteradoEvent(usuarioSalvo.getEmail()));
+		return usuarioSalvo;
 	}
 
 	private void criptografarSenha(Usuario usuario) {
 		String senha = usuario.getSenha();
-		String senhaCripto = encoder.encode(senha);
+		String senhaCripto = aguardar(senhas.criptografar(senha));
 		usuario.setSenha(senhaCripto);
 	}
+	
+	private static <T> T aguardar(CompletableFuture<T> futuro) {
+		try {
+			return futuro.join();
+		}catch (CompletionException e) {
+			if(e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw e;
+		}
+	}
 
 	@Override
 	public void validarEmail(String email) {
@@ -14,4 +14,13 @@ public interface ConstantesUtils {
 	public static final String USUARIO_NAO_ENCONTRADO_ID = "Não foi possível realizar a consulta. Usuário não encontrado para o Id informado.";
 	public static final String PECA_NAO_ENCONTRADA = "Peças não encontrado na base de Dados.";
 	public static final String ATUALIZAR_STATUS_PECA ="Não foi possível atualizar o status da Peça, envie um status válido.";
+	public static final String TRANSICAO_STATUS_INVALIDA = "Não é permitido mudar as peças do status atual para o status informado.";
+	public static final String INFORME_PECAS_OU_USUARIO = "Informe os ids das peças ou o usuário.";
+	public static final String PECA_ALTERADA_CONCORRENTEMENTE = "A peça foi alterada ou removida por outra operação. Consulte-a novamente.";
+	public static final String PECAS_ALTERADAS_CONCORRENTEMENTE = "As peças foram alteradas por outra operação. Tente novamente.";
+	public static final String FORMATO_EXPORTACAO_INVALIDO = "Formato de exportação inválido. Use ndjson ou csv.";
+	public static final String FALHA_GRAVAR_LOTE = "Não foi possível gravar esta parte do lote. Envie as peças novamente.";
+	public static final String LOTE_EXCEDE_LIMITE = "O lote excede a quantidade máxima de peças por requisição.";
+	public static final String CABECALHO_IMPORTACAO_INVALIDO = "O arquivo deve começar por um cabeçalho com as colunas descricao, mes, ano, valor, tipo e usuario.";
+	public static final String SERVICO_SOBRECARREGADO = "Muitas autenticações em andamento. Tente novamente em instantes.";
 }
@@ -0,0 +1,5 @@
+-- Ids das peças reservados de 50 em 50 pelo Hibernate (pooled-lo). As bases
+-- H2 são recriadas a cada execução; a carga sintética reposiciona a
+-- sequência depois de inserir.
+
+create sequence if not exists artesanato.pecas_seq start with 1 increment by 50;
@@ -0,0 +1,13 @@
+-- Quantidade e soma das peças por usuário, ano, mês, tipo e status
+-- (ResumosMensais). A chave primária atende as leituras por usuário.
+
+create table if not exists artesanato.resumo_mensal (
+	id_usuario bigint not null,
+	ano integer not null,
+	mes integer not null,
+	tipo varchar(255) not null,
+	status varchar(255) not null,
+	quantidade bigint not null,
+	total decimal(19,2) not null,
+	constraint resumo_mensal_pkey primary key (id_usuario, ano, mes, tipo, status)
+);
@@ -0,0 +1,22 @@
+-- Índices das consultas do PecasRepository e do UsuarioRepository; o
+-- IndicesConsultasTest roda o EXPLAIN de cada uma.
+
+-- listagem com ano e mês, em ordem de id (keyset)
+create index if not exists artesanato.idx_pecas_usuario_ano_mes_id
+	on artesanato.pecas (id_usuario, ano, mes, id);
+
+-- listagem sem ano e mês, exportação, contagem e índice de descrições do usuário
+create index if not exists artesanato.idx_pecas_usuario_id
+	on artesanato.pecas (id_usuario, id);
+
+-- saldo do usuário e transição de status em lote pelo filtro; cobre a soma dos valores
+create index if not exists artesanato.idx_pecas_usuario_status_tipo_valor
+	on artesanato.pecas (id_usuario, status, tipo, valor);
+
+-- resumos mensais do usuário, agrupados sem ler a tabela
+create index if not exists artesanato.idx_pecas_usuario_ano_mes_tipo_status_valor
+	on artesanato.pecas (id_usuario, ano, mes, tipo, status, valor);
+
+-- autenticação e cadastro
+create index if not exists artesanato.idx_usuario_email
+	on artesanato.usuario (email);
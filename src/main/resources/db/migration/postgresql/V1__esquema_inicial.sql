@@ -0,0 +1,28 @@
+-- Tabelas como eram criadas antes das migrações; bases já existentes entram
+-- no Flyway por baseline nesta versão (spring.flyway.baseline-on-migrate).
+
+create schema if not exists artesanato;
+
+create table artesanato.usuario (
+	id bigserial not null,
+	nome varchar(255),
+	email varchar(255),
+	cpf varchar(255),
+	celular varchar(255),
+	senha varchar(255),
+	constraint usuario_pkey primary key (id)
+);
+
+create table artesanato.pecas (
+	id bigserial not null,
+	descricao varchar(255),
+	mes integer,
+	ano integer,
+	id_usuario bigint,
+	valor numeric(19,2),
+	data_cadastro timestamp,
+	tipo varchar(255),
+	status varchar(255),
+	constraint pecas_pkey primary key (id),
+	constraint fk_pecas_usuario foreign key (id_usuario) references artesanato.usuario (id)
+);
@@ -0,0 +1,8 @@
+-- Saldo materializado por usuário (SaldosMaterializados). "if not exists"
+-- porque bases anteriores às migrações podem já ter a tabela.
+
+create table if not exists artesanato.saldo_usuario (
+	id_usuario bigint not null,
+	saldo numeric(19,2) not null,
+	constraint saldo_usuario_pkey primary key (id_usuario)
+);
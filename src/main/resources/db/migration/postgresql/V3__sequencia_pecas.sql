@@ -0,0 +1,12 @@
+-- Ids das peças reservados de 50 em 50 pelo Hibernate (pooled-lo) e pelo
+-- COPY da importação. A sequência começa depois do maior id já gravado e de
+-- qualquer faixa que uma sequência criada antes das migrações já tenha dado.
+
+create sequence if not exists artesanato.pecas_seq start with 1 increment by 50;
+alter sequence artesanato.pecas_seq increment by 50;
+
+select setval('artesanato.pecas_seq',
+	greatest(
+		(select last_value + 50 from artesanato.pecas_seq),
+		(select coalesce(max(id), 0) + 1 from artesanato.pecas)),
+	false);
@@ -0,0 +1,3 @@
+-- Versão da peça para as gravações condicionais; peças existentes começam em 0.
+
+alter table artesanato.pecas add column if not exists versao bigint not null default 0;
@@ -0,0 +1,88 @@
+package com.starking.artesanato.api;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.starking.artesanato.api.dto.PecasDTO;
+import com.starking.artesanato.model.enums.StatusPagamento;
+import com.starking.artesanato.model.enums.TipoPagamento;
+
+/**
+ * Página de peças em JSON, como a API responde por padrão, e no
+ * {@link FormatoCompacto}: escrita e leitura de cada uma. O tamanho de cada
+ * formato sai no log do fork, no setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FormatoCompactoBenchmark {
+
+	@Param({ "1", "100", "1000" })
+	int quantidade;
+
+	ObjectMapper json;
+	ObjectMapper compacto;
+	JavaType tipoLista;
+	List<PecasDTO> pecas;
+	byte[] pecasJson;
+	byte[] pecasCompacto;
+
+	@Setup
+	public void preparar() throws IOException {
+		json = Jackson2ObjectMapperBuilder.json().build();
+		compacto = FormatoCompacto.criarMapper();
+		tipoLista = json.getTypeFactory().constructCollectionType(List.class, PecasDTO.class);
+
+		pecas = new ArrayList<>(quantidade);
+		for (int i = 0; i < quantidade; i++) {
+			pecas.add(new PecasDTO((long) i, "Peça " + i, 1 + i % 12, 2020, BigDecimal.valueOf(1000 + i, 2), 1l,
+					TipoPagamento.values()[i % 2], StatusPagamento.values()[i % 3], (long) i % 5));
+		}
+		pecasJson = json.writeValueAsBytes(pecas);
+		pecasCompacto = compacto.writeValueAsBytes(pecas);
+
+		System.out.printf("%n%d peças: JSON %d bytes, compacto %d bytes (%.0f%%)%n", quantidade,
+				pecasJson.length, pecasCompacto.length, 100.0 * pecasCompacto.length / pecasJson.length);
+	}
+
+	@Benchmark
+	public byte[] escreverJson() throws IOException {
+		return json.writeValueAsBytes(pecas);
+	}
+
+	@Benchmark
+	public byte[] escreverCompacto() throws IOException {
+		return compacto.writeValueAsBytes(pecas);
+	}
+
+	@Benchmark
+	public List<PecasDTO> lerJson() throws IOException {
+		return json.readValue(pecasJson, tipoLista);
+	}
+
+	@Benchmark
+	public List<PecasDTO> lerCompacto() throws IOException {
+		return compacto.readValue(pecasCompacto, tipoLista);
+	}
+}
@@ -0,0 +1,63 @@
+package com.starking.artesanato.api;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.starking.artesanato.api.dto.PecasDTO;
+import com.starking.artesanato.model.enums.StatusPagamento;
+import com.starking.artesanato.model.enums.TipoPagamento;
+
+public class FormatoCompactoTest {
+
+	ObjectMapper mapper = FormatoCompacto.criarMapper();
+
+	@Test
+	public void deveEscreverAPecaComoArrayComCentavosECodigos() throws Exception {
+		//cenário
+		PecasDTO peca = new PecasDTO(7l, "Vaso", 3, 2020, new BigDecimal("101.50"), 1l,
+				TipoPagamento.PIX, StatusPagamento.EFETIVADO, 2l);
+
+		//execucao
+		JsonNode lido = mapper.readTree(mapper.writeValueAsBytes(peca));
+
+		//verificacao
+		assertThat(lido.isArray()).isTrue();
+		assertThat(lido.get(0).asLong()).isEqualTo(7);
+		assertThat(lido.get(4).asLong()).isEqualTo(10150);
+		assertThat(lido.get(6).asInt()).isEqualTo(1);
+		assertThat(lido.get(7).asInt()).isEqualTo(2);
+		assertThat(lido.get(8).asLong()).isEqualTo(2);
+	}
+
+	@Test
+	public void deveLerDeVoltaAsMesmasPecas() throws Exception {
+		//cenário
+		List<PecasDTO> pecas = Arrays.asList(
+				new PecasDTO(1l, "Vaso", 3, 2020, new BigDecimal("10.00"), 1l, TipoPagamento.CREDITO, StatusPagamento.PENDENTE, 0l),
+				new PecasDTO(2l, null, 4, 2020, null, 1l, null, StatusPagamento.CANCELADO, 3l));
+
+		//execucao
+		List<PecasDTO> lidas = mapper.readValue(mapper.writeValueAsBytes(pecas), new TypeReference<List<PecasDTO>>() {});
+
+		//verificacao
+		assertThat(lidas).isEqualTo(pecas);
+	}
+
+	@Test
+	public void todoTipoEStatusDeveTerCodigo() {
+		for (TipoPagamento tipo : TipoPagamento.values()) {
+			assertThat(FormatoCompacto.TIPOS).contains(tipo.name());
+		}
+		for (StatusPagamento status : StatusPagamento.values()) {
+			assertThat(FormatoCompacto.STATUS).contains(status.name());
+		}
+	}
+}
@@ -0,0 +1,86 @@
+package com.starking.artesanato.api;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.FilterChain;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
+
+import com.starking.artesanato.model.entity.Usuario;
+import com.starking.artesanato.model.repository.UsuarioRepository;
+import com.starking.artesanato.service.impl.JwtServiceBenchmark;
+import com.starking.artesanato.service.impl.JwtServiceImpl;
+import com.starking.artesanato.service.impl.RevogacaoTokenService;
+import com.starking.artesanato.service.impl.SecurityUserDetailsService;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * O trabalho do {@link JwtTokenFilter} por requisição, com o
+ * {@link JwtServiceImpl} real e uma {@link FilterChain} que não faz nada. O
+ * que iria ao banco é mock: a busca do usuário no modo com sessão e a consulta
+ * da revogação no modo stateless, esta atrás do cache real do
+ * {@link RevogacaoTokenService}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtTokenFilterBenchmark {
+
+	@Param({ "true", "false" })
+	boolean principalStateless;
+
+	JwtTokenFilter filtro;
+	MockHttpServletRequest requisicao;
+	MockHttpServletResponse resposta;
+	FilterChain cadeia = (req, res) -> { };
+
+	@Setup
+	public void preparar() throws Exception {
+		JwtServiceImpl jwtService = JwtServiceBenchmark.criarJwtService();
+		Usuario usuario = Usuario.builder().id(1l).nome("Usuário").email("usuario@email.com").senha("senha").build();
+
+		UsuarioRepository usuarioRepository = mock(UsuarioRepository.class);
+		when(usuarioRepository.obterIdPorEmail(anyString())).thenReturn(Optional.of(1l));
+		SecurityUserDetailsService userDetailsService = mock(SecurityUserDetailsService.class);
+		when(userDetailsService.loadUserByUsername(anyString()))
+				.thenReturn(User.builder().username(usuario.getEmail()).password(usuario.getSenha()).roles("USER").build());
+		RevogacaoTokenService revogacaoService = new RevogacaoTokenService(usuarioRepository, new SimpleMeterRegistry(), 60, 10000);
+
+		filtro = new JwtTokenFilter(jwtService, userDetailsService, revogacaoService, principalStateless,
+				new SimpleMeterRegistry());
+		requisicao = new MockHttpServletRequest("GET", "/api/pecas");
+		requisicao.addHeader("Authorization", "Bearer " + jwtService.gerarToken(usuario));
+		resposta = new MockHttpServletResponse();
+	}
+
+	@Benchmark
+	public Object filtrar() throws Exception {
+		filtro.doFilterInternal(requisicao, resposta, cadeia);
+		Object autenticacao = SecurityContextHolder.getContext().getAuthentication();
+		SecurityContextHolder.clearContext();
+		return autenticacao;
+	}
+}
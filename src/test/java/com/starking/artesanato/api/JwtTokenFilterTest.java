@@ -0,0 +1,83 @@
+package com.starking.artesanato.api;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import com.starking.artesanato.service.JwtService;
+import com.starking.artesanato.service.TokenVerificado;
+import com.starking.artesanato.service.impl.RevogacaoTokenService;
+import com.starking.artesanato.service.impl.SecurityUserDetailsService;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class JwtTokenFilterTest {
+
+	static final String TOKEN = "token";
+
+	JwtService jwtService = mock(JwtService.class);
+	SecurityUserDetailsService userDetailsService = mock(SecurityUserDetailsService.class);
+	RevogacaoTokenService revogacaoService = mock(RevogacaoTokenService.class);
+
+	JwtTokenFilter filtro = new JwtTokenFilter(jwtService, userDetailsService, revogacaoService, true, new SimpleMeterRegistry());
+
+	@AfterEach
+	public void limparContexto() {
+		SecurityContextHolder.clearContext();
+	}
+
+	@Test
+	public void deveMontarOPrincipalAPartirDasClaimsSemConsultarOBanco() throws Exception {
+		//cenário
+		TokenVerificado token = new TokenVerificado("usuario@email.com", 1l, "usuario", Long.MAX_VALUE / 1000);
+		when(jwtService.isTokenValido(TOKEN)).thenReturn(true);
+		when(jwtService.obterTokenVerificado(TOKEN)).thenReturn(token);
+		when(revogacaoService.isRevogado(token)).thenReturn(false);
+
+		//execucao
+		filtro.doFilter(requisicaoComToken(), new MockHttpServletResponse(), new MockFilterChain());
+
+		//verificacao
+		Authentication autenticacao = SecurityContextHolder.getContext().getAuthentication();
+		assertThat(autenticacao.getPrincipal()).isInstanceOf(UsuarioAutenticado.class);
+		UsuarioAutenticado principal = (UsuarioAutenticado) autenticacao.getPrincipal();
+		assertThat(principal.getId()).isEqualTo(1l);
+		assertThat(principal.getUsername()).isEqualTo("usuario@email.com");
+		assertThat(principal.getNome()).isEqualTo("usuario");
+		verify(userDetailsService, never()).loadUserByUsername(anyString());
+	}
+
+	@Test
+	public void naoDeveAutenticarUsuarioRevogado() throws Exception {
+		//cenário
+		TokenVerificado token = new TokenVerificado("usuario@email.com", 1l, "usuario", Long.MAX_VALUE / 1000);
+		when(jwtService.isTokenValido(TOKEN)).thenReturn(true);
+		when(jwtService.obterTokenVerificado(TOKEN)).thenReturn(token);
+		when(revogacaoService.isRevogado(token)).thenReturn(true);
+
+		//execucao
+		MockFilterChain chain = new MockFilterChain();
+		filtro.doFilter(requisicaoComToken(), new MockHttpServletResponse(), chain);
+
+		//verificacao
+		assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
+		assertThat(chain.getRequest()).isNotNull();
+	}
+
+	private static MockHttpServletRequest requisicaoComToken() {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/pecas");
+		request.addHeader("Authorization", "Bearer " + TOKEN);
+		return request;
+	}
+}
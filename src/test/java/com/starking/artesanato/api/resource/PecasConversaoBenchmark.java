@@ -0,0 +1,104 @@
+package com.starking.artesanato.api.resource;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.starking.artesanato.api.dto.PecasDTO;
+import com.starking.artesanato.model.entity.Pecas;
+import com.starking.artesanato.model.entity.Usuario;
+import com.starking.artesanato.model.repository.PecasRepositoryTest;
+
+/**
+ * Conversão entre {@link Pecas} e {@link PecasDTO} feita pelo
+ * {@link PecasResource} e serialização de listas de peças com um ObjectMapper
+ * montado como o do Spring MVC. A saída é descartada, então só o custo do
+ * Jackson entra na medida.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PecasConversaoBenchmark {
+
+	/** Só o benchmark de serialização usa este estado, então só ele varia pela quantidade. */
+	@State(Scope.Benchmark)
+	public static class ListaPecas {
+
+		@Param({ "1", "100", "10000" })
+		int quantidade;
+
+		List<Pecas> pecas;
+
+		@Setup
+		public void preparar() {
+			pecas = new ArrayList<>(quantidade);
+			for (int i = 0; i < quantidade; i++) {
+				pecas.add(criarPeca(i));
+			}
+		}
+	}
+
+	ObjectMapper objectMapper;
+	Pecas peca;
+	PecasDTO dto;
+
+	final OutputStream descarte = new OutputStream() {
+		@Override
+		public void write(int b) {
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) {
+		}
+	};
+
+	@Setup
+	public void preparar() {
+		objectMapper = Jackson2ObjectMapperBuilder.json().build();
+		peca = criarPeca(1);
+		dto = PecasResource.converter(peca);
+	}
+
+	@Benchmark
+	public PecasDTO entidadeParaDto() {
+		return PecasResource.converter(peca);
+	}
+
+	@Benchmark
+	public Pecas dtoParaEntidade() {
+		return PecasResource.converterCampos(dto);
+	}
+
+	@Benchmark
+	public List<Pecas> serializarPecas(ListaPecas lista) throws IOException {
+		objectMapper.writeValue(descarte, lista.pecas);
+		return lista.pecas;
+	}
+
+	private static Pecas criarPeca(int i) {
+		Pecas pecas = PecasRepositoryTest.criarPecas();
+		pecas.setId((long) i);
+		pecas.setDescricao("Peça " + i);
+		pecas.setUsuario(Usuario.builder().id(1l).nome("Usuário").email("usuario@email.com").build());
+		return pecas;
+	}
+}
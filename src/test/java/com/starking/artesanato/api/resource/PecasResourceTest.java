@@ -0,0 +1,87 @@
+package com.starking.artesanato.api.resource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.starking.artesanato.api.dto.PecasDTO;
+import com.starking.artesanato.api.dto.ResultadoLoteDTO;
+import com.starking.artesanato.model.entity.Pecas;
+import com.starking.artesanato.service.ImportacaoPecasService;
+import com.starking.artesanato.service.LotePecasService;
+import com.starking.artesanato.service.PecaService;
+import com.starking.artesanato.service.ResultadoItemLote;
+import com.starking.artesanato.service.UsuarioService;
+import com.starking.artesanato.utils.ConstantesUtils;
+
+public class PecasResourceTest {
+
+	@Test
+	public void deveInformarOCursorQuandoAPaginaVierCheiaMesmoComLimiteAcimaDoMaximo() {
+		//cenario
+		List<PecasDTO> pecas = pecas(1000);
+
+		//execucao: limit=5000 pedido, serviço usou 1000
+		HttpHeaders headers = PecasResource.cabecalhoProximaPagina(pecas, 1000);
+
+		//verificacao
+		assertThat(headers.getFirst(PecasResource.CABECALHO_PROXIMO_CURSOR)).isEqualTo("1000");
+	}
+
+	@Test
+	public void naoDeveInformarOCursorNaUltimaPagina() {
+		//cenario
+		List<PecasDTO> pecas = pecas(30);
+
+		//execucao: sem limit, serviço usou o padrão de 100
+		HttpHeaders headers = PecasResource.cabecalhoProximaPagina(pecas, 100);
+
+		//verificacao
+		assertThat(headers.containsKey(PecasResource.CABECALHO_PROXIMO_CURSOR)).isFalse();
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void deveRecusarSoOItemNuloDoLote() {
+		//cenario
+		LotePecasService loteService = mock(LotePecasService.class);
+		PecasResource resource = new PecasResource(mock(PecaService.class), mock(UsuarioService.class),
+				loteService, mock(ImportacaoPecasService.class), new ObjectMapper());
+		ReflectionTestUtils.setField(resource, "maximoItensLote", 10);
+		when(loteService.salvar(anyList())).thenReturn(Collections.singletonList(ResultadoItemLote.sucesso(7l)));
+
+		//execucao
+		ResponseEntity<?> resposta = resource.salvarLote(Arrays.asList(null, PecasDTO.builder().descricao("vaso").build()));
+
+		//verificacao
+		assertThat(resposta.getStatusCode()).isEqualTo(HttpStatus.OK);
+		List<ResultadoLoteDTO> resultados = (List<ResultadoLoteDTO>) resposta.getBody();
+		assertThat(resultados.get(0).getErro()).isEqualTo(ConstantesUtils.INFORME_PECAS);
+		assertThat(resultados.get(1).getId()).isEqualTo(7l);
+		ArgumentCaptor<List<Pecas>> gravadas = ArgumentCaptor.forClass(List.class);
+		verify(loteService).salvar(gravadas.capture());
+		assertThat(gravadas.getValue()).hasSize(1);
+	}
+
+	private static List<PecasDTO> pecas(int quantidade) {
+		return LongStream.rangeClosed(1, quantidade)
+				.mapToObj(id -> PecasDTO.builder().id(id).build())
+				.collect(Collectors.toList());
+	}
+}
@@ -2,6 +2,7 @@ package com.starking.artesanato.api.resource;
 
 import java.math.BigDecimal;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -14,6 +15,7 @@ import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
@@ -52,7 +54,7 @@ public class UsuarioResourceTest {
 		
 		UsuarioDTO dto = UsuarioDTO.builder().email(email).senha(senha).build();
 		Usuario usuario = Usuario.builder().id(1l).email(email).senha(senha).build();
-		Mockito.when( service.autenticar(email, senha) ).thenReturn(usuario);
+		Mockito.when( service.autenticarAssincrono(email, senha) ).thenReturn(CompletableFuture.completedFuture(usuario));
 		String json = new ObjectMapper().writeValueAsString(dto);
 		
 		//execucao e verificacao
@@ -63,8 +65,9 @@ public class UsuarioResourceTest {
 													.content(json);
 		
 		
+		MvcResult autenticacao = mvc.perform(request).andReturn();
 		mvc
-			.perform(request)
+			.perform(MockMvcRequestBuilders.asyncDispatch(autenticacao))
 			.andExpect( MockMvcResultMatchers.status().isOk()  )
 			.andExpect( MockMvcResultMatchers.jsonPath("id").value(usuario.getId())  )
 			.andExpect( MockMvcResultMatchers.jsonPath("nome").value(usuario.getNome())  )
@@ -81,7 +84,7 @@ public class UsuarioResourceTest {
 		String senha = "123";
 		
 		UsuarioDTO dto = UsuarioDTO.builder().email(email).senha(senha).build();
-		Mockito.when( service.autenticar(email, senha) ).thenThrow(ErroAutenticacao.class);
+		Mockito.when( service.autenticarAssincrono(email, senha) ).thenThrow(ErroAutenticacao.class);
 		
 		String json = new ObjectMapper().writeValueAsString(dto);
 		
@@ -0,0 +1,273 @@
+package com.starking.artesanato.carga;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.starking.artesanato.ArtesanatoApplication;
+import com.starking.artesanato.config.ThreadsVirtuaisConfiguration;
+import com.starking.artesanato.model.entity.Usuario;
+import com.starking.artesanato.service.JwtService;
+import com.starking.artesanato.service.UsuarioService;
+
+/**
+ * Milhares de clientes lentos ao mesmo tempo, para comparar o Tomcat com o
+ * pool de threads e com threads virtuais ({@code servidor.threads-virtuais}).
+ * <p>
+ * Cada cliente envia um POST /api/pecas cujo corpo chega aos poucos, ao longo
+ * de {@code envio} segundos. A thread que atende a requisição fica bloqueada
+ * lendo o corpo e depois gravando no banco. Com o pool de threads, os clientes
+ * além de {@code server.tomcat.max-threads} esperam a vez. Enquanto isso, uma
+ * sonda faz um GET /actuator/info (sem banco) a cada {@code sonda} ms, em laço
+ * aberto: a latência conta a partir da hora marcada. A sonda mostra quanto
+ * uma requisição barata espera atrás dos clientes lentos.
+ * <p>
+ * O modo virtual precisa de Java 21 na JVM que roda o teste:
+ * {@code mvn -Pcarga test-compile exec:exec -Dcarga.principal=com.starking.artesanato.carga.ClientesLentos
+ * -Dcarga.java=/caminho/do/jdk21/bin/java -Dcarga.opcoes="modo=virtual clientes=2000"}.
+ * Opções: modo (plataforma ou virtual), clientes, chegada (segundos em que os
+ * clientes vão chegando), envio (segundos), sonda (ms), aquecimento
+ * (requisições rápidas antes da medição) e saida (diretório dos arquivos
+ * .hgrm).
+ */
+public class ClientesLentos {
+
+	private static final long LATENCIA_MAXIMA_MS = TimeUnit.MINUTES.toMillis(5);
+	private static final int PARTES_CORPO = 10;
+
+	private final Map<String, String> opcoes;
+	private final Histogram envios = new ConcurrentHistogram(LATENCIA_MAXIMA_MS, 3);
+	private final Histogram sondas = new ConcurrentHistogram(LATENCIA_MAXIMA_MS, 3);
+	private final AtomicLong errosEnvio = new AtomicLong();
+	private final AtomicLong errosSonda = new AtomicLong();
+
+	private int porta;
+	private String token;
+	private Long idUsuario;
+
+	ClientesLentos(Map<String, String> opcoes) {
+		this.opcoes = opcoes;
+	}
+
+	public static void main(String[] args) throws Exception {
+		Map<String, String> opcoes = new LinkedHashMap<>();
+		for (String arg : args) {
+			for (String opcao : arg.trim().split("\\s+")) {
+				int igual = opcao.indexOf('=');
+				if (igual > 0) {
+					opcoes.put(opcao.substring(0, igual), opcao.substring(igual + 1));
+				}
+			}
+		}
+
+		// propriedades de sistema, para valerem acima do application.properties
+		System.setProperty("spring.devtools.restart.enabled", "false");
+		System.setProperty("server.port", "0");
+		System.setProperty("logging.file", "target/carga/aplicacao.log");
+		System.setProperty("logging.level.root", "WARN");
+		System.setProperty("servidor.threads-virtuais", String.valueOf("virtual".equals(opcoes.get("modo"))));
+
+		ConfigurableApplicationContext contexto = new SpringApplicationBuilder(ArtesanatoApplication.class)
+				.profiles("test")
+				.run();
+		try {
+			new ClientesLentos(opcoes).executar(contexto);
+		} finally {
+			contexto.close();
+		}
+	}
+
+	void executar(ConfigurableApplicationContext contexto) throws Exception {
+		porta = ((WebServerApplicationContext) contexto).getWebServer().getPort();
+		int clientes = inteiro("clientes", 2000);
+		long envioMs = TimeUnit.SECONDS.toMillis(inteiro("envio", 10));
+		long intervaloSondaNs = TimeUnit.MILLISECONDS.toNanos(inteiro("sonda", 50));
+
+		boolean virtual = !contexto.getBeansOfType(ThreadsVirtuaisConfiguration.class).isEmpty();
+		System.out.printf("Java %s, threads %s, %d clientes enviando o corpo em %d s, pool do banco com %s conexões%n",
+				System.getProperty("java.version"), virtual ? "virtuais" : "do pool do Tomcat", clientes, envioMs / 1000,
+				contexto.getEnvironment().getProperty("spring.datasource.hikari.maximum-pool-size", "10"));
+
+		Usuario usuario = contexto.getBean(UsuarioService.class).salvarUsuario(Usuario.builder()
+				.nome("Cliente lento")
+				.email("lento@carga.com")
+				.senha("carga")
+				.cpf("52998224725")
+				.celular("0")
+				.build());
+		idUsuario = usuario.getId();
+		token = contexto.getBean(JwtService.class).gerarToken(usuario);
+
+		aquecer(inteiro("aquecimento", 3000));
+
+		long chegadaNs = TimeUnit.SECONDS.toNanos(inteiro("chegada", 5));
+		CountDownLatch fim = new CountDownLatch(clientes);
+		long inicio = System.nanoTime();
+		for (int c = 0; c < clientes; c++) {
+			// os clientes chegam a intervalos iguais ao longo de "chegada" segundos
+			long entrada = inicio + chegadaNs * c / clientes;
+			Thread thread = new Thread(null, () -> {
+				try {
+					esperarAte(entrada);
+					enviarDevagar(envioMs);
+				} finally {
+					fim.countDown();
+				}
+			}, "cliente-" + c, 256 * 1024);
+			thread.setDaemon(true);
+			thread.start();
+		}
+
+		long proximaSonda = inicio;
+		while (fim.getCount() > 0) {
+			esperarAte(proximaSonda);
+			sondar(proximaSonda);
+			proximaSonda += intervaloSondaNs;
+		}
+		double segundos = (System.nanoTime() - inicio) / 1e9;
+
+		relatar(segundos, new File(opcao("saida", "target/carga/clientes-lentos-" + (virtual ? "virtual" : "plataforma"))));
+	}
+
+	/** Requisições rápidas de 8 clientes, para o JIT não pesar na medição; os números são descartados. */
+	private void aquecer(int requisicoes) throws InterruptedException {
+		Thread[] threads = new Thread[8];
+		for (int t = 0; t < threads.length; t++) {
+			threads[t] = new Thread(() -> {
+				for (int i = 0; i < requisicoes / threads.length; i++) {
+					enviarDevagar(0);
+					sondar(System.nanoTime());
+				}
+			});
+			threads[t].start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		envios.reset();
+		sondas.reset();
+		errosEnvio.set(0);
+		errosSonda.set(0);
+	}
+
+	private void enviarDevagar(long envioMs) {
+		long inicio = System.nanoTime();
+		byte[] corpo = ("{\"descricao\":\"Peça de cliente lento\",\"mes\":1,\"ano\":2020,\"valor\":10.00,"
+				+ "\"tipo\":\"CREDITO\",\"usuario\":" + idUsuario + "}").getBytes(StandardCharsets.UTF_8);
+		String cabecalho = "POST /api/pecas HTTP/1.1\r\n"
+				+ "Host: localhost\r\n"
+				+ "Authorization: Bearer " + token + "\r\n"
+				+ "Content-Type: application/json\r\n"
+				+ "Content-Length: " + corpo.length + "\r\n"
+				+ "Connection: close\r\n\r\n";
+
+		int status;
+		try (Socket socket = new Socket("localhost", porta)) {
+			socket.setSoTimeout((int) LATENCIA_MAXIMA_MS);
+			OutputStream saida = socket.getOutputStream();
+			saida.write(cabecalho.getBytes(StandardCharsets.US_ASCII));
+			saida.flush();
+			int tamanhoParte = (corpo.length + PARTES_CORPO - 1) / PARTES_CORPO;
+			for (int enviado = 0; enviado < corpo.length; enviado += tamanhoParte) {
+				if (envioMs > 0) {
+					Thread.sleep(envioMs / PARTES_CORPO);
+				}
+				saida.write(corpo, enviado, Math.min(tamanhoParte, corpo.length - enviado));
+				saida.flush();
+			}
+			status = lerStatus(socket.getInputStream());
+		} catch (IOException e) {
+			status = -1;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return;
+		}
+
+		envios.recordValue(Math.min(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio), LATENCIA_MAXIMA_MS));
+		if (status != 201) {
+			errosEnvio.incrementAndGet();
+		}
+	}
+
+	private void sondar(long marcado) {
+		int status;
+		try (Socket socket = new Socket("localhost", porta)) {
+			socket.setSoTimeout((int) LATENCIA_MAXIMA_MS);
+			socket.getOutputStream().write(("GET /actuator/info HTTP/1.1\r\nHost: localhost\r\nConnection: close\r\n\r\n")
+					.getBytes(StandardCharsets.US_ASCII));
+			status = lerStatus(socket.getInputStream());
+		} catch (IOException e) {
+			status = -1;
+		}
+
+		sondas.recordValue(Math.min(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - marcado), LATENCIA_MAXIMA_MS));
+		if (status != 200) {
+			errosSonda.incrementAndGet();
+		}
+	}
+
+	/** Código da linha de status ("HTTP/1.1 201 ..."); o resto da resposta é descartado. */
+	private static int lerStatus(InputStream entrada) throws IOException {
+		StringBuilder linha = new StringBuilder();
+		int c;
+		while ((c = entrada.read()) != -1 && c != '\n') {
+			linha.append((char) c);
+		}
+		String[] partes = linha.toString().split(" ");
+		return partes.length > 1 ? Integer.parseInt(partes[1]) : -1;
+	}
+
+	private static void esperarAte(long instante) {
+		long espera;
+		while ((espera = instante - System.nanoTime()) > 0) {
+			LockSupport.parkNanos(espera);
+		}
+	}
+
+	private void relatar(double segundos, File saida) throws IOException {
+		saida.mkdirs();
+		System.out.printf("%nConcluído em %.1f s.%n", segundos);
+		System.out.printf("%n%-8s %9s %7s %9s %9s %9s %9s%n", "medida", "req", "erros", "p50 ms", "p99 ms", "p999 ms", "max ms");
+		relatar("envio", envios, errosEnvio.get(), saida);
+		relatar("sonda", sondas, errosSonda.get(), saida);
+		System.out.printf("%nDistribuições em %s (*.hgrm, em ms).%n", saida.getAbsolutePath());
+	}
+
+	private static void relatar(String nome, Histogram histograma, long erros, File saida) throws IOException {
+		System.out.printf("%-8s %9d %7d %9d %9d %9d %9d%n",
+				nome,
+				histograma.getTotalCount(),
+				erros,
+				histograma.getValueAtPercentile(50),
+				histograma.getValueAtPercentile(99),
+				histograma.getValueAtPercentile(99.9),
+				histograma.getMaxValue());
+		try (PrintStream arquivo = new PrintStream(new File(saida, nome + ".hgrm"), "UTF-8")) {
+			histograma.outputPercentileDistribution(arquivo, 1.0);
+		}
+	}
+
+	private String opcao(String chave, String padrao) {
+		return opcoes.getOrDefault(chave, padrao);
+	}
+
+	private int inteiro(String chave, int padrao) {
+		return Integer.parseInt(opcao(chave, String.valueOf(padrao)));
+	}
+}
@@ -0,0 +1,180 @@
+package com.starking.artesanato.carga;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.starking.artesanato.ArtesanatoApplication;
+import com.starking.artesanato.model.enums.StatusPagamento;
+import com.starking.artesanato.model.enums.TipoPagamento;
+
+/**
+ * Carrega peças sintéticas direto por JDBC, em lotes, sem passar pelos
+ * serviços. A distribuição entre usuários segue uma Zipf (expoente 1,1): o
+ * primeiro usuário tem a maior parte das peças, e a cauda tem muitos usuários
+ * com poucas. O número de usuários cresce com o volume, uma para cada cem
+ * peças.
+ * <p>
+ * Como a carga não publica eventos, o índice de descrições carrega os usuários
+ * sob demanda e a tabela saldo_usuario fica vazia; o saldo é então calculado
+ * pelo agregado. Ao final a sequência das peças é reposicionada depois do
+ * último id gravado.
+ * <p>
+ * Para carregar a base configurada no application.properties:
+ * {@code mvn -Pcarga test-compile exec:exec -Dcarga.principal=com.starking.artesanato.carga.GeradorPecas -Dcarga.opcoes="pecas=1000000"}.
+ */
+public class GeradorPecas {
+
+	public static final String PREFIXO_EMAIL = "gerado";
+	static final String[] DESCRICOES = {
+			"Vaso de cerâmica", "Colar de miçangas", "Cesto de palha", "Tapete de crochê",
+			"Quadro em madeira", "Bolsa de couro", "Pulseira de prata", "Toalha bordada" };
+
+	private static final int LOTE = 1000;
+	private static final double EXPOENTE_ZIPF = 1.1;
+
+	private final JdbcTemplate jdbc;
+
+	public GeradorPecas(JdbcTemplate jdbc) {
+		this.jdbc = jdbc;
+	}
+
+	/** Resumo do que foi gravado, com o usuário de mais peças e o de menos. */
+	public static class Massa {
+
+		public final long pecas;
+		public final long idPrimeiraPeca;
+		public final long idUsuarioPesado;
+		public final long pecasUsuarioPesado;
+		public final long idUsuarioLeve;
+		public final long pecasUsuarioLeve;
+
+		public Massa(long pecas, long idPrimeiraPeca, long idUsuarioPesado, long pecasUsuarioPesado, long idUsuarioLeve,
+				long pecasUsuarioLeve) {
+			this.pecas = pecas;
+			this.idPrimeiraPeca = idPrimeiraPeca;
+			this.idUsuarioPesado = idUsuarioPesado;
+			this.pecasUsuarioPesado = pecasUsuarioPesado;
+			this.idUsuarioLeve = idUsuarioLeve;
+			this.pecasUsuarioLeve = pecasUsuarioLeve;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%d peças; usuário pesado %d com %d peças, leve %d com %d",
+					pecas, idUsuarioPesado, pecasUsuarioPesado, idUsuarioLeve, pecasUsuarioLeve);
+		}
+	}
+
+	public Massa gerar(long quantidade, long semente) {
+		SplittableRandom aleatorio = new SplittableRandom(semente);
+		int usuarios = (int) Math.max(10, quantidade / 100);
+		long[] idsUsuarios = gravarUsuarios(usuarios);
+
+		double[] acumulado = new double[usuarios];
+		double soma = 0;
+		for (int i = 0; i < usuarios; i++) {
+			soma += 1 / Math.pow(i + 1, EXPOENTE_ZIPF);
+			acumulado[i] = soma;
+		}
+
+		long[] pecasPorUsuario = new long[usuarios];
+		Long maiorId = jdbc.queryForObject("select max(id) from artesanato.pecas", Long.class);
+		long primeiroId = maiorId == null ? 1 : maiorId + 1;
+		List<Object[]> lote = new ArrayList<>(LOTE);
+		LocalDate hoje = LocalDate.now();
+
+		for (long n = 0; n < quantidade; n++) {
+			int posicao = Arrays.binarySearch(acumulado, aleatorio.nextDouble() * soma);
+			int usuario = Math.min(posicao < 0 ? -posicao - 1 : posicao, usuarios - 1);
+			pecasPorUsuario[usuario]++;
+
+			int sorteio = aleatorio.nextInt(10);
+			StatusPagamento status = sorteio < 6 ? StatusPagamento.EFETIVADO
+					: sorteio < 9 ? StatusPagamento.PENDENTE : StatusPagamento.CANCELADO;
+			lote.add(new Object[] {
+					primeiroId + n,
+					DESCRICOES[aleatorio.nextInt(DESCRICOES.length)] + " " + aleatorio.nextInt(10000),
+					1 + aleatorio.nextInt(12),
+					2018 + aleatorio.nextInt(4),
+					BigDecimal.valueOf(100 + aleatorio.nextInt(100000), 2),
+					(aleatorio.nextInt(4) == 0 ? TipoPagamento.PIX : TipoPagamento.CREDITO).name(),
+					status.name(),
+					idsUsuarios[usuario],
+					Date.valueOf(hoje.minusDays(aleatorio.nextInt(1500))) });
+			if (lote.size() == LOTE) {
+				gravarPecas(lote);
+				lote.clear();
+			}
+		}
+		if (!lote.isEmpty()) {
+			gravarPecas(lote);
+		}
+
+		jdbc.execute("alter sequence artesanato.pecas_seq restart with " + (primeiroId + quantidade));
+		jdbc.execute("analyze");
+
+		int leve = usuarios - 1;
+		while (leve > 0 && pecasPorUsuario[leve] == 0) {
+			leve--;
+		}
+		return new Massa(quantidade, primeiroId, idsUsuarios[0], pecasPorUsuario[0], idsUsuarios[leve], pecasPorUsuario[leve]);
+	}
+
+	private long[] gravarUsuarios(int usuarios) {
+		String execucao = Long.toString(System.nanoTime(), 36);
+		List<Object[]> lote = new ArrayList<>(usuarios);
+		for (int i = 0; i < usuarios; i++) {
+			// a senha não é usada: os usuários gerados não se autenticam
+			lote.add(new Object[] { "Gerado " + i, PREFIXO_EMAIL + execucao + "-" + i + "@gerado.com", null, null, "-" });
+		}
+		for (int inicio = 0; inicio < usuarios; inicio += LOTE) {
+			jdbc.batchUpdate("insert into artesanato.usuario (nome, email, cpf, celular, senha) values (?, ?, ?, ?, ?)",
+					lote.subList(inicio, Math.min(inicio + LOTE, usuarios)));
+		}
+		return jdbc.queryForList("select id from artesanato.usuario where email like ? order by id", Long.class,
+				PREFIXO_EMAIL + execucao + "-%").stream().mapToLong(Long::longValue).toArray();
+	}
+
+	private void gravarPecas(List<Object[]> lote) {
+		jdbc.batchUpdate("insert into artesanato.pecas (id, descricao, mes, ano, valor, tipo, status, id_usuario, data_cadastro)"
+				+ " values (?, ?, ?, ?, ?, ?, ?, ?, ?)", lote);
+	}
+
+	/**
+	 * Carrega a base do perfil ativo (por padrão, a do application.properties).
+	 * Opções: pecas (quantidade) e semente.
+	 */
+	public static void main(String[] args) {
+		long quantidade = 100000;
+		long semente = 42;
+		for (String arg : args) {
+			for (String opcao : arg.trim().split("\\s+")) {
+				if (opcao.startsWith("pecas=")) {
+					quantidade = Long.parseLong(opcao.substring("pecas=".length()));
+				} else if (opcao.startsWith("semente=")) {
+					semente = Long.parseLong(opcao.substring("semente=".length()));
+				}
+			}
+		}
+
+		System.setProperty("spring.devtools.restart.enabled", "false");
+		// o @EnableWebMvc exige o contexto web; sobe numa porta livre
+		System.setProperty("server.port", "0");
+		System.setProperty("pecas.indice.carregar-na-inicializacao", "false");
+		try (ConfigurableApplicationContext contexto = new SpringApplicationBuilder(ArtesanatoApplication.class)
+				.run()) {
+			long inicio = System.nanoTime();
+			Massa massa = new GeradorPecas(contexto.getBean(JdbcTemplate.class)).gerar(quantidade, semente);
+			System.out.printf("Gravadas %s em %.1fs.%n", massa, (System.nanoTime() - inicio) / 1e9);
+		}
+	}
+}
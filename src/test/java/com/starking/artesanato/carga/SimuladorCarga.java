@@ -0,0 +1,398 @@
+package com.starking.artesanato.carga;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.math.BigDecimal;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.starking.artesanato.ArtesanatoApplication;
+import com.starking.artesanato.config.ReativoConfiguration.ServidorReativo;
+import com.starking.artesanato.model.entity.Pecas;
+import com.starking.artesanato.model.entity.Usuario;
+import com.starking.artesanato.model.enums.TipoPagamento;
+import com.starking.artesanato.service.LotePecasService;
+import com.starking.artesanato.service.ResultadoItemLote;
+import com.starking.artesanato.service.UsuarioService;
+
+/**
+ * Teste de carga de ponta a ponta: sobe a aplicação com o perfil test (H2 em
+ * memória) numa porta livre, grava a massa de dados pelos serviços e dispara
+ * as operações por HTTP.
+ * <p>
+ * A carga é de laço aberto: a operação k tem hora marcada em
+ * {@code inicio + k / taxa}, e cada cliente atende as operações
+ * {@code k ≡ cliente (mod clientes)}. A latência é medida a partir da hora
+ * marcada, não do envio, para que um servidor lento não reduza a própria carga
+ * (omissão coordenada). Operações e dados saem de geradores com semente fixa,
+ * então duas execuções com as mesmas opções fazem as mesmas requisições.
+ * <p>
+ * Uso: {@code mvn -Pcarga test-compile exec:exec -Dcarga.opcoes="taxa=800 clientes=32"}.
+ * Opções (chave=valor): usuarios, pecasPorUsuario, clientes, taxa (req/s),
+ * aquecimento e duracao (segundos), semente, mix (ex.:
+ * {@code autenticar:5,listar:50,criar:15,status:15,saldo:15}), leitura
+ * ({@code servlet} ou {@code reativa}, que manda listar e saldo para a API
+ * reativa) e saida (diretório dos arquivos .hgrm).
+ */
+public class SimuladorCarga {
+
+	private static final String SENHA = "carga";
+	private static final long LATENCIA_MAXIMA_US = TimeUnit.MINUTES.toMicros(1);
+
+	enum Operacao {
+		AUTENTICAR("autenticar"), LISTAR("listar"), CRIAR("criar"), STATUS("status"), SALDO("saldo");
+
+		final String nome;
+
+		Operacao(String nome) {
+			this.nome = nome;
+		}
+	}
+
+	private final Map<String, String> opcoes;
+	private final ObjectMapper objectMapper = new ObjectMapper();
+	private final Map<Operacao, Integer> mix = new EnumMap<>(Operacao.class);
+	private final Map<Operacao, Histogram> histogramas = new EnumMap<>(Operacao.class);
+	private final AtomicLongArray erros = new AtomicLongArray(Operacao.values().length);
+
+	private String base;
+	private String baseLeitura;
+	private List<Long> idsUsuarios = new ArrayList<>();
+	private List<String> tokens = new ArrayList<>();
+	private List<long[]> pecasPorUsuario = new ArrayList<>();
+
+	SimuladorCarga(Map<String, String> opcoes) {
+		this.opcoes = opcoes;
+		for (String parte : opcao("mix", "autenticar:5,listar:50,criar:15,status:15,saldo:15").split(",")) {
+			String[] pesoOperacao = parte.split(":");
+			mix.put(Operacao.valueOf(pesoOperacao[0].trim().toUpperCase()), Integer.valueOf(pesoOperacao[1].trim()));
+		}
+		for (Operacao operacao : Operacao.values()) {
+			histogramas.put(operacao, new ConcurrentHistogram(LATENCIA_MAXIMA_US, 3));
+		}
+	}
+
+	public static void main(String[] args) throws Exception {
+		Map<String, String> opcoes = new LinkedHashMap<>();
+		for (String arg : args) {
+			for (String opcao : arg.trim().split("\\s+")) {
+				int igual = opcao.indexOf('=');
+				if (igual > 0) {
+					opcoes.put(opcao.substring(0, igual), opcao.substring(igual + 1));
+				}
+			}
+		}
+
+		int clientes = Integer.parseInt(opcoes.getOrDefault("clientes", "16"));
+		// o keep-alive do HttpURLConnection guarda só 5 conexões por host por padrão
+		System.setProperty("http.maxConnections", String.valueOf(clientes));
+
+		// propriedades de sistema, para valerem acima do application.properties
+		System.setProperty("spring.devtools.restart.enabled", "false");
+		System.setProperty("server.port", "0");
+		System.setProperty("logging.file", "target/carga/aplicacao.log");
+		System.setProperty("logging.level.root", "WARN");
+		if ("reativa".equals(opcoes.get("leitura"))) {
+			System.setProperty("reativo.habilitado", "true");
+			System.setProperty("reativo.porta", "0");
+		}
+
+		ConfigurableApplicationContext contexto = new SpringApplicationBuilder(ArtesanatoApplication.class)
+				.profiles("test")
+				.run();
+		try {
+			new SimuladorCarga(opcoes).executar(contexto);
+		} finally {
+			contexto.close();
+		}
+	}
+
+	void executar(ConfigurableApplicationContext contexto) throws Exception {
+		int porta = ((WebServerApplicationContext) contexto).getWebServer().getPort();
+		base = "http://localhost:" + porta;
+		baseLeitura = base;
+		for (ServidorReativo servidor : contexto.getBeansOfType(ServidorReativo.class).values()) {
+			baseLeitura = "http://localhost:" + servidor.getPorta();
+		}
+
+		long semente = Long.parseLong(opcao("semente", "42"));
+		int clientes = inteiro("clientes", 16);
+		int taxa = inteiro("taxa", 500);
+		int aquecimento = inteiro("aquecimento", 10);
+		int duracao = inteiro("duracao", 30);
+
+		System.out.printf("Massa: %s usuários x %s peças; carga: %d req/s, %d clientes, %ds de aquecimento + %ds, semente %d, mix %s, leitura em %s%n",
+				opcao("usuarios", "50"), opcao("pecasPorUsuario", "200"), taxa, clientes, aquecimento, duracao, semente, mix, baseLeitura);
+		semear(contexto, inteiro("usuarios", 50), inteiro("pecasPorUsuario", 200), semente);
+
+		if (aquecimento > 0) {
+			disparar(clientes, taxa, aquecimento, semente);
+			histogramas.values().forEach(Histogram::reset);
+			for (int i = 0; i < erros.length(); i++) {
+				erros.set(i, 0);
+			}
+		}
+		long inicio = System.nanoTime();
+		disparar(clientes, taxa, duracao, semente + 1);
+		double segundos = (System.nanoTime() - inicio) / 1e9;
+
+		relatar(segundos, new File(opcao("saida", "target/carga")));
+	}
+
+	/** Grava os usuários pelo serviço (a senha passa pelo BCrypt) e as peças em lote. */
+	private void semear(ConfigurableApplicationContext contexto, int usuarios, int pecas, long semente) throws IOException {
+		UsuarioService usuarioService = contexto.getBean(UsuarioService.class);
+		LotePecasService loteService = contexto.getBean(LotePecasService.class);
+		SplittableRandom aleatorio = new SplittableRandom(semente);
+
+		for (int u = 0; u < usuarios; u++) {
+			Usuario usuario = usuarioService.salvarUsuario(Usuario.builder()
+					.nome("Carga " + u)
+					.email(email(u))
+					.senha(SENHA)
+					.cpf(cpf(100000000 + u))
+					.celular("0")
+					.build());
+			idsUsuarios.add(usuario.getId());
+
+			List<Pecas> lote = new ArrayList<>(pecas);
+			for (int p = 0; p < pecas; p++) {
+				lote.add(novaPeca(usuario.getId(), aleatorio));
+			}
+			pecasPorUsuario.add(loteService.salvar(lote).stream().mapToLong(ResultadoItemLote::getId).toArray());
+
+			tokens.add(objectMapper.readTree(enviar("POST", "/api/usuarios/autenticar", null, credenciais(u)).corpo)
+					.get("token").asText());
+		}
+	}
+
+	/**
+	 * Dispara {@code taxa * segundos} operações e espera todas terminarem. Cada
+	 * cliente dorme até a hora marcada da sua próxima operação; se já estiver
+	 * atrasado, envia em seguida e o atraso entra na latência.
+	 */
+	private void disparar(int clientes, int taxa, int segundos, long semente) throws InterruptedException {
+		long total = (long) taxa * segundos;
+		double intervaloNs = 1e9 / taxa;
+		long inicio = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(100);
+		CountDownLatch fim = new CountDownLatch(clientes);
+
+		for (int c = 0; c < clientes; c++) {
+			int cliente = c;
+			Thread thread = new Thread(() -> {
+				try {
+					for (long k = cliente; k < total; k += clientes) {
+						long marcado = inicio + (long) (k * intervaloNs);
+						long espera;
+						while ((espera = marcado - System.nanoTime()) > 0) {
+							LockSupport.parkNanos(espera);
+						}
+						executar(k, new SplittableRandom(semente * 31 + k), marcado);
+					}
+				} finally {
+					fim.countDown();
+				}
+			}, "carga-" + c);
+			thread.setDaemon(true);
+			thread.start();
+		}
+		fim.await();
+	}
+
+	private void executar(long k, SplittableRandom aleatorio, long marcado) {
+		Operacao operacao = sortear(aleatorio);
+		int u = aleatorio.nextInt(idsUsuarios.size());
+		Long idUsuario = idsUsuarios.get(u);
+		String token = tokens.get(u);
+		Resposta resposta;
+		try {
+			switch (operacao) {
+			case AUTENTICAR:
+				resposta = enviar("POST", "/api/usuarios/autenticar", null, credenciais(u));
+				break;
+			case LISTAR:
+				resposta = enviar(baseLeitura, "GET", "/api/pecas?usuario=" + idUsuario + "&ano=2020&mes=" + (1 + aleatorio.nextInt(12)) + "&limit=50", token, null);
+				break;
+			case CRIAR:
+				resposta = enviar("POST", "/api/pecas", token, objectMapper.writeValueAsString(dto(novaPeca(idUsuario, aleatorio))));
+				break;
+			case STATUS:
+				long[] pecas = pecasPorUsuario.get(u);
+				String status = aleatorio.nextBoolean() ? "EFETIVADO" : "PENDENTE";
+				resposta = enviar("PUT", "/api/pecas/" + pecas[aleatorio.nextInt(pecas.length)] + "/atualiza-status", token,
+						"{\"status\":\"" + status + "\"}");
+				break;
+			default:
+				resposta = enviar(baseLeitura, "GET", "/api/usuarios/" + idUsuario + "/saldo", token, null);
+			}
+		} catch (IOException e) {
+			resposta = new Resposta(-1, null);
+		}
+
+		long latenciaUs = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - marcado);
+		histogramas.get(operacao).recordValue(Math.min(latenciaUs, LATENCIA_MAXIMA_US));
+		if (resposta.status < 200 || resposta.status >= 300) {
+			erros.incrementAndGet(operacao.ordinal());
+		}
+	}
+
+	private void relatar(double segundos, File saida) throws IOException {
+		saida.mkdirs();
+		System.out.printf("%n%-11s %9s %7s %9s %9s %9s %9s %9s%n", "operacao", "req", "erros", "req/s", "p50 ms", "p99 ms", "p999 ms", "max ms");
+		for (Operacao operacao : Operacao.values()) {
+			Histogram histograma = histogramas.get(operacao);
+			if (histograma.getTotalCount() == 0) {
+				continue;
+			}
+			System.out.printf("%-11s %9d %7d %9.1f %9.2f %9.2f %9.2f %9.2f%n",
+					operacao.nome,
+					histograma.getTotalCount(),
+					erros.get(operacao.ordinal()),
+					histograma.getTotalCount() / segundos,
+					histograma.getValueAtPercentile(50) / 1000.0,
+					histograma.getValueAtPercentile(99) / 1000.0,
+					histograma.getValueAtPercentile(99.9) / 1000.0,
+					histograma.getMaxValue() / 1000.0);
+			try (PrintStream arquivo = new PrintStream(new File(saida, operacao.nome + ".hgrm"), "UTF-8")) {
+				histograma.outputPercentileDistribution(arquivo, 1000.0);
+			}
+		}
+		System.out.printf("%nDistribuições em %s (*.hgrm, em ms).%n", saida.getAbsolutePath());
+	}
+
+	private Operacao sortear(SplittableRandom aleatorio) {
+		int total = mix.values().stream().mapToInt(Integer::intValue).sum();
+		int sorteado = aleatorio.nextInt(total);
+		for (Map.Entry<Operacao, Integer> peso : mix.entrySet()) {
+			sorteado -= peso.getValue();
+			if (sorteado < 0) {
+				return peso.getKey();
+			}
+		}
+		throw new IllegalStateException("Mix vazio.");
+	}
+
+	private Resposta enviar(String metodo, String caminho, String token, String corpo) throws IOException {
+		return enviar(base, metodo, caminho, token, corpo);
+	}
+
+	private Resposta enviar(String base, String metodo, String caminho, String token, String corpo) throws IOException {
+		HttpURLConnection conexao = (HttpURLConnection) new URL(base + caminho).openConnection();
+		conexao.setRequestMethod(metodo);
+		if (token != null) {
+			conexao.setRequestProperty("Authorization", "Bearer " + token);
+		}
+		if (corpo != null) {
+			conexao.setDoOutput(true);
+			conexao.setRequestProperty("Content-Type", "application/json");
+			try (OutputStream saida = conexao.getOutputStream()) {
+				saida.write(corpo.getBytes(StandardCharsets.UTF_8));
+			}
+		}
+		int status = conexao.getResponseCode();
+		// lê a resposta inteira para a conexão voltar ao pool do keep-alive
+		InputStream entrada = status >= 400 ? conexao.getErrorStream() : conexao.getInputStream();
+		String resposta = null;
+		if (entrada != null) {
+			try (InputStream in = entrada) {
+				resposta = new String(ler(in), StandardCharsets.UTF_8);
+			}
+		}
+		return new Resposta(status, resposta);
+	}
+
+	private static byte[] ler(InputStream entrada) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		byte[] buffer = new byte[8192];
+		int lidos;
+		while ((lidos = entrada.read(buffer)) != -1) {
+			bytes.write(buffer, 0, lidos);
+		}
+		return bytes.toByteArray();
+	}
+
+	private static Pecas novaPeca(Long idUsuario, SplittableRandom aleatorio) {
+		return Pecas.builder()
+				.descricao("Peça de carga " + aleatorio.nextInt(1000))
+				.mes(1 + aleatorio.nextInt(12))
+				.ano(2020)
+				.valor(BigDecimal.valueOf(1 + aleatorio.nextInt(10000), 2))
+				.tipo(aleatorio.nextBoolean() ? TipoPagamento.CREDITO : TipoPagamento.PIX)
+				.usuario(Usuario.builder().id(idUsuario).build())
+				.build();
+	}
+
+	private static Map<String, Object> dto(Pecas pecas) {
+		Map<String, Object> dto = new LinkedHashMap<>();
+		dto.put("descricao", pecas.getDescricao());
+		dto.put("mes", pecas.getMes());
+		dto.put("ano", pecas.getAno());
+		dto.put("valor", pecas.getValor());
+		dto.put("tipo", pecas.getTipo().name());
+		dto.put("usuario", pecas.getUsuario().getId());
+		return dto;
+	}
+
+	private static String email(int u) {
+		return "carga" + u + "@carga.com";
+	}
+
+	/** CPF válido com os nove primeiros dígitos dados. */
+	private static String cpf(int base) {
+		StringBuilder cpf = new StringBuilder(String.format("%09d", base));
+		for (int digito = 0; digito < 2; digito++) {
+			int soma = 0;
+			for (int i = 0; i < cpf.length(); i++) {
+				soma += (cpf.charAt(i) - '0') * (cpf.length() + 1 - i);
+			}
+			int resto = soma % 11;
+			cpf.append(resto < 2 ? 0 : 11 - resto);
+		}
+		return cpf.toString();
+	}
+
+	private static String credenciais(int u) {
+		return "{\"email\":\"" + email(u) + "\",\"senha\":\"" + SENHA + "\"}";
+	}
+
+	private String opcao(String chave, String padrao) {
+		return opcoes.getOrDefault(chave, padrao);
+	}
+
+	private int inteiro(String chave, int padrao) {
+		return Integer.parseInt(opcao(chave, String.valueOf(padrao)));
+	}
+
+	private static final class Resposta {
+
+		final int status;
+		final String corpo;
+
+		Resposta(int status, String corpo) {
+			this.status = status;
+			this.corpo = corpo;
+		}
+	}
+}
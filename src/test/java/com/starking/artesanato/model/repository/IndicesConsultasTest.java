@@ -0,0 +1,207 @@
+package com.starking.artesanato.model.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import org.hibernate.Session;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase.Replace;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import com.starking.artesanato.model.entity.ChaveResumoMensal;
+import com.starking.artesanato.model.entity.Pecas;
+import com.starking.artesanato.model.entity.Usuario;
+import com.starking.artesanato.model.enums.StatusPagamento;
+import com.starking.artesanato.model.enums.TipoPagamento;
+
+/**
+ * Roda o EXPLAIN do H2 para o SQL que o Hibernate gera em cada consulta dos
+ * repositórios, sobre o esquema das migrações, e falha se alguma ler a tabela
+ * inteira. Ficam de fora as que leem todas as linhas de propósito:
+ * {@code listarDescricoes} (carga do índice de descrições),
+ * {@code obterSaldosEfetivados} e o {@code findAll} da verificação agendada
+ * dos saldos.
+ */
+@ExtendWith(SpringExtension.class)
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+		+ "com.starking.artesanato.model.repository.IndicesConsultasTest$ConsultasExecutadas")
+@AutoConfigureTestDatabase(replace = Replace.NONE)
+@ActiveProfiles("test")
+public class IndicesConsultasTest {
+
+	/** Tabela ou índice percorrido sem condição: "/* ARTESANATO.PECAS.tableScan *&#47;" ou "/* ARTESANATO.IDX *&#47;". */
+	static final Pattern VARREDURA = Pattern.compile("/\\* [A-Z0-9_]+\\.[A-Z0-9_]+(\\.tableScan)? \\*/");
+
+	@Autowired
+	PecasRepository pecasRepository;
+	
+	@Autowired
+	UsuarioRepository usuarioRepository;
+	
+	@Autowired
+	SaldoUsuarioRepository saldoRepository;
+	
+	@Autowired
+	ResumoMensalRepository resumoRepository;
+	
+	@Autowired
+	TestEntityManager entityManager;
+	
+	@Test
+	public void asConsultasDosRepositoriosNaoDevemLerATabelaInteira() {
+		//cenário
+		Usuario usuario = entityManager.persist(Usuario.builder().nome("usuario").email("usuario@email.com").senha("senha").build());
+		Pecas pecas = PecasRepositoryTest.criarPecas();
+		pecas.setUsuario(usuario);
+		pecas = entityManager.persist(pecas);
+		entityManager.flush();
+		
+		Long id = pecas.getId();
+		Long idUsuario = usuario.getId();
+		List<Long> ids = Arrays.asList(id, id + 1);
+		List<StatusPagamento> origens = Arrays.asList(StatusPagamento.PENDENTE, StatusPagamento.EFETIVADO);
+		ChaveResumoMensal chave = new ChaveResumoMensal(idUsuario, 2019, 1, TipoPagamento.CREDITO, StatusPagamento.PENDENTE);
+		Pecas porUsuario = filtro(idUsuario, null, null, null);
+		Pecas porMes = filtro(idUsuario, 2019, 1, null);
+		Pecas porDescricao = filtro(idUsuario, 2019, 1, "qualquer");
+		Pecas alterada = filtro(idUsuario, 2019, 1, "alterada");
+		alterada.setId(id);
+		
+		Map<String, Runnable> consultas = new LinkedHashMap<>();
+		consultas.put("PecasRepository.findById", () -> pecasRepository.findById(id));
+		consultas.put("PecasRepository.obterDTO", () -> pecasRepository.obterDTO(id));
+		consultas.put("PecasRepository.obterDTOs", () -> pecasRepository.obterDTOs(ids));
+		consultas.put("PecasRepository.buscarPagina (usuário)", () -> pecasRepository.buscarPagina(porUsuario, null, 100));
+		consultas.put("PecasRepository.buscarPagina (usuário, após id)", () -> pecasRepository.buscarPagina(porUsuario, id, 100));
+		consultas.put("PecasRepository.buscarPagina (ano e mês)", () -> pecasRepository.buscarPagina(porMes, id, 100));
+		consultas.put("PecasRepository.buscarPagina (descrição)", () -> pecasRepository.buscarPagina(porDescricao, null, 100));
+		consultas.put("PecasRepository.buscarSituacoes (usuário)", () -> pecasRepository.buscarSituacoes(porUsuario, origens));
+		consultas.put("PecasRepository.buscarSituacoes (ano e mês)", () -> pecasRepository.buscarSituacoes(porMes, origens));
+		consultas.put("PecasRepository.obterSaldoPorTipoPecaEUsuarioEStatus", () -> pecasRepository
+				.obterSaldoPorTipoPecaEUsuarioEStatus(idUsuario, TipoPagamento.CREDITO, StatusPagamento.EFETIVADO));
+		consultas.put("PecasRepository.obterSaldoEfetivado", () -> pecasRepository
+				.obterSaldoEfetivado(idUsuario, TipoPagamento.CREDITO, StatusPagamento.EFETIVADO));
+		consultas.put("PecasRepository.obterSaldosEfetivadosPorUsuarios", () -> pecasRepository
+				.obterSaldosEfetivadosPorUsuarios(ids, TipoPagamento.CREDITO, StatusPagamento.EFETIVADO));
+		consultas.put("PecasRepository.obterResumosMensais", () -> pecasRepository.obterResumosMensais(idUsuario));
+		consultas.put("PecasRepository.obterResumosMensaisPorUsuarios", () -> pecasRepository.obterResumosMensaisPorUsuarios(ids));
+		consultas.put("PecasRepository.obterSituacao", () -> pecasRepository.obterSituacao(id));
+		consultas.put("PecasRepository.obterSituacoes", () -> pecasRepository.obterSituacoes(ids, origens));
+		consultas.put("PecasRepository.atualizarStatus", () -> pecasRepository.atualizarStatus(ids, StatusPagamento.CANCELADO, origens));
+		consultas.put("PecasRepository.atualizarStatusNaVersao", () -> pecasRepository.atualizarStatusNaVersao(id, StatusPagamento.CANCELADO, 99l));
+		consultas.put("PecasRepository.atualizarNaVersao", () -> pecasRepository.atualizarNaVersao(alterada, 99l));
+		consultas.put("PecasRepository.deletarNaVersao", () -> pecasRepository.deletarNaVersao(id, 99l));
+		consultas.put("PecasRepository.countByUsuarioId", () -> pecasRepository.countByUsuarioId(idUsuario));
+		consultas.put("PecasRepository.listarDescricoesPorUsuario", () -> {
+			try (Stream<Object[]> linhas = pecasRepository.listarDescricoesPorUsuario(idUsuario)) {
+				linhas.count();
+			}
+		});
+		consultas.put("PecasRepository.percorrerPorUsuario", () -> pecasRepository.percorrerPorUsuario(idUsuario, peca -> {}));
+		consultas.put("UsuarioRepository.findById", () -> usuarioRepository.findById(idUsuario));
+		consultas.put("UsuarioRepository.existsByEmail", () -> usuarioRepository.existsByEmail("usuario@email.com"));
+		consultas.put("UsuarioRepository.findByEmail", () -> usuarioRepository.findByEmail("usuario@email.com"));
+		consultas.put("UsuarioRepository.obterIdPorEmail", () -> usuarioRepository.obterIdPorEmail("usuario@email.com"));
+		consultas.put("UsuarioRepository.atualizarSenha", () -> usuarioRepository.atualizarSenha(idUsuario, "outra", "nova"));
+		consultas.put("SaldoUsuarioRepository.obterSaldo", () -> saldoRepository.obterSaldo(idUsuario));
+		consultas.put("SaldoUsuarioRepository.somarAoSaldo", () -> saldoRepository.somarAoSaldo(idUsuario, BigDecimal.ONE));
+		consultas.put("SaldoUsuarioRepository.corrigirSaldo", () -> saldoRepository.corrigirSaldo(idUsuario, BigDecimal.ONE));
+		consultas.put("ResumoMensalRepository.obterPorUsuario", () -> resumoRepository.obterPorUsuario(idUsuario));
+		consultas.put("ResumoMensalRepository.obterPorUsuarios", () -> resumoRepository.obterPorUsuarios(ids));
+		consultas.put("ResumoMensalRepository.obterIdsUsuarios", () -> resumoRepository.obterIdsUsuarios(0l, PageRequest.of(0, 500)));
+		consultas.put("ResumoMensalRepository.existsByChaveIdUsuario", () -> resumoRepository.existsByChaveIdUsuario(idUsuario));
+		consultas.put("ResumoMensalRepository.somar", () -> resumoRepository.somar(chave, 1, BigDecimal.ONE));
+		consultas.put("ResumoMensalRepository.removerPorUsuario", () -> resumoRepository.removerPorUsuario(idUsuario));
+		
+		//execucao
+		Map<String, String> semSql = new LinkedHashMap<>();
+		Map<String, String> varreduras = new LinkedHashMap<>();
+		consultas.forEach((nome, consulta) -> {
+			entityManager.clear();
+			ConsultasExecutadas.limpar();
+			consulta.run();
+			List<String> executadas = ConsultasExecutadas.obter();
+			if(executadas.isEmpty()) {
+				semSql.put(nome, "nenhum SQL executado");
+			}
+			for(String sql : executadas) {
+				String plano = explicar(sql);
+				if(VARREDURA.matcher(plano).find()) {
+					varreduras.put(nome, plano);
+				}
+			}
+		});
+		
+		//verificacao
+		assertThat(semSql).isEmpty();
+		assertThat(varreduras).isEmpty();
+	}
+	
+	private String explicar(String sql) {
+		return entityManager.getEntityManager().unwrap(Session.class).doReturningWork(conexao -> {
+			try (PreparedStatement explain = conexao.prepareStatement("explain " + sql)) {
+				// o plano do H2 não depende dos valores; null serve para qualquer tipo
+				for(int i = 1; i <= explain.getParameterMetaData().getParameterCount(); i++) {
+					explain.setObject(i, null);
+				}
+				try (ResultSet plano = explain.executeQuery()) {
+					plano.next();
+					return plano.getString(1);
+				}
+			}
+		});
+	}
+	
+	private static Pecas filtro(Long idUsuario, Integer ano, Integer mes, String descricao) {
+		return Pecas.builder()
+				.usuario(Usuario.builder().id(idUsuario).build())
+				.ano(ano)
+				.mes(mes)
+				.descricao(descricao)
+				.build();
+	}
+
+	/** Guarda o SQL de leitura e alteração que o Hibernate envia ao banco nesta thread. */
+	public static class ConsultasExecutadas implements StatementInspector {
+
+		private static final long serialVersionUID = 1L;
+
+		private static final ThreadLocal<List<String>> EXECUTADAS = ThreadLocal.withInitial(ArrayList::new);
+
+		@Override
+		public String inspect(String sql) {
+			String comando = sql.trim().toLowerCase();
+			if(comando.startsWith("select") || comando.startsWith("update") || comando.startsWith("delete")) {
+				EXECUTADAS.get().add(sql);
+			}
+			return sql;
+		}
+
+		static void limpar() {
+			EXECUTADAS.get().clear();
+		}
+
+		static List<String> obter() {
+			return Collections.unmodifiableList(new ArrayList<>(EXECUTADAS.get()));
+		}
+	}
+}
@@ -4,8 +4,11 @@ import static org.assertj.core.api.Assertions.assertThat;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 
+import org.hibernate.Session;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -16,7 +19,9 @@ import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
+import com.starking.artesanato.api.dto.PecasDTO;
 import com.starking.artesanato.model.entity.Pecas;
+import com.starking.artesanato.model.entity.Usuario;
 import com.starking.artesanato.model.enums.StatusPagamento;
 import com.starking.artesanato.model.enums.TipoPagamento;
 
@@ -80,6 +85,77 @@ public class PecasRepositoryTest {
 		assertThat(pecaEncontrado.isPresent()).isTrue();
 	}
 
+	@Test
+	public void deveBuscarPaginasPeloCursorDoUltimoId() {
+		Usuario usuario = entityManager.persist(Usuario.builder().nome("usuario").email("usuario@email.com").senha("senha").build());
+		for (int i = 0; i < 5; i++) {
+			Pecas pecas = criarPecas();
+			pecas.setUsuario(usuario);
+			entityManager.persist(pecas);
+		}
+		Pecas filtro = Pecas.builder().usuario(usuario).ano(2019).build();
+		
+		List<PecasDTO> primeiraPagina = repository.buscarPagina(filtro, null, 3);
+		List<PecasDTO> segundaPagina = repository.buscarPagina(filtro, primeiraPagina.get(2).getId(), 3);
+		
+		assertThat(primeiraPagina).hasSize(3);
+		assertThat(segundaPagina).hasSize(2);
+		assertThat(primeiraPagina.get(0).getId()).isLessThan(primeiraPagina.get(2).getId());
+		assertThat(segundaPagina.get(0).getId()).isGreaterThan(primeiraPagina.get(2).getId());
+	}
+	
+	@Test
+	public void deveTratarCuringasDoLikeNaDescricaoComoTexto() {
+		Usuario usuario = entityManager.persist(Usuario.builder().nome("usuario").email("like@email.com").senha("senha").build());
+		for (String descricao : new String[] { "Vaso 100% argila", "Vaso 1000 argila", "pote_azul", "pote azul" }) {
+			Pecas pecas = criarPecas();
+			pecas.setDescricao(descricao);
+			pecas.setUsuario(usuario);
+			entityManager.persist(pecas);
+		}
+		
+		List<PecasDTO> porcentagem = repository.buscarPagina(Pecas.builder().usuario(usuario).descricao("0%").build(), null, 10);
+		List<PecasDTO> sublinhado = repository.buscarPagina(Pecas.builder().usuario(usuario).descricao("e_a").build(), null, 10);
+		
+		assertThat(porcentagem).extracting(PecasDTO::getDescricao).containsExactly("Vaso 100% argila");
+		assertThat(sublinhado).extracting(PecasDTO::getDescricao).containsExactly("pote_azul");
+	}
+	
+	@Test
+	public void deveObterAPecaNoFormatoDaApiSemCarregarAEntidade() {
+		Usuario usuario = entityManager.persist(Usuario.builder().nome("usuario").email("dto@email.com").senha("senha").build());
+		Pecas pecas = criarPecas();
+		pecas.setUsuario(usuario);
+		entityManager.persist(pecas);
+		entityManager.flush();
+		entityManager.clear();
+		
+		Optional<PecasDTO> dto = repository.obterDTO(pecas.getId());
+		
+		assertThat(dto.isPresent()).isTrue();
+		assertThat(dto.get().getUsuario()).isEqualTo(usuario.getId());
+		assertThat(dto.get().getTipo()).isEqualTo(TipoPagamento.CREDITO.name());
+		assertThat(dto.get().getStatus()).isEqualTo(StatusPagamento.PENDENTE.name());
+		assertThat(entityManager.getEntityManager().unwrap(Session.class).getStatistics().getEntityCount()).isZero();
+	}
+	
+	@Test
+	public void devePercorrerAsPecasDoUsuarioDesanexandoCadaUma() {
+		Usuario usuario = entityManager.persist(Usuario.builder().nome("usuario").email("exportar@email.com").senha("senha").build());
+		for (int i = 0; i < 3; i++) {
+			Pecas pecas = criarPecas();
+			pecas.setUsuario(usuario);
+			entityManager.persist(pecas);
+		}
+		entityManager.flush();
+		
+		List<Pecas> percorridas = new ArrayList<>();
+		repository.percorrerPorUsuario(usuario.getId(), percorridas::add);
+		
+		assertThat(percorridas).hasSize(3);
+		assertThat(percorridas).noneMatch(pecas -> entityManager.getEntityManager().contains(pecas));
+	}
+	
 	private Pecas criarEPersistirUmaPeca() {
 		Pecas pecas = criarPecas();
 		entityManager.persist(pecas);
@@ -0,0 +1,85 @@
+package com.starking.artesanato.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import com.starking.artesanato.model.entity.Usuario;
+import com.starking.artesanato.service.impl.JwtServiceImpl;
+
+import io.jsonwebtoken.SignatureException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@Import(SimpleMeterRegistry.class)
+@TestPropertySource(properties = {
+		"jwt.expiracao=30",
+		"jwt.chave-assinatura=YSBsZWJyZSDDqSBicmFuY2E=" })
+public class JwtServiceTest {
+
+	@SpyBean
+	JwtServiceImpl service;
+
+	@Autowired
+	MeterRegistry registry;
+
+	@Test
+	public void deveReaproveitarAsClaimsVerificadasDeUmTokenRepetido() {
+		//cenário
+		String token = service.gerarToken(criarUsuario());
+		double missesAntes = contagemCache("miss");
+		double hitsAntes = contagemCache("hit");
+
+		//execucao
+		boolean valido = service.isTokenValido(token);
+		String login = service.obterLoginUsuario(token);
+
+		//verificacao
+		assertThat(valido).isTrue();
+		assertThat(login).isEqualTo("usuario@email.com");
+		assertThat(contagemCache("miss") - missesAntes).isEqualTo(1);
+		assertThat(contagemCache("hit") - hitsAntes).isEqualTo(1);
+	}
+
+	@Test
+	public void naoDeveArmazenarTokenComAssinaturaInvalida() {
+		//cenário
+		String token = service.gerarToken(criarUsuario());
+		String adulterado = token.substring(0, token.length() - 2) + "AA";
+		double hitsAntes = contagemCache("hit");
+
+		//execucao
+		Throwable erro = catchThrowable( () -> service.isTokenValido(adulterado) );
+
+		//verificacao
+		assertThat(erro).isInstanceOf(SignatureException.class);
+		assertThat(catchThrowable( () -> service.obterLoginUsuario(adulterado) )).isInstanceOf(SignatureException.class);
+		assertThat(contagemCache("hit") - hitsAntes).isZero();
+	}
+
+	private double contagemCache(String resultado) {
+		return registry.get("cache.gets")
+				.tag("cache", "jwt.claims")
+				.tag("result", resultado)
+				.functionCounter()
+				.count();
+	}
+
+	private static Usuario criarUsuario() {
+		return Usuario.builder()
+				.id(1l)
+				.nome("usuario")
+				.email("usuario@email.com")
+				.build();
+	}
+}
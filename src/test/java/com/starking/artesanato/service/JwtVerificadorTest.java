@@ -0,0 +1,95 @@
+package com.starking.artesanato.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+import java.util.Base64;
+import java.util.Date;
+
+import org.junit.jupiter.api.Test;
+
+import com.starking.artesanato.service.impl.JwtVerificador;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.SignatureException;
+
+public class JwtVerificadorTest {
+
+	static final byte[] CHAVE = Base64.getDecoder().decode("YSBsZWJyZSDDqSBicmFuY2E=");
+
+	JwtVerificador verificador = new JwtVerificador(CHAVE);
+
+	@Test
+	public void deveExtrairAsMesmasClaimsQueOJjwt() {
+		//cenário
+		Date expiracao = new Date(1900000000000l);
+		String token = Jwts.builder()
+				.setExpiration(expiracao)
+				.setSubject("usuario@email.com")
+				.claim("userid", 42l)
+				.claim("nome", "Usuário com \"aspas\" e acentuação")
+				.claim("horaExpiracao", "10:30")
+				.signWith(SignatureAlgorithm.HS512, CHAVE)
+				.compact();
+
+		//execucao
+		TokenVerificado resultado = verificador.verificar(token);
+
+		//verificacao
+		assertThat(resultado.getLogin()).isEqualTo("usuario@email.com");
+		assertThat(resultado.getIdUsuario()).isEqualTo(42l);
+		assertThat(resultado.getNome()).isEqualTo("Usuário com \"aspas\" e acentuação");
+		assertThat(resultado.getExpiracao()).isEqualTo(expiracao.getTime() / 1000);
+		assertThat(resultado.isExpirado(expiracao.getTime())).isFalse();
+		assertThat(resultado.isExpirado(expiracao.getTime() + 1)).isTrue();
+	}
+
+	@Test
+	public void deveRejeitarTokenAssinadoComOutraChave() {
+		//cenário
+		String token = Jwts.builder()
+				.setExpiration(new Date(1900000000000l))
+				.setSubject("usuario@email.com")
+				.signWith(SignatureAlgorithm.HS512, "b3V0cmEgY2hhdmU=")
+				.compact();
+
+		//execucao
+		Throwable erro = catchThrowable( () -> verificador.verificar(token) );
+
+		//verificacao
+		assertThat(erro).isInstanceOf(SignatureException.class);
+	}
+
+	@Test
+	public void deveRejeitarPayloadAlteradoComAssinaturaOriginal() {
+		//cenário
+		String token = Jwts.builder()
+				.setExpiration(new Date(1900000000000l))
+				.setSubject("usuario@email.com")
+				.signWith(SignatureAlgorithm.HS512, CHAVE)
+				.compact();
+		String[] partes = token.split("\\.");
+		String payloadAlterado = Base64.getUrlEncoder().withoutPadding()
+				.encodeToString("{\"sub\":\"admin@email.com\",\"exp\":1900000000}".getBytes());
+
+		//execucao
+		Throwable erro = catchThrowable( () -> verificador.verificar(partes[0] + "." + payloadAlterado + "." + partes[2]) );
+
+		//verificacao
+		assertThat(erro).isInstanceOf(SignatureException.class);
+	}
+
+	@Test
+	public void deveDelegarTokensComOutroCabecalho() {
+		//cenário
+		String token = Jwts.builder()
+				.setHeaderParam("typ", "JWT")
+				.setSubject("usuario@email.com")
+				.signWith(SignatureAlgorithm.HS512, CHAVE)
+				.compact();
+
+		//execucao e verificacao
+		assertThat(verificador.verificar(token)).isNull();
+	}
+}
@@ -0,0 +1,71 @@
+package com.starking.artesanato.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import javax.persistence.EntityManager;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.starking.artesanato.model.entity.Pecas;
+import com.starking.artesanato.model.entity.Usuario;
+import com.starking.artesanato.model.enums.StatusPagamento;
+import com.starking.artesanato.model.repository.PecasRepositoryTest;
+import com.starking.artesanato.model.repository.UsuarioRepository;
+import com.starking.artesanato.service.impl.LotePecasServiceImpl;
+import com.starking.artesanato.utils.ConstantesUtils;
+
+public class LotePecasServiceTest {
+
+	PecaService pecaService = mock(PecaService.class);
+	UsuarioRepository usuarioRepository = mock(UsuarioRepository.class);
+	EntityManager entityManager = mock(EntityManager.class);
+	LotePecasServiceImpl service = new LotePecasServiceImpl(pecaService, usuarioRepository,
+			mock(ApplicationEventPublisher.class), mock(PlatformTransactionManager.class));
+
+	@Test
+	public void deveGravarAsPecasValidasEInformarOErroDasDemais() {
+		//cenário
+		ReflectionTestUtils.setField(service, "entityManager", entityManager);
+		ReflectionTestUtils.setField(service, "tamanhoParte", 2);
+		Usuario usuario = Usuario.builder().id(1l).build();
+		when(usuarioRepository.findAllById(any())).thenReturn(Collections.singletonList(usuario));
+		doAnswer(invocacao -> {
+			invocacao.<Pecas>getArgument(0).setId(10l);
+			return null;
+		}).when(entityManager).persist(any());
+
+		Pecas valida = pecaDoUsuario(1l);
+		Pecas semUsuario = pecaDoUsuario(2l);
+		Pecas outraValida = pecaDoUsuario(1l);
+
+		//execucao
+		List<ResultadoItemLote> resultados = service.salvar(Arrays.asList(valida, semUsuario, outraValida));
+
+		//verificacao
+		assertThat(resultados).extracting(ResultadoItemLote::getId).containsExactly(10l, null, 10l);
+		assertThat(resultados.get(1).getErro()).isEqualTo(ConstantesUtils.USUARIO_NAO_ENCONTRADO_ID);
+		assertThat(valida.getStatus()).isEqualTo(StatusPagamento.PENDENTE);
+		assertThat(valida.getUsuario()).isSameAs(usuario);
+		verify(usuarioRepository, times(2)).findAllById(any());
+		verify(entityManager, times(2)).flush();
+	}
+
+	private static Pecas pecaDoUsuario(Long idUsuario) {
+		Pecas pecas = PecasRepositoryTest.criarPecas();
+		pecas.setUsuario(Usuario.builder().id(idUsuario).build());
+		return pecas;
+	}
+}
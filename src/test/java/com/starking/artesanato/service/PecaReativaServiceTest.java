@@ -0,0 +1,87 @@
+package com.starking.artesanato.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+
+import org.junit.jupiter.api.Test;
+
+import com.starking.artesanato.model.entity.Pecas;
+import com.starking.artesanato.model.entity.Usuario;
+import com.starking.artesanato.model.enums.StatusPagamento;
+import com.starking.artesanato.model.enums.TipoPagamento;
+import com.starking.artesanato.model.repository.PecasRepositoryReativo;
+import com.starking.artesanato.service.impl.PecaReativaServiceImpl;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public class PecaReativaServiceTest {
+
+	static final Long USUARIO = 1l;
+
+	PecasRepositoryReativo repository = mock(PecasRepositoryReativo.class);
+	PecaReativaService service = new PecaReativaServiceImpl(repository, 100, 1000);
+
+	@Test
+	public void deveLerOSaldoMaterializadoSemConsultarAsPecas() {
+		//cenário
+		when(repository.obterSaldoMaterializado(USUARIO)).thenReturn(Mono.just(BigDecimal.TEN));
+		when(repository.obterSaldoEfetivado(any(), any(), any())).thenReturn(Mono.empty());
+
+		//execucao
+		BigDecimal saldo = service.obterSaldoPorUsuario(USUARIO).block();
+
+		//verificacao
+		assertThat(saldo).isEqualTo(BigDecimal.TEN);
+		verify(repository, never()).obterSaldoEfetivado(any(), any(), any());
+	}
+
+	@Test
+	public void deveCalcularOSaldoPelasPecasQuandoNaoHouverSaldoMaterializado() {
+		//cenário
+		when(repository.obterSaldoMaterializado(USUARIO)).thenReturn(Mono.empty());
+		when(repository.obterSaldoEfetivado(USUARIO, TipoPagamento.CREDITO, StatusPagamento.EFETIVADO))
+				.thenReturn(Mono.just(BigDecimal.valueOf(40)));
+
+		//execucao
+		BigDecimal saldo = service.obterSaldoPorUsuario(USUARIO).block();
+
+		//verificacao
+		assertThat(saldo).isEqualTo(BigDecimal.valueOf(40));
+	}
+
+	@Test
+	public void deveRetornarSaldoZeroQuandoNaoHouverPecasEfetivadas() {
+		//cenário
+		when(repository.obterSaldoMaterializado(USUARIO)).thenReturn(Mono.empty());
+		when(repository.obterSaldoEfetivado(any(), any(), any())).thenReturn(Mono.empty());
+
+		//execucao
+		BigDecimal saldo = service.obterSaldoPorUsuario(USUARIO).block();
+
+		//verificacao
+		assertThat(saldo).isEqualTo(BigDecimal.ZERO);
+	}
+
+	@Test
+	public void deveLimitarOTamanhoDaPaginaAoMaximo() {
+		//cenário
+		Pecas filtro = Pecas.builder().usuario(Usuario.builder().id(USUARIO).build()).build();
+		when(repository.buscarPagina(any(), any(), anyInt())).thenReturn(Flux.empty());
+
+		//execucao
+		service.buscar(filtro, null, 5000).collectList().block();
+		service.buscar(filtro, null, null).collectList().block();
+
+		//verificacao
+		verify(repository).buscarPagina(filtro, null, 1000);
+		verify(repository).buscarPagina(filtro, null, 100);
+	}
+}
@@ -3,6 +3,7 @@ package com.starking.artesanato.service;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.catchThrowable;
 import static org.assertj.core.api.Assertions.catchThrowableOfType;
+import static org.assertj.core.api.Assertions.entry;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doReturn;
@@ -14,7 +15,11 @@ import static org.mockito.Mockito.when;
 
 import java.math.BigDecimal;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import org.assertj.core.api.Assertions;
@@ -25,7 +30,10 @@ import org.springframework.boot.test.mock.mockito.SpyBean;
 import org.springframework.data.domain.Example;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
 
+import com.starking.artesanato.exception.ConflitoException;
 import com.starking.artesanato.exception.RegraNegocioException;
 import com.starking.artesanato.model.entity.Pecas;
 import com.starking.artesanato.model.entity.Usuario;
@@ -33,6 +41,7 @@ import com.starking.artesanato.model.enums.StatusPagamento;
 import com.starking.artesanato.model.enums.TipoPagamento;
 import com.starking.artesanato.model.repository.PecasRepository;
 import com.starking.artesanato.model.repository.PecasRepositoryTest;
+import com.starking.artesanato.service.evento.SituacaoPeca;
 import com.starking.artesanato.service.impl.PecaServiceImpl;
 
 @ExtendWith(SpringExtension.class)
@@ -43,6 +52,8 @@ public class PecasServiceTest {
 	PecaServiceImpl service;
 	@MockBean
 	PecasRepository repository;
+	@MockBean
+	PlatformTransactionManager transactionManager;
 	
 	@Test
 	public void deveSalvarUmaPeca() {
@@ -288,4 +299,126 @@ public class PecasServiceTest {
 		
 	}
 	
+	@Test
+	public void deveEfetivarEmLoteSomenteAsPecasPendentes() {
+		//cenario
+		List<Long> ids = Arrays.asList(1l, 2l);
+		SituacaoPeca pendente = new SituacaoPeca(1l, 1l, "Peça", 1, 2019, BigDecimal.TEN, TipoPagamento.CREDITO, StatusPagamento.PENDENTE, 0l);
+		when( repository.obterSituacoes(ids, EnumSet.of(StatusPagamento.PENDENTE)) ).thenReturn(Collections.singletonList(pendente));
+		when( repository.atualizarStatus(Arrays.asList(1l), StatusPagamento.EFETIVADO, EnumSet.of(StatusPagamento.PENDENTE)) ).thenReturn(1);
+		
+		//execucao
+		int atualizadas = service.atualizarStatus(ids, null, StatusPagamento.EFETIVADO);
+		
+		//verificacao
+		assertThat(atualizadas).isEqualTo(1);
+	}
+	
+	@Test
+	public void deveLancarConflitoQuandoUmaPecaMudarEntreALeituraEOUpdate() {
+		//cenario
+		List<Long> ids = Arrays.asList(1l);
+		SituacaoPeca pendente = new SituacaoPeca(1l, 1l, "Peça", 1, 2019, BigDecimal.TEN, TipoPagamento.CREDITO, StatusPagamento.PENDENTE, 0l);
+		when( repository.obterSituacoes(ids, EnumSet.of(StatusPagamento.PENDENTE)) ).thenReturn(Collections.singletonList(pendente));
+		when( repository.atualizarStatus(ids, StatusPagamento.EFETIVADO, EnumSet.of(StatusPagamento.PENDENTE)) ).thenReturn(0);
+		
+		//execucao e verificacao
+		Throwable exception = catchThrowable( () -> service.atualizarStatus(ids, null, StatusPagamento.EFETIVADO) );
+		assertThat(exception).isInstanceOf(ConflitoException.class);
+	}
+	
+	@Test
+	public void deveAtualizarUmaPecaSomenteNaVersaoLida() {
+		//cenario
+		Pecas pecas = PecasRepositoryTest.criarPecas();
+		pecas.setUsuario(Usuario.builder().id(1l).build());
+		SituacaoPeca anterior = new SituacaoPeca(1l, 1l, "Peça", 1, 2019, BigDecimal.TEN, TipoPagamento.CREDITO, StatusPagamento.PENDENTE, 3l);
+		when( repository.obterSituacao(1l) ).thenReturn(Optional.of(anterior));
+		when( repository.atualizarNaVersao(pecas, 3l) ).thenReturn(1);
+		
+		//execucao
+		Optional<SituacaoPeca> gravada = service.atualizar(1l, pecas, null);
+		
+		//verificacao
+		assertThat(gravada.get().getVersao()).isEqualTo(4l);
+		assertThat(gravada.get().getDescricao()).isEqualTo(pecas.getDescricao());
+		verify(repository, never()).save(any());
+	}
+	
+	@Test
+	public void naoDeveAtualizarUmaPecaDeOutroUsuario() {
+		//cenario
+		Pecas pecas = PecasRepositoryTest.criarPecas();
+		pecas.setUsuario(Usuario.builder().id(2l).build());
+		SituacaoPeca anterior = new SituacaoPeca(1l, 1l, "Peça", 1, 2019, BigDecimal.TEN, TipoPagamento.CREDITO, StatusPagamento.PENDENTE, 0l);
+		when( repository.obterSituacao(1l) ).thenReturn(Optional.of(anterior));
+		
+		//execucao
+		Optional<SituacaoPeca> gravada = service.atualizar(1l, pecas, null);
+		
+		//verificacao
+		assertThat(gravada.isPresent()).isFalse();
+		verify(repository, never()).atualizarNaVersao(any(), any());
+	}
+	
+	@Test
+	public void deveLancarConflitoAoDeletarUmaPecaEmOutraVersao() {
+		//cenario
+		SituacaoPeca anterior = new SituacaoPeca(1l, 1l, "Peça", 1, 2019, BigDecimal.TEN, TipoPagamento.CREDITO, StatusPagamento.PENDENTE, 2l);
+		when( repository.obterSituacao(1l) ).thenReturn(Optional.of(anterior));
+		
+		//execucao e verificacao
+		Throwable exception = catchThrowable( () -> service.deletar(1l, 1l) );
+		assertThat(exception).isInstanceOf(ConflitoException.class);
+		verify(repository, never()).deletarNaVersao(any(), any());
+	}
+	
+	@Test
+	public void naoDevePermitirVoltarPecasParaPendenteEmLote() {
+		//execucao
+		Throwable exception = catchThrowable( () -> service.atualizarStatus(Arrays.asList(1l), null, StatusPagamento.PENDENTE) );
+		
+		//verificacao
+		assertThat(exception).isInstanceOf(RegraNegocioException.class);
+		verify(repository, never()).atualizarStatus(any(), any(), any());
+	}
+	
+	@Test
+	public void deveObterSaldosDeVariosUsuariosEmLotes() {
+		//cenario
+		ReflectionTestUtils.setField(service, "tamanhoLoteSaldos", 2);
+		when( repository.obterSaldosEfetivadosPorUsuarios(Arrays.asList(1l, 2l), TipoPagamento.CREDITO, StatusPagamento.EFETIVADO) )
+				.thenReturn(Collections.singletonList(new Object[] { 1l, BigDecimal.valueOf(100) }));
+		when( repository.obterSaldosEfetivadosPorUsuarios(Arrays.asList(3l), TipoPagamento.CREDITO, StatusPagamento.EFETIVADO) )
+				.thenReturn(Collections.singletonList(new Object[] { 3l, BigDecimal.valueOf(-20) }));
+		
+		//execucao
+		Map<Long, BigDecimal> saldos = new LinkedHashMap<>();
+		service.obterSaldosPorUsuarios(Arrays.asList(1l, 2l, 1l, 3l), saldos::put);
+		
+		//verificacao
+		assertThat(saldos).containsExactly(
+				entry(1l, BigDecimal.valueOf(100)),
+				entry(2l, BigDecimal.ZERO),
+				entry(3l, BigDecimal.valueOf(-20)));
+		verify(transactionManager, times(2)).commit(any());
+	}
+	
+	@Test
+	public void deveLimitarAPaginaAoMaximoQuandoOLimitePedidoForMaior() {
+		//cenario
+		Pecas pecas = PecasRepositoryTest.criarPecas();
+		pecas.setUsuario(Usuario.builder().id(1l).build());
+		
+		//execucao
+		service.buscar(pecas, null, 5000);
+		service.buscar(pecas, null, null);
+		
+		//verificacao
+		verify(repository).buscarPagina(pecas, null, 1000);
+		verify(repository).buscarPagina(pecas, null, 100);
+		assertThat(service.tamanhoPagina(5000)).isEqualTo(1000);
+		assertThat(service.tamanhoPagina(0)).isEqualTo(100);
+	}
+	
 }
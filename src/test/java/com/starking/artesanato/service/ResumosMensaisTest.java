@@ -0,0 +1,154 @@
+package com.starking.artesanato.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.starking.artesanato.model.entity.ChaveResumoMensal;
+import com.starking.artesanato.model.entity.ResumoMensal;
+import com.starking.artesanato.model.enums.StatusPagamento;
+import com.starking.artesanato.model.enums.TipoPagamento;
+import com.starking.artesanato.model.repository.PecasRepository;
+import com.starking.artesanato.model.repository.ResumoMensalRepository;
+import com.starking.artesanato.service.evento.PecasAlteradasEvent;
+import com.starking.artesanato.service.evento.SituacaoPeca;
+import com.starking.artesanato.service.impl.ResumosMensais;
+import com.starking.artesanato.service.impl.TravasUsuarios;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class ResumosMensaisTest {
+
+	static final Long USUARIO = 1l;
+
+	ResumoMensalRepository resumoRepository = mock(ResumoMensalRepository.class);
+	PecasRepository pecasRepository = mock(PecasRepository.class);
+	TravasUsuarios travas = mock(TravasUsuarios.class);
+	ResumosMensais resumos = new ResumosMensais(resumoRepository, pecasRepository, travas,
+			mock(PlatformTransactionManager.class), new SimpleMeterRegistry(), 500);
+
+	@Test
+	public void deveMoverAPecaEntreOsResumosQuandoOStatusMudar() {
+		//cenário
+		when(resumoRepository.existsByChaveIdUsuario(USUARIO)).thenReturn(true);
+		when(resumoRepository.somar(any(), anyLong(), any())).thenReturn(1);
+
+		//execucao
+		resumos.pecasAlteradas(PecasAlteradasEvent.de(
+				situacao(StatusPagamento.PENDENTE),
+				situacao(StatusPagamento.EFETIVADO)));
+
+		//verificacao
+		verify(resumoRepository).somar(chave(StatusPagamento.PENDENTE), -1, BigDecimal.valueOf(-10));
+		verify(resumoRepository).somar(chave(StatusPagamento.EFETIVADO), 1, BigDecimal.valueOf(10));
+		verify(resumoRepository, never()).save(any());
+	}
+
+	@Test
+	public void deveInserirOResumoDeUmaChaveNova() {
+		//cenário
+		when(resumoRepository.existsByChaveIdUsuario(USUARIO)).thenReturn(true);
+		when(resumoRepository.somar(any(), anyLong(), any())).thenReturn(0);
+
+		//execucao
+		resumos.pecasAlteradas(PecasAlteradasEvent.de(null, situacao(StatusPagamento.PENDENTE)));
+
+		//verificacao
+		verify(resumoRepository).save(new ResumoMensal(chave(StatusPagamento.PENDENTE), 1l, BigDecimal.valueOf(10)));
+	}
+
+	@Test
+	public void deveGravarOsResumosPeloAgregadoNoPrimeiroMovimentoDoUsuario() {
+		//cenário
+		ResumoMensal calculado = new ResumoMensal(chave(StatusPagamento.PENDENTE), 3l, BigDecimal.valueOf(30));
+		when(resumoRepository.existsByChaveIdUsuario(USUARIO)).thenReturn(false);
+		when(pecasRepository.obterResumosMensais(USUARIO)).thenReturn(Collections.singletonList(calculado));
+
+		//execucao
+		resumos.pecasAlteradas(PecasAlteradasEvent.de(null, situacao(StatusPagamento.PENDENTE)));
+
+		//verificacao
+		verify(resumoRepository).saveAll(Collections.singletonList(calculado));
+		verify(resumoRepository, never()).somar(any(), anyLong(), any());
+	}
+
+	@Test
+	public void deveReconstruirOsResumosDivergentesNaVerificacao() {
+		//cenário
+		ResumoMensal materializado = new ResumoMensal(chave(StatusPagamento.PENDENTE), 2l, BigDecimal.valueOf(20));
+		ResumoMensal calculado = new ResumoMensal(chave(StatusPagamento.PENDENTE), 1l, BigDecimal.valueOf(10));
+		when(resumoRepository.obterIdsUsuarios(eq(0l), any())).thenReturn(Collections.singletonList(USUARIO));
+		when(resumoRepository.obterPorUsuarios(Collections.singletonList(USUARIO))).thenReturn(Arrays.asList(materializado));
+		when(pecasRepository.obterResumosMensaisPorUsuarios(Collections.singletonList(USUARIO))).thenReturn(Arrays.asList(calculado));
+		when(resumoRepository.obterPorUsuario(USUARIO)).thenReturn(Arrays.asList(materializado));
+		when(pecasRepository.obterResumosMensais(USUARIO)).thenReturn(Arrays.asList(calculado));
+
+		//execucao
+		int corrigidos = resumos.verificar();
+
+		//verificacao
+		assertThat(corrigidos).isEqualTo(1);
+		verify(travas).travar(Collections.singleton(USUARIO));
+		verify(resumoRepository).removerPorUsuario(USUARIO);
+		verify(resumoRepository).saveAll(any());
+	}
+
+	@Test
+	public void naoDeveReconstruirQuandoADivergenciaSumirComOUsuarioTravado() {
+		//cenário: uma peça foi gravada entre a leitura dos resumos e a do agregado
+		ResumoMensal materializado = new ResumoMensal(chave(StatusPagamento.PENDENTE), 1l, BigDecimal.valueOf(10));
+		ResumoMensal calculado = new ResumoMensal(chave(StatusPagamento.PENDENTE), 2l, BigDecimal.valueOf(20));
+		when(resumoRepository.obterIdsUsuarios(eq(0l), any())).thenReturn(Collections.singletonList(USUARIO));
+		when(resumoRepository.obterPorUsuarios(Collections.singletonList(USUARIO))).thenReturn(Arrays.asList(materializado));
+		when(pecasRepository.obterResumosMensaisPorUsuarios(Collections.singletonList(USUARIO))).thenReturn(Arrays.asList(calculado));
+		when(resumoRepository.obterPorUsuario(USUARIO)).thenReturn(Arrays.asList(
+				new ResumoMensal(chave(StatusPagamento.PENDENTE), 2l, BigDecimal.valueOf(20))));
+		when(pecasRepository.obterResumosMensais(USUARIO)).thenReturn(Arrays.asList(calculado));
+
+		//execucao
+		int corrigidos = resumos.verificar();
+
+		//verificacao
+		assertThat(corrigidos).isEqualTo(0);
+		verify(resumoRepository, never()).removerPorUsuario(any());
+		verify(resumoRepository, never()).saveAll(any());
+	}
+
+	@Test
+	public void devePercorrerOsUsuariosEmLotesAPartirDoUltimoIdDeCadaLote() {
+		//cenário
+		ResumosMensais resumosEmLotes = new ResumosMensais(resumoRepository, pecasRepository, travas,
+				mock(PlatformTransactionManager.class), new SimpleMeterRegistry(), 2);
+		when(resumoRepository.obterIdsUsuarios(eq(0l), any())).thenReturn(Arrays.asList(1l, 2l));
+		when(resumoRepository.obterIdsUsuarios(eq(2l), any())).thenReturn(Arrays.asList(3l));
+
+		//execucao
+		int corrigidos = resumosEmLotes.verificar();
+
+		//verificacao
+		assertThat(corrigidos).isEqualTo(0);
+		verify(resumoRepository).obterPorUsuarios(Arrays.asList(1l, 2l));
+		verify(resumoRepository).obterPorUsuarios(Arrays.asList(3l));
+		verify(resumoRepository, never()).obterIdsUsuarios(eq(3l), any());
+	}
+
+	private static ChaveResumoMensal chave(StatusPagamento status) {
+		return new ChaveResumoMensal(USUARIO, 2019, 1, TipoPagamento.CREDITO, status);
+	}
+
+	private static SituacaoPeca situacao(StatusPagamento status) {
+		return new SituacaoPeca(1l, USUARIO, "Peça", 1, 2019, BigDecimal.valueOf(10), TipoPagamento.CREDITO, status, 0l);
+	}
+}
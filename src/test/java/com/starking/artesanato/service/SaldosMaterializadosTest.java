@@ -0,0 +1,121 @@
+package com.starking.artesanato.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Optional;
+import java.util.TreeSet;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.starking.artesanato.model.entity.SaldoUsuario;
+import com.starking.artesanato.model.enums.StatusPagamento;
+import com.starking.artesanato.model.enums.TipoPagamento;
+import com.starking.artesanato.model.repository.PecasRepository;
+import com.starking.artesanato.model.repository.SaldoUsuarioRepository;
+import com.starking.artesanato.service.evento.AlteracaoPeca;
+import com.starking.artesanato.service.evento.PecasAlteradasEvent;
+import com.starking.artesanato.service.evento.SituacaoPeca;
+import com.starking.artesanato.service.impl.SaldosMaterializados;
+import com.starking.artesanato.service.impl.TravasUsuarios;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class SaldosMaterializadosTest {
+
+	static final Long USUARIO = 1l;
+
+	SaldoUsuarioRepository saldoRepository = mock(SaldoUsuarioRepository.class);
+	PecasRepository pecasRepository = mock(PecasRepository.class);
+	TravasUsuarios travas = mock(TravasUsuarios.class);
+	SaldosMaterializados saldos = new SaldosMaterializados(saldoRepository, pecasRepository, travas,
+			mock(PlatformTransactionManager.class), new SimpleMeterRegistry());
+
+	@Test
+	public void deveSomarADiferencaQuandoAPecaForEfetivada() {
+		//cenário
+		when(saldoRepository.somarAoSaldo(any(), any())).thenReturn(1);
+
+		//execucao
+		saldos.pecasAlteradas(PecasAlteradasEvent.de(
+				situacao(TipoPagamento.PIX, StatusPagamento.PENDENTE),
+				situacao(TipoPagamento.PIX, StatusPagamento.EFETIVADO)));
+
+		//verificacao
+		verify(saldoRepository).somarAoSaldo(USUARIO, BigDecimal.valueOf(-10));
+		verify(saldoRepository, never()).save(any());
+	}
+
+	@Test
+	public void deveCalcularOSaldoPeloAgregadoNoPrimeiroMovimentoDoUsuario() {
+		//cenário
+		when(saldoRepository.somarAoSaldo(any(), any())).thenReturn(0);
+		when(pecasRepository.obterSaldoEfetivado(USUARIO, TipoPagamento.CREDITO, StatusPagamento.EFETIVADO))
+				.thenReturn(BigDecimal.valueOf(40));
+
+		//execucao
+		saldos.pecasAlteradas(PecasAlteradasEvent.de(null, situacao(TipoPagamento.CREDITO, StatusPagamento.EFETIVADO)));
+
+		//verificacao
+		verify(saldoRepository).save(new SaldoUsuario(USUARIO, BigDecimal.valueOf(40)));
+	}
+
+	@Test
+	public void naoDeveAlterarOSaldoQuandoAContribuicaoNaoMudar() {
+		//execucao
+		saldos.pecasAlteradas(PecasAlteradasEvent.de(
+				situacao(TipoPagamento.CREDITO, StatusPagamento.PENDENTE),
+				situacao(TipoPagamento.CREDITO, StatusPagamento.CANCELADO)));
+
+		//verificacao
+		verify(saldoRepository, never()).somarAoSaldo(any(), any());
+	}
+
+	@Test
+	public void deveTravarTodosOsUsuariosDoEventoEmOrdemDeId() {
+		//cenário
+		when(saldoRepository.somarAoSaldo(any(), any())).thenReturn(1);
+		SituacaoPeca outroUsuario = new SituacaoPeca(2l, 3l, "Peça", 1, 2019, BigDecimal.valueOf(10),
+				TipoPagamento.CREDITO, StatusPagamento.PENDENTE, 0l);
+
+		//execucao
+		saldos.pecasAlteradas(new PecasAlteradasEvent(Arrays.asList(
+				new AlteracaoPeca(null, outroUsuario),
+				new AlteracaoPeca(null, situacao(TipoPagamento.CREDITO, StatusPagamento.EFETIVADO)))));
+
+		//verificacao: o usuário 3 não muda de saldo, mas é travado junto, depois do 1
+		verify(travas).travar(new TreeSet<>(Arrays.asList(USUARIO, 3l)));
+		verify(saldoRepository).somarAoSaldo(USUARIO, BigDecimal.valueOf(10));
+	}
+
+	@Test
+	public void deveCorrigirSaldoDivergenteNaVerificacao() {
+		//cenário
+		when(saldoRepository.findAll()).thenReturn(Collections.singletonList(new SaldoUsuario(USUARIO, BigDecimal.valueOf(99))));
+		when(saldoRepository.obterSaldo(USUARIO)).thenReturn(Optional.of(BigDecimal.valueOf(99)));
+		when(pecasRepository.obterSaldosEfetivados(TipoPagamento.CREDITO, StatusPagamento.EFETIVADO))
+				.thenReturn(Collections.singletonList(new Object[] { USUARIO, BigDecimal.valueOf(40) }));
+		when(pecasRepository.obterSaldoEfetivado(USUARIO, TipoPagamento.CREDITO, StatusPagamento.EFETIVADO))
+				.thenReturn(BigDecimal.valueOf(40));
+
+		//execucao
+		int corrigidos = saldos.verificar();
+
+		//verificacao
+		assertThat(corrigidos).isEqualTo(1);
+		verify(saldoRepository).corrigirSaldo(USUARIO, BigDecimal.valueOf(40));
+		verify(travas).travar(Collections.singleton(USUARIO));
+	}
+
+	private static SituacaoPeca situacao(TipoPagamento tipo, StatusPagamento status) {
+		return new SituacaoPeca(1l, USUARIO, "Peça", 1, 2019, BigDecimal.valueOf(10), tipo, status, 0l);
+	}
+}
@@ -0,0 +1,80 @@
+package com.starking.artesanato.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import com.starking.artesanato.model.entity.Usuario;
+import com.starking.artesanato.model.repository.UsuarioRepository;
+import com.starking.artesanato.service.evento.UsuarioAlteradoEvent;
+import com.starking.artesanato.service.impl.SecurityUserDetailsService;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class SecurityUserDetailsServiceTest {
+
+	static final String EMAIL = "usuario@email.com";
+
+	UsuarioRepository repository = mock(UsuarioRepository.class);
+	SecurityUserDetailsService service = new SecurityUserDetailsService(repository, new SimpleMeterRegistry(), 300, 100);
+
+	@Test
+	public void deveConsultarOBancoUmaUnicaVezParaRequisicoesConcorrentesDoMesmoUsuario() throws Exception {
+		//cenário
+		when(repository.findByEmail(EMAIL)).thenAnswer(invocacao -> {
+			Thread.sleep(50);
+			return Optional.of(criarUsuario());
+		});
+
+		ExecutorService executor = Executors.newFixedThreadPool(100);
+		CountDownLatch largada = new CountDownLatch(1);
+		List<Future<UserDetails>> resultados = new ArrayList<>();
+
+		//execucao
+		for (int i = 0; i < 100; i++) {
+			resultados.add(executor.submit(() -> {
+				largada.await();
+				return service.loadUserByUsername(EMAIL);
+			}));
+		}
+		largada.countDown();
+
+		//verificacao
+		for (Future<UserDetails> resultado : resultados) {
+			assertThat(resultado.get().getUsername()).isEqualTo(EMAIL);
+		}
+		executor.shutdown();
+		verify(repository, times(1)).findByEmail(EMAIL);
+	}
+
+	@Test
+	public void deveRecarregarOUsuarioDepoisDeUmaAlteracao() {
+		//cenário
+		when(repository.findByEmail(EMAIL)).thenReturn(Optional.of(criarUsuario()));
+		service.loadUserByUsername(EMAIL);
+
+		//execucao
+		service.usuarioAlterado(new UsuarioAlteradoEvent(EMAIL));
+		service.loadUserByUsername(EMAIL);
+
+		//verificacao
+		verify(repository, times(2)).findByEmail(EMAIL);
+	}
+
+	private static Usuario criarUsuario() {
+		return Usuario.builder().id(1l).email(EMAIL).senha("senha").build();
+	}
+}
@@ -1,6 +1,8 @@
 package com.starking.artesanato.service;
 
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.Test;
@@ -8,29 +10,56 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mockito;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
 import com.starking.artesanato.exception.ErroAutenticacao;
 import com.starking.artesanato.exception.RegraNegocioException;
+import com.starking.artesanato.exception.ServicoSobrecarregadoException;
 import com.starking.artesanato.model.entity.Usuario;
 import com.starking.artesanato.model.repository.UsuarioRepository;
+import com.starking.artesanato.service.impl.ExecutorSenhas;
 import com.starking.artesanato.service.impl.UsuarioServiceImpl;
+import com.starking.artesanato.utils.ConstantesUtils;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 
 @ExtendWith(SpringExtension.class)
 @ActiveProfiles("test")
 public class UsuarioServiceTest {
 
+	/** O hash refeito é gravado na própria thread do teste. */
+	@Configuration
+	static class Configuracao {
+		
+		@Bean
+		MeterRegistry meterRegistry() {
+			return new SimpleMeterRegistry();
+		}
+		
+		@Bean
+		Executor applicationTaskExecutor() {
+			return Runnable::run;
+		}
+	}
+
 	@SpyBean
 	UsuarioServiceImpl service;
 	
 	@MockBean
 	UsuarioRepository repository;
 	
+	@MockBean
+	ExecutorSenhas senhas;
+	
 	@Test
 	public void deveSalvarUmUsuario() {
 		//cenário
 		Mockito.doNothing().when(service).validarEmail(Mockito.anyString());
+		Mockito.when(senhas.criptografar(Mockito.any())).thenReturn(CompletableFuture.completedFuture("hash"));
 		Usuario usuario = Usuario.builder()
 					.id(1l)
 					.nome("nome")
@@ -74,6 +103,7 @@ public class UsuarioServiceTest {
 		
 		Usuario usuario = Usuario.builder().email(email).senha(senha).id(1l).build();
 		Mockito.when( repository.findByEmail(email) ).thenReturn(Optional.of(usuario));
+		Mockito.when( senhas.comparar(senha, senha) ).thenReturn(CompletableFuture.completedFuture(true));
 		
 		//acao
 		Usuario result = service.autenticar(email, senha);
@@ -104,6 +134,7 @@ public class UsuarioServiceTest {
 		String senha = "senha";
 		Usuario usuario = Usuario.builder().email("email@email.com").senha(senha).build();
 		Mockito.when(repository.findByEmail(Mockito.anyString())).thenReturn(Optional.of(usuario));
+		Mockito.when(senhas.comparar("123", senha)).thenReturn(CompletableFuture.completedFuture(false));
 		
 		//acao
 		Throwable exception = Assertions.catchThrowable( () ->  service.autenticar("email@email.com", "123") );
@@ -111,6 +142,100 @@ public class UsuarioServiceTest {
 		
 	}
 	
+	@Test
+	public void naoDeveCompararASenhaQuandoOUsuarioNaoExistir() {
+		//cenário
+		Mockito.when(repository.findByEmail(Mockito.anyString())).thenReturn(Optional.empty());
+		
+		//acao
+		Throwable exception = Assertions.catchThrowable( () -> service.autenticarAssincrono("email@email.com", "senha") );
+		
+		//verificacao
+		Assertions.assertThat(exception).isInstanceOf(ErroAutenticacao.class);
+		Mockito.verifyNoInteractions(senhas);
+	}
+	
+	@Test
+	public void deveFalharOFuturoSemRefazerOHashQuandoASenhaNaoBater() {
+		//cenário
+		Usuario usuario = Usuario.builder().id(1l).email("email@email.com").senha("hashAntigo").build();
+		Mockito.when(repository.findByEmail("email@email.com")).thenReturn(Optional.of(usuario));
+		Mockito.when(senhas.comparar("123", "hashAntigo")).thenReturn(CompletableFuture.completedFuture(false));
+		Mockito.when(senhas.precisaAtualizar("hashAntigo")).thenReturn(true);
+		
+		//acao
+		CompletableFuture<Usuario> futuro = service.autenticarAssincrono("email@email.com", "123");
+		
+		//verificacao
+		Assertions.assertThat(futuro).hasFailedWithThrowableThat().isInstanceOf(ErroAutenticacao.class);
+		Mockito.verify(senhas, Mockito.never()).criptografar(Mockito.any());
+		Mockito.verify(repository, Mockito.never()).atualizarSenha(Mockito.any(), Mockito.any(), Mockito.any());
+	}
+	
+	@Test
+	public void deveRefazerOHashSoSeOGravadoAindaForOComparado() {
+		//cenário
+		Usuario usuario = Usuario.builder().id(1l).email("email@email.com").senha("hashAntigo").build();
+		Mockito.when(repository.findByEmail("email@email.com")).thenReturn(Optional.of(usuario));
+		Mockito.when(senhas.comparar("senha", "hashAntigo")).thenReturn(CompletableFuture.completedFuture(true));
+		Mockito.when(senhas.precisaAtualizar("hashAntigo")).thenReturn(true);
+		Mockito.when(senhas.criptografar("senha")).thenReturn(CompletableFuture.completedFuture("hashNovo"));
+		Mockito.when(repository.atualizarSenha(1l, "hashAntigo", "hashNovo")).thenReturn(1);
+		
+		//acao
+		Usuario result = service.autenticar("email@email.com", "senha");
+		
+		//verificacao
+		Assertions.assertThat(result.getId()).isEqualTo(1l);
+		Mockito.verify(repository).atualizarSenha(1l, "hashAntigo", "hashNovo");
+	}
+	
+	@Test
+	public void deveAutenticarSemRefazerOHashQuandoAFilaDeSenhasEstiverCheia() {
+		//cenário
+		Usuario usuario = Usuario.builder().id(1l).email("email@email.com").senha("hashAntigo").build();
+		Mockito.when(repository.findByEmail("email@email.com")).thenReturn(Optional.of(usuario));
+		Mockito.when(senhas.comparar("senha", "hashAntigo")).thenReturn(CompletableFuture.completedFuture(true));
+		Mockito.when(senhas.precisaAtualizar("hashAntigo")).thenReturn(true);
+		Mockito.when(senhas.criptografar("senha")).thenThrow(new ServicoSobrecarregadoException(ConstantesUtils.SERVICO_SOBRECARREGADO));
+		
+		//acao
+		Usuario result = service.autenticar("email@email.com", "senha");
+		
+		//verificacao
+		Assertions.assertThat(result.getId()).isEqualTo(1l);
+		Mockito.verify(repository, Mockito.never()).atualizarSenha(Mockito.any(), Mockito.any(), Mockito.any());
+	}
+	
+	@Test
+	public void deveRecusarAAutenticacaoQuandoAFilaDeSenhasEstiverCheia() {
+		//cenário
+		Usuario usuario = Usuario.builder().id(1l).email("email@email.com").senha("hash").build();
+		Mockito.when(repository.findByEmail("email@email.com")).thenReturn(Optional.of(usuario));
+		Mockito.when(senhas.comparar("senha", "hash")).thenThrow(new ServicoSobrecarregadoException(ConstantesUtils.SERVICO_SOBRECARREGADO));
+		
+		//acao
+		Throwable exception = Assertions.catchThrowable( () -> service.autenticarAssincrono("email@email.com", "senha") );
+		
+		//verificacao
+		Assertions.assertThat(exception).isInstanceOf(ServicoSobrecarregadoException.class);
+	}
+	
+	@Test
+	public void naoDeveSalvarUmUsuarioQuandoAFilaDeSenhasEstiverCheia() {
+		//cenário
+		Mockito.when(repository.existsByEmail("email@email.com")).thenReturn(false);
+		Mockito.when(senhas.criptografar("senha")).thenThrow(new ServicoSobrecarregadoException(ConstantesUtils.SERVICO_SOBRECARREGADO));
+		Usuario usuario = Usuario.builder().email("email@email.com").senha("senha").build();
+		
+		//acao
+		Throwable exception = Assertions.catchThrowable( () -> service.salvarUsuario(usuario) );
+		
+		//verificacao
+		Assertions.assertThat(exception).isInstanceOf(ServicoSobrecarregadoException.class);
+		Mockito.verify(repository, Mockito.never()).save(Mockito.any());
+	}
+	
 	@Test
 	public void deveValidarEmail() {
 		// cenario
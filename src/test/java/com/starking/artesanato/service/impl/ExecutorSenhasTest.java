@@ -0,0 +1,62 @@
+package com.starking.artesanato.service.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import com.starking.artesanato.exception.ServicoSobrecarregadoException;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class ExecutorSenhasTest {
+
+	@Test
+	public void deveRecusarQuandoAFilaEstiverCheia() throws Exception {
+		//cenário
+		CountDownLatch liberar = new CountDownLatch(1);
+		PasswordEncoder encoder = mock(PasswordEncoder.class);
+		when(encoder.encode(any())).thenAnswer(invocacao -> {
+			liberar.await();
+			return "hash";
+		});
+		ExecutorSenhas senhas = new ExecutorSenhas(encoder, new SimpleMeterRegistry(), 1, 1);
+		CompletableFuture<String> emExecucao = senhas.criptografar("senha");
+		CompletableFuture<String> naFila = senhas.criptografar("senha");
+
+		//execucao
+		Throwable erro = catchThrowable(() -> senhas.criptografar("senha"));
+
+		//verificacao
+		assertThat(erro).isInstanceOf(ServicoSobrecarregadoException.class);
+		liberar.countDown();
+		assertThat(emExecucao.get(5, TimeUnit.SECONDS)).isEqualTo("hash");
+		assertThat(naFila.get(5, TimeUnit.SECONDS)).isEqualTo("hash");
+		senhas.encerrar();
+	}
+
+	@Test
+	public void deveIndicarAtualizacaoDeHashComForcaMenorQueAAtual() throws Exception {
+		//cenário
+		ExecutorSenhas senhas = new ExecutorSenhas(new BCryptPasswordEncoder(5), new SimpleMeterRegistry(), 1, 10);
+		String hashAntigo = new BCryptPasswordEncoder(4).encode("senha");
+
+		//execucao
+		String hashAtual = senhas.criptografar("senha").get(5, TimeUnit.SECONDS);
+
+		//verificacao
+		assertThat(senhas.precisaAtualizar(hashAntigo)).isTrue();
+		assertThat(senhas.precisaAtualizar(hashAtual)).isFalse();
+		assertThat(senhas.comparar("senha", hashAntigo).get(5, TimeUnit.SECONDS)).isTrue();
+		senhas.encerrar();
+	}
+}
@@ -0,0 +1,126 @@
+package com.starking.artesanato.service.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.starking.artesanato.exception.RegraNegocioException;
+import com.starking.artesanato.model.entity.Pecas;
+import com.starking.artesanato.model.enums.StatusPagamento;
+import com.starking.artesanato.service.LotePecasService;
+import com.starking.artesanato.service.PecaService;
+import com.starking.artesanato.service.RelatorioImportacao;
+import com.starking.artesanato.service.ResultadoItemLote;
+import com.starking.artesanato.utils.ConstantesUtils;
+
+public class ImportacaoPecasServiceTest {
+
+	PecaService pecaService = mock(PecaService.class);
+	LotePecasService loteService = mock(LotePecasService.class);
+	CopiaPecasPostgres copia = mock(CopiaPecasPostgres.class);
+	ImportacaoPecasServiceImpl service = new ImportacaoPecasServiceImpl(pecaService, loteService, copia);
+
+	List<Pecas> gravadas = new ArrayList<>();
+
+	@Test
+	public void deveGravarAsLinhasValidasEInformarAsRejeitadas() throws Exception {
+		//cenário
+		configurar(2);
+		doThrow(new RegraNegocioException(ConstantesUtils.DESCRICAO_VALIDA))
+				.when(pecaService).validar(ArgumentMatchers.argThat(pecas -> pecas.getDescricao() == null));
+		when(loteService.importar(anyList())).thenAnswer(invocacao -> {
+			List<Pecas> parte = invocacao.getArgument(0);
+			List<ResultadoItemLote> resultados = new ArrayList<>();
+			for(Pecas pecas : parte) {
+				synchronized (gravadas) {
+					gravadas.add(pecas);
+				}
+				resultados.add(pecas.getUsuario().getId() == 9l
+						? ResultadoItemLote.falha(ConstantesUtils.USUARIO_NAO_ENCONTRADO_ID)
+						: ResultadoItemLote.sucesso(1l));
+			}
+			return resultados;
+		});
+
+		String csv = "id,descricao,mes,ano,valor,usuario,tipo,status\n"
+				+ "1,\"Vaso, \"\"grande\"\"\",1,2019,10.50,1,CREDITO,EFETIVADO\n"
+				+ "2,,1,2019,10,1,CREDITO,\n"
+				+ "3,Colar,treze,2019,10,1,CREDITO,\n"
+				+ "\n"
+				+ "4,\"Prato\nazul\",2,2019,5,9,PIX,\n"
+				+ "5,Pote,3,2019,7,1,PIX,\n";
+
+		//execucao
+		RelatorioImportacao relatorio = service.importar(entrada(csv));
+
+		//verificacao
+		assertThat(relatorio.getLidas()).isEqualTo(5);
+		assertThat(relatorio.getGravadas()).isEqualTo(2);
+		assertThat(relatorio.getRejeitadas()).isEqualTo(3);
+		assertThat(relatorio.getRejeicoes()).extracting(RelatorioImportacao.Rejeicao::getLinha).containsExactlyInAnyOrder(3l, 4l, 6l);
+		assertThat(relatorio.isConcluida()).isTrue();
+		assertThat(service.emAndamento()).isEmpty();
+
+		Pecas vaso = gravadas.stream().filter(pecas -> pecas.getMes() == 1).findFirst().get();
+		assertThat(vaso.getDescricao()).isEqualTo("Vaso, \"grande\"");
+		assertThat(vaso.getStatus()).isEqualTo(StatusPagamento.EFETIVADO);
+		assertThat(gravadas).extracting(Pecas::getDescricao).contains("Prato\nazul");
+	}
+
+	@Test
+	public void deveRejeitarAnoForaDaFaixaDoInteiroEmVezDeTruncar() throws Exception {
+		//cenário: 4294969315 truncado para int daria 2019
+		configurar(2);
+		when(loteService.importar(anyList())).thenAnswer(invocacao -> {
+			gravadas.addAll(invocacao.getArgument(0));
+			return new ArrayList<>();
+		});
+
+		//execucao
+		RelatorioImportacao relatorio = service.importar(entrada("descricao,mes,ano,valor,usuario,tipo\n"
+				+ "Vaso,1,4294969315,10,1,CREDITO\n"));
+
+		//verificacao
+		assertThat(relatorio.getRejeitadas()).isEqualTo(1);
+		assertThat(relatorio.getRejeicoes()).extracting(RelatorioImportacao.Rejeicao::getErro).containsExactly(ConstantesUtils.ANO_VALIDO);
+		assertThat(gravadas).isEmpty();
+	}
+
+	@Test
+	public void deveRecusarArquivoSemAsColunasObrigatorias() {
+		//cenário
+		configurar(2);
+
+		//execucao
+		Throwable erro = catchThrowable(() -> service.importar(entrada("descricao,mes,ano\nVaso,1,2019\n")));
+
+		//verificacao
+		assertThat(erro).isInstanceOf(RegraNegocioException.class).hasMessage(ConstantesUtils.CABECALHO_IMPORTACAO_INVALIDO);
+		assertThat(service.emAndamento()).isEmpty();
+	}
+
+	private void configurar(int tamanhoParte) {
+		ReflectionTestUtils.setField(service, "tamanhoParte", tamanhoParte);
+		ReflectionTestUtils.setField(service, "validadores", 2);
+		ReflectionTestUtils.setField(service, "partesEmEspera", 1);
+		ReflectionTestUtils.setField(service, "maximoRejeicoes", 10);
+		when(copia.isDisponivel()).thenReturn(false);
+	}
+
+	private static InputStream entrada(String csv) {
+		return new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8));
+	}
+}
@@ -0,0 +1,61 @@
+package com.starking.artesanato.service.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.starking.artesanato.model.enums.StatusPagamento;
+import com.starking.artesanato.model.enums.TipoPagamento;
+import com.starking.artesanato.model.repository.PecasRepository;
+import com.starking.artesanato.service.evento.PecasAlteradasEvent;
+import com.starking.artesanato.service.evento.SituacaoPeca;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class IndiceDescricaoPecasTest {
+
+	PecasRepository repository = mock(PecasRepository.class);
+	IndiceDescricaoPecas indice = new IndiceDescricaoPecas(repository,
+			mock(PlatformTransactionManager.class), new SimpleMeterRegistry(), 10, false, 600, 60);
+
+	@Test
+	public void deveLembrarDoUsuarioComPecasDemaisSemRecontarACadaBusca() {
+		//cenário
+		when(repository.countByUsuarioId(1l)).thenReturn(11l);
+
+		//execucao
+		assertThat(indice.buscarIds(1l, "vaso", null, null, null, 10)).isNull();
+		assertThat(indice.buscarIds(1l, "prato", null, null, null, 10)).isNull();
+
+		//verificacao
+		verify(repository, times(1)).countByUsuarioId(1l);
+		verify(repository, never()).listarDescricoesPorUsuario(any());
+	}
+
+	@Test
+	public void naoDevePublicarOIndiceQuandoOUsuarioForAlteradoDuranteACarga() {
+		//cenário: a peça 2 é gravada e confirmada enquanto a carga lê a peça 1
+		SituacaoPeca gravada = new SituacaoPeca(2l, 1l, "Vaso azul", 1, 2019, BigDecimal.TEN,
+				TipoPagamento.CREDITO, StatusPagamento.PENDENTE, 0l);
+		when(repository.listarDescricoesPorUsuario(1l)).thenAnswer(invocacao -> Stream.<Object[]>of(
+				new Object[] { 1l, 1l, "Vaso verde", 2019, 1 }).peek(linha -> indice.pecasAlteradas(PecasAlteradasEvent.de(null, gravada))));
+
+		//execucao
+		assertThat(indice.buscarIds(1l, "vaso", null, null, null, 10)).containsExactly(1l);
+		assertThat(indice.buscarIds(1l, "vaso", null, null, null, 10)).containsExactly(1l);
+
+		//verificacao: o índice sem a peça 2 não foi publicado, cada busca releu o banco
+		verify(repository, times(2)).listarDescricoesPorUsuario(1l);
+	}
+
+}
@@ -0,0 +1,61 @@
+package com.starking.artesanato.service.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+public class IndiceTrigramasTest {
+
+	IndiceTrigramas indice = new IndiceTrigramas();
+
+	@Test
+	public void deveEncontrarPorTrechoSemDiferenciarMaiusculas() {
+		//cenário
+		indice.gravar(1l, "Vaso de Cerâmica", 2019, 1);
+		indice.gravar(2l, "Colar de miçangas", 2019, 1);
+		indice.gravar(3l, "CERÂMICA pintada", 2019, 2);
+
+		//execucao e verificacao
+		assertThat(indice.buscar("cerâmica", null, null, null, 10)).containsExactly(1l, 3l);
+		assertThat(indice.buscar("de", null, null, null, 10)).containsExactly(1l, 2l);
+		assertThat(indice.buscar("madeira", null, null, null, 10)).isEmpty();
+	}
+
+	@Test
+	public void deveFiltrarPorAnoMesECursor() {
+		//cenário
+		indice.gravar(1l, "Vaso de cerâmica", 2019, 1);
+		indice.gravar(2l, "Prato de cerâmica", 2019, 2);
+		indice.gravar(3l, "Pote de cerâmica", 2020, 1);
+		indice.gravar(4l, "Jarra de cerâmica", 2019, 1);
+
+		//execucao e verificacao
+		assertThat(indice.buscar("cerâmica", 2019, 1, null, 10)).containsExactly(1l, 4l);
+		assertThat(indice.buscar("cerâmica", null, null, 1l, 2)).containsExactly(2l, 3l);
+	}
+
+	@Test
+	public void deveRefletirAlteracoesERemocoes() {
+		//cenário
+		indice.gravar(1l, "Vaso de cerâmica", 2019, 1);
+		indice.gravar(2l, "Prato de cerâmica", 2019, 1);
+
+		//execucao
+		indice.gravar(1l, "Vaso de vidro", 2019, 1);
+		indice.remover(2l);
+
+		//verificacao
+		assertThat(indice.buscar("cerâmica", null, null, null, 10)).isEmpty();
+		assertThat(indice.buscar("vidro", null, null, null, 10)).containsExactly(1l);
+		assertThat(indice.tamanho()).isEqualTo(1);
+	}
+
+	@Test
+	public void naoDeveConfundirTrigramasComunsComOTrechoInteiro() {
+		//cenário
+		indice.gravar(1l, "abc xyz bcd", 2019, 1);
+
+		//execucao e verificacao
+		assertThat(indice.buscar("abcd", null, null, null, 10)).isEmpty();
+	}
+}
@@ -0,0 +1,69 @@
+package com.starking.artesanato.service.impl;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.starking.artesanato.model.entity.Usuario;
+
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Emissão e leitura de tokens pelo {@link JwtServiceImpl}, configurado como
+ * na aplicação. O {@code isTokenValido} repete o mesmo token, então mede o
+ * caminho com o cache de claims quente, que é o da maioria das requisições.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtServiceBenchmark {
+
+	JwtServiceImpl jwtService;
+	Usuario usuario;
+	String token;
+
+	@Setup
+	public void preparar() {
+		jwtService = criarJwtService();
+		usuario = Usuario.builder().id(1l).nome("Usuário").email("usuario@email.com").build();
+		token = jwtService.gerarToken(usuario);
+	}
+
+	@Benchmark
+	public String gerarToken() {
+		return jwtService.gerarToken(usuario);
+	}
+
+	@Benchmark
+	public Claims obterClaims() {
+		return jwtService.obterClaims(token);
+	}
+
+	@Benchmark
+	public boolean isTokenValido() {
+		return jwtService.isTokenValido(token);
+	}
+
+	public static JwtServiceImpl criarJwtService() {
+		JwtServiceImpl jwtService = new JwtServiceImpl(new SimpleMeterRegistry());
+		ReflectionTestUtils.setField(jwtService, "expiracao", 30l);
+		ReflectionTestUtils.setField(jwtService, "chaveAssinatura", JwtVerificacaoBenchmark.CHAVE_ASSINATURA);
+		ReflectionTestUtils.setField(jwtService, "tamanhoMaximoCache", 10000l);
+		jwtService.iniciar();
+		return jwtService;
+	}
+}
@@ -0,0 +1,67 @@
+package com.starking.artesanato.service.impl;
+
+import java.util.Base64;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.starking.artesanato.service.TokenVerificado;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+
+/**
+ * Compara o caminho atual do jjwt (parser novo e chave em base64 a cada
+ * chamada) com o {@link JwtVerificador}, para um token igual ao que
+ * {@link JwtServiceImpl#gerarToken} emite.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtVerificacaoBenchmark {
+
+	static final String CHAVE_ASSINATURA = "YSBsZWJyZSDDqSBicmFuY2E=";
+
+	String token;
+	JwtVerificador verificador;
+
+	@Setup
+	public void preparar() {
+		token = Jwts.builder()
+				.setExpiration(new Date(System.currentTimeMillis() + TimeUnit.MINUTES.toMillis(30)))
+				.setSubject("usuario@email.com")
+				.claim("userid", 1l)
+				.claim("nome", "Usuário")
+				.claim("horaExpiracao", "10:30")
+				.signWith(SignatureAlgorithm.HS512, CHAVE_ASSINATURA)
+				.compact();
+		verificador = new JwtVerificador(Base64.getDecoder().decode(CHAVE_ASSINATURA));
+	}
+
+	@Benchmark
+	public Claims jjwt() {
+		return Jwts.parser()
+				.setSigningKey(CHAVE_ASSINATURA)
+				.parseClaimsJws(token)
+				.getBody();
+	}
+
+	@Benchmark
+	public TokenVerificado verificador() {
+		return verificador.verificar(token);
+	}
+}
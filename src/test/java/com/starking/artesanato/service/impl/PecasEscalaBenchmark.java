@@ -0,0 +1,207 @@
+package com.starking.artesanato.service.impl;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Optional;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.starking.artesanato.ArtesanatoApplication;
+import com.starking.artesanato.api.dto.PecasDTO;
+import com.starking.artesanato.carga.GeradorPecas;
+import com.starking.artesanato.model.entity.Pecas;
+import com.starking.artesanato.model.entity.Usuario;
+import com.starking.artesanato.model.repository.PecasRepository;
+import com.starking.artesanato.service.PecaService;
+
+/**
+ * Como as consultas de peças escalam com o volume. Cada escala é gerada uma
+ * vez pelo {@link GeradorPecas} num H2 em arquivo (target/escala) e reaproveitada
+ * pelos forks seguintes. O parâmetro {@code usuario} escolhe o usuário de mais
+ * peças ou um da cauda da distribuição.
+ * <p>
+ * No setup são gravados em target/escala/planos-*.txt o EXPLAIN ANALYZE e a
+ * quantidade de linhas de um SQL equivalente ao de cada caminho. A busca por
+ * descrição passa pelo índice em memória enquanto o usuário couber em
+ * {@code pecas.indice.maximo-pecas}; o plano registrado é o da consulta usada
+ * quando não cabe. Sem a tabela saldo_usuario preenchida, o saldo vem do
+ * agregado.
+ * <p>
+ * {@code mvn -Pbenchmark test-compile exec:exec -Djmh.incluir=PecasEscala}. A
+ * escala de 10 milhões fica fora do padrão pelo tempo de carga e pela memória;
+ * rode o JMH com {@code -p escala=10000000 -jvmArgsAppend -Xmx8g}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = { "-Xms2g", "-Xmx2g" })
+public class PecasEscalaBenchmark {
+
+	private static final long SEMENTE = 42;
+	private static final int ANO = 2020;
+	private static final int MES = 6;
+	private static final int LIMITE = 100;
+	private static final String TRECHO = "cerâmica";
+
+	@Param({ "10000", "100000", "1000000" })
+	long escala;
+
+	@Param({ "pesado", "leve" })
+	String usuario;
+
+	ConfigurableApplicationContext contexto;
+	PecaService service;
+	PecasRepository repository;
+	Long idUsuario;
+	GeradorPecas.Massa massa;
+	SplittableRandom aleatorio = new SplittableRandom(SEMENTE);
+
+	@Setup
+	public void preparar() throws IOException, SQLException {
+		File diretorio = new File("target/escala").getAbsoluteFile();
+		diretorio.mkdirs();
+		System.setProperty("spring.devtools.restart.enabled", "false");
+		// o @EnableWebMvc exige o contexto web; sobe numa porta livre
+		System.setProperty("server.port", "0");
+		System.setProperty("logging.file", new File(diretorio, "aplicacao.log").getPath());
+		System.setProperty("logging.level.root", "WARN");
+		System.setProperty("pecas.indice.carregar-na-inicializacao", "false");
+		System.setProperty("spring.datasource.url", "jdbc:h2:file:" + new File(diretorio, "pecas-" + escala).getPath()
+				+ ";INIT=CREATE SCHEMA IF NOT EXISTS artesanato");
+
+		contexto = new SpringApplicationBuilder(ArtesanatoApplication.class)
+				.profiles("test")
+				.run();
+		service = contexto.getBean(PecaService.class);
+		repository = contexto.getBean(PecasRepository.class);
+
+		JdbcTemplate jdbc = contexto.getBean(JdbcTemplate.class);
+		massa = carregarOuGerar(jdbc, new File(diretorio, "massa-" + escala + ".txt"));
+		idUsuario = "pesado".equals(usuario) ? massa.idUsuarioPesado : massa.idUsuarioLeve;
+
+		try (PrintStream planos = new PrintStream(new File(diretorio, "planos-" + escala + "-" + usuario + ".txt"), "UTF-8")) {
+			registrarPlanos(jdbc, planos);
+		}
+	}
+
+	@TearDown
+	public void encerrar() {
+		contexto.close();
+	}
+
+	@Benchmark
+	public List<PecasDTO> buscar() {
+		return service.buscar(filtro(null), null, LIMITE);
+	}
+
+	@Benchmark
+	public List<PecasDTO> buscarPorDescricao() {
+		return service.buscar(filtro(TRECHO), null, LIMITE);
+	}
+
+	@Benchmark
+	public BigDecimal obterSaldoPorUsuario() {
+		return service.obterSaldoPorUsuario(idUsuario);
+	}
+
+	@Benchmark
+	public Optional<Pecas> findById() {
+		return repository.findById(massa.idPrimeiraPeca + aleatorio.nextLong(massa.pecas));
+	}
+
+	private Pecas filtro(String descricao) {
+		Pecas filtro = new Pecas();
+		filtro.setUsuario(Usuario.builder().id(idUsuario).build());
+		filtro.setAno(ANO);
+		filtro.setMes(MES);
+		filtro.setDescricao(descricao);
+		return filtro;
+	}
+
+	/** A massa de uma escala é gerada na primeira vez; as seguintes leem o resumo gravado. */
+	private GeradorPecas.Massa carregarOuGerar(JdbcTemplate jdbc, File resumo) throws IOException {
+		Long pecas = jdbc.queryForObject("select count(*) from artesanato.pecas", Long.class);
+		if (resumo.exists() && pecas != null && pecas == escala) {
+			String[] campos = new String(Files.readAllBytes(resumo.toPath()), StandardCharsets.UTF_8).trim().split(",");
+			return new GeradorPecas.Massa(Long.parseLong(campos[0]), Long.parseLong(campos[1]), Long.parseLong(campos[2]),
+					Long.parseLong(campos[3]), Long.parseLong(campos[4]), Long.parseLong(campos[5]));
+		}
+
+		jdbc.execute("delete from artesanato.pecas");
+		jdbc.update("delete from artesanato.usuario where email like ?", GeradorPecas.PREFIXO_EMAIL + "%");
+		long inicio = System.nanoTime();
+		GeradorPecas.Massa gerada = new GeradorPecas(jdbc).gerar(escala, SEMENTE);
+		System.out.printf("%nGeradas %s em %.1fs.%n", gerada, (System.nanoTime() - inicio) / 1e9);
+		try (PrintStream saida = new PrintStream(resumo, "UTF-8")) {
+			saida.printf("%d,%d,%d,%d,%d,%d%n", gerada.pecas, gerada.idPrimeiraPeca, gerada.idUsuarioPesado,
+					gerada.pecasUsuarioPesado, gerada.idUsuarioLeve, gerada.pecasUsuarioLeve);
+		}
+		return gerada;
+	}
+
+	/**
+	 * SQL equivalente ao que o Hibernate gera em cada caminho, com os valores
+	 * já no texto para que o plano considere a seletividade real.
+	 */
+	private void registrarPlanos(JdbcTemplate jdbc, PrintStream saida) throws SQLException {
+		String explain = isPostgres() ? "explain (analyze, buffers) " : "explain analyze ";
+		String colunas = "select p.id, p.ano, p.data_cadastro, p.descricao, p.mes, p.status, p.tipo, p.id_usuario, p.valor"
+				+ " from artesanato.pecas p";
+		String porUsuario = colunas + " where p.id_usuario = " + idUsuario + " and p.ano = " + ANO + " and p.mes = " + MES;
+
+		saida.printf("Escala %d, usuário %s (%d): %s%n", escala, usuario, idUsuario, massa);
+		saida.printf("Peças do usuário: %d%n", jdbc.queryForObject(
+				"select count(*) from artesanato.pecas where id_usuario = ?", Long.class, idUsuario));
+
+		registrar(jdbc, saida, explain, "buscar", porUsuario + " order by p.id limit " + LIMITE);
+		registrar(jdbc, saida, explain, "buscarPorDescricao (sem índice em memória)",
+				porUsuario + " and lower(p.descricao) like '%" + TRECHO + "%' order by p.id limit " + LIMITE);
+		registrar(jdbc, saida, explain, "obterSaldoPorUsuario (agregado)",
+				"select sum(case when p.tipo = 'CREDITO' then p.valor else -p.valor end) from artesanato.pecas p"
+						+ " inner join artesanato.usuario u on p.id_usuario = u.id"
+						+ " where u.id = " + idUsuario + " and p.status = 'EFETIVADO'");
+		registrar(jdbc, saida, explain, "findById",
+				colunas + " left outer join artesanato.usuario u on p.id_usuario = u.id where p.id = " + massa.idPrimeiraPeca);
+	}
+
+	private static void registrar(JdbcTemplate jdbc, PrintStream saida, String explain, String nome, String sql) {
+		int linhas = jdbc.query(sql, (rs, i) -> 1).size();
+		saida.printf("%n== %s: %d linhas%n%s%n", nome, linhas, sql);
+		jdbc.query(explain + sql, rs -> {
+			saida.println(rs.getString(1));
+		});
+	}
+
+	private boolean isPostgres() throws SQLException {
+		try (Connection conexao = contexto.getBean(DataSource.class).getConnection()) {
+			return "PostgreSQL".equalsIgnoreCase(conexao.getMetaData().getDatabaseProductName());
+		}
+	}
+}
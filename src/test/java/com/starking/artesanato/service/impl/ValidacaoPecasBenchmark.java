@@ -0,0 +1,62 @@
+package com.starking.artesanato.service.impl;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.starking.artesanato.exception.RegraNegocioException;
+import com.starking.artesanato.model.entity.Pecas;
+import com.starking.artesanato.model.entity.Usuario;
+import com.starking.artesanato.model.repository.PecasRepositoryTest;
+
+/**
+ * {@link PecaServiceImpl#validar} para uma peça válida e para uma que falha na
+ * última regra, onde o custo da exceção aparece.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ValidacaoPecasBenchmark {
+
+	PecaServiceImpl service;
+	Pecas valida;
+	Pecas semTipo;
+
+	@Setup
+	public void preparar() {
+		service = new PecaServiceImpl(null, null, null, null, null, null);
+		valida = PecasRepositoryTest.criarPecas();
+		valida.setUsuario(Usuario.builder().id(1l).build());
+		semTipo = PecasRepositoryTest.criarPecas();
+		semTipo.setUsuario(Usuario.builder().id(1l).build());
+		semTipo.setTipo(null);
+	}
+
+	@Benchmark
+	public Pecas validarPecaValida() {
+		service.validar(valida);
+		return valida;
+	}
+
+	@Benchmark
+	public RegraNegocioException validarPecaInvalida() {
+		try {
+			service.validar(semTipo);
+			return null;
+		} catch (RegraNegocioException e) {
+			return e;
+		}
+	}
+}